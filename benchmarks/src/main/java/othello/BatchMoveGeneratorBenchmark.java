@@ -0,0 +1,103 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the SIMD batch move generator against the scalar one, on a batch of corpus positions. The reported time
+ * is per position. The forked JVM resolves the {@code jdk.incubator.vector} module, without it both implementations
+ * are scalar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchMoveGeneratorBenchmark {
+    /**
+     * Number of positions of the batch, the corpus is repeated to fill it
+     */
+    private static final int BATCH = 4096;
+    /**
+     * Implementation to measure, {@code vector} for the fastest available one and {@code scalar} for the scalar one
+     */
+    @Param({"scalar", "vector"})
+    public String implementation;
+    /**
+     * Generator of the measured implementation
+     */
+    private BatchMoveGenerator generator;
+    /**
+     * Discs of the player to move of every position
+     */
+    private long[] players = new long[BATCH];
+    /**
+     * Discs of the opponent of every position
+     */
+    private long[] opponents = new long[BATCH];
+    /**
+     * A valid move of every position
+     */
+    private int[] squares = new int[BATCH];
+    /**
+     * Results of the benchmarks
+     */
+    private long[] results = new long[BATCH];
+    /**
+     * Second results of the play benchmark
+     */
+    private long[] secondResults = new long[BATCH];
+
+    /**
+     * Creates the generator and the batch of positions, white is to move in every position.
+     */
+    @Setup
+    public void setUp() {
+        generator = implementation.equals("scalar") ? new ScalarBatchMoveGenerator() : BatchMoveGenerator.create();
+        Board[] boards = Positions.create();
+        for (int i = 0; i < BATCH; i++) {
+            Board board = boards[i % boards.length];
+            players[i] = board.getDiscs(Board.WHITE);
+            opponents[i] = board.getDiscs(Board.BLACK);
+            long validMoves = Bitboard.validMoves(players[i], opponents[i]);
+            squares[i] = Bitboard.nthSquare(validMoves, i % Long.bitCount(validMoves));
+        }
+    }
+
+    /**
+     * Generates the valid moves of every position.
+     *
+     * @return results, so the computation is not removed
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] validMoves() {
+        generator.validMoves(players, opponents, results, BATCH);
+        return results;
+    }
+
+    /**
+     * Plays a move in every position.
+     *
+     * @return results, so the computation is not removed
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] play() {
+        generator.play(players, opponents, squares, results, secondResults, BATCH);
+        return results;
+    }
+}
@@ -0,0 +1,30 @@
+package othello;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler, so every result includes the allocated bytes per operation. All
+ * JMH command line options are accepted, for example a benchmark name pattern to run only some benchmarks.
+ * <br>
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [JMH options]}
+ */
+public class BenchmarkRunner {
+    /**
+     * The main method of the benchmarks.
+     *
+     * @param args JMH command line options
+     * @throws CommandLineOptionException if the options are not valid
+     * @throws RunnerException            if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,122 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link Board} methods used by the game loop and the computer players. Every invocation runs the
+ * method once on every position of the corpus, the reported time is per position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    /**
+     * Boards of the corpus positions, white is to move
+     */
+    private Board[] boards;
+    /**
+     * A valid move of white in every position
+     */
+    private int[] moves;
+
+    /**
+     * Creates the corpus and selects a valid move in every position.
+     */
+    @Setup
+    public void setUp() {
+        boards = Positions.create();
+        moves = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            long validMoves = boards[i].getValidMoves(Board.WHITE);
+            moves[i] = Bitboard.nthSquare(validMoves, i % Long.bitCount(validMoves));
+        }
+    }
+
+    /**
+     * Checks every cell of every position.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT * 64)
+    public void isValidMove(Blackhole blackhole) {
+        for (Board board : boards) {
+            for (int row = 0; row < 8; row++) {
+                for (int column = 0; column < 8; column++) {
+                    blackhole.consume(board.isValidMove(Board.WHITE_PIECE, row, column));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the valid moves of every position.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public void getValidMoves(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(board.getValidMoves(Board.WHITE_PIECE));
+        }
+    }
+
+    /**
+     * Puts a piece in every position and takes it back, so the corpus does not change.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public void putPiece(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            boards[i].putPiece(Board.WHITE_PIECE, Bitboard.row(moves[i]), Bitboard.column(moves[i]));
+            blackhole.consume(boards[i].getHash(Board.BLACK));
+            boards[i].unmakeMove();
+        }
+    }
+
+    /**
+     * Counts the earned pieces of a valid move in every position.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public void getEarnedPiecesCountWithMove(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            blackhole.consume(boards[i].getEarnedPiecesCountWithMove(Board.WHITE_PIECE, Bitboard.row(moves[i]),
+                    Bitboard.column(moves[i])));
+        }
+    }
+
+    /**
+     * Checks whether the game is finished in every position.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public void isGameFinished(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(board.isGameFinished());
+        }
+    }
+}
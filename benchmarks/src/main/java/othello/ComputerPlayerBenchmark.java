@@ -0,0 +1,57 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link ComputerPlayer#getNextMove()} on every position of the corpus, the reported time is per move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputerPlayerBenchmark {
+    /**
+     * A computer player on every corpus position
+     */
+    private ComputerPlayer[] players;
+
+    /**
+     * Creates the corpus and a computer player on every position.
+     */
+    @Setup
+    public void setUp() {
+        Board[] boards = Positions.create();
+        players = new ComputerPlayer[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            players[i] = new ComputerPlayer(boards[i]);
+        }
+    }
+
+    /**
+     * Chooses the next move in every position.
+     *
+     * @param blackhole consumer of the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public void getNextMove(Blackhole blackhole) {
+        for (ComputerPlayer player : players) {
+            blackhole.consume(player.getNextMove());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * Corpus of realistic mid-game positions shared by the benchmarks. Positions are built by playing random moves from
+ * the start position with a fixed seed, so every benchmark run measures the same positions.
+ */
+final class Positions {
+    /**
+     * Number of positions in the corpus
+     */
+    static final int COUNT = 64;
+    /**
+     * Seed of random positions
+     */
+    private static final long SEED = 20200401;
+    /**
+     * Minimum number of random moves played from the start position
+     */
+    private static final int MIN_MOVES = 16;
+    /**
+     * Maximum number of random moves played from the start position
+     */
+    private static final int MAX_MOVES = 40;
+
+    /**
+     * Utility class, no instance is needed.
+     */
+    private Positions() {
+    }
+
+    /**
+     * Creates the corpus. In every position white is to move and has at least two valid moves, and the position has
+     * more empty cells than the endgame threshold of {@link ComputerPlayer}.
+     *
+     * @return boards of all corpus positions
+     */
+    static Board[] create() {
+        Random random = new Random(SEED);
+        Board[] boards = new Board[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            Board board;
+            do {
+                board = new Board();
+                int moves = MIN_MOVES + random.nextInt(MAX_MOVES - MIN_MOVES + 1);
+                int color = Board.BLACK;
+                while (board.getMoveCount() < moves && !board.isGameFinished()) {
+                    long validMoves = board.getValidMoves(color);
+                    if (validMoves != 0) {
+                        board.makeMove(color, Bitboard.nthSquare(validMoves, random.nextInt(Long.bitCount(validMoves))));
+                    }
+                    color ^= 1;
+                }
+                //the last move must be made by black, so white is to move
+                if (color != Board.WHITE) {
+                    board = null;
+                }
+            } while (board == null || Long.bitCount(board.getValidMoves(Board.WHITE)) < 2
+                    || board.getEmptyCount() <= ComputerPlayer.DEFAULT_ENDGAME_EMPTIES);
+            boards[i] = board;
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,124 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the endgame solver against a plain minimax search of random endgame positions.
+ */
+class EndgameSolverTest {
+    /**
+     * Number of checked positions of every empty count
+     */
+    private static final int POSITIONS = 100;
+
+    /**
+     * Exact scores and the score of the best move match minimax.
+     */
+    @Test
+    void exactScoresMatchMinimax() {
+        SplittableRandom random = new SplittableRandom(7);
+        EndgameSolver solver = new EndgameSolver();
+        for (int empties = 1; empties <= 10; empties++) {
+            for (int i = 0; i < POSITIONS; i++) {
+                Board board = new Board();
+                int color = RandomGames.playRandomly(board, empties, random);
+                if (color < 0) {
+                    continue;
+                }
+                long player = board.getDiscs(color);
+                long opponent = board.getDiscs(color ^ 1);
+                int expected = minimax(player, opponent);
+                int move = solver.solve(board, color, false);
+                assertEquals(expected, solver.getScore(), "empties " + empties);
+                long flips = Bitboard.flips(player, opponent, move);
+                assertEquals(expected, -minimax(opponent & ~flips, player | flips | 1L << move), "best move");
+            }
+        }
+    }
+
+    /**
+     * Win/loss solves find the sign of the exact score.
+     */
+    @Test
+    void winLossScoresMatchMinimaxSign() {
+        SplittableRandom random = new SplittableRandom(8);
+        EndgameSolver solver = new EndgameSolver();
+        for (int i = 0; i < POSITIONS; i++) {
+            Board board = new Board();
+            int color = RandomGames.playRandomly(board, 10, random);
+            if (color < 0) {
+                continue;
+            }
+            int expected = minimax(board.getDiscs(color), board.getDiscs(color ^ 1));
+            solver.solve(board, color, true);
+            assertEquals(Integer.signum(expected), Integer.signum(solver.getScore()));
+        }
+    }
+
+    /**
+     * Solving leaves the board unchanged.
+     */
+    @Test
+    void solveRestoresBoard() {
+        Board board = new Board();
+        int color = RandomGames.playRandomly(board, 12, new SplittableRandom(9));
+        assertTrue(color >= 0);
+        long black = board.getDiscs(Board.BLACK);
+        long white = board.getDiscs(Board.WHITE);
+        new EndgameSolver().solve(board, color, false);
+        assertEquals(black, board.getDiscs(Board.BLACK));
+        assertEquals(white, board.getDiscs(Board.WHITE));
+    }
+
+    /**
+     * A stop request from another thread ends a long solve early with a valid move.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the solve
+     */
+    @Test
+    void stopEndsSolve() throws InterruptedException {
+        Board board = new Board();
+        int color = RandomGames.playRandomly(board, 26, new SplittableRandom(10));
+        assertTrue(color >= 0);
+        EndgameSolver solver = new EndgameSolver();
+        int[] move = new int[1];
+        Thread thread = new Thread(() -> move[0] = solver.solve(board, color, false));
+        thread.start();
+        Thread.sleep(100);
+        solver.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(solver.isStopped());
+        assertTrue((board.getValidMoves(color) & 1L << move[0]) != 0);
+    }
+
+    /**
+     * Computes the final disc difference of perfect play by a full minimax search.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return final disc difference of the player to move
+     */
+    private static int minimax(long player, long opponent) {
+        long moves = Bitboard.validMoves(player, opponent);
+        if (moves == 0) {
+            if (Bitboard.validMoves(opponent, player) == 0) {
+                return Long.bitCount(player) - Long.bitCount(opponent);
+            }
+            return -minimax(opponent, player);
+        }
+        int best = -Integer.MAX_VALUE;
+        for (; moves != 0; moves = Bitboard.removeFirst(moves)) {
+            int move = Bitboard.firstSquare(moves);
+            long flips = Bitboard.flips(player, opponent, move);
+            best = Math.max(best, -minimax(opponent & ~flips, player | flips | 1L << move));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,73 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the neural network evaluator.
+ */
+class NeuralEvaluatorTest {
+    /**
+     * Incrementally updated accumulators give the same evaluations as accumulators computed from scratch, with a small
+     * random network.
+     */
+    @Test
+    void incrementalUpdatesMatchReset() {
+        SplittableRandom random = new SplittableRandom(24);
+        int hidden = 16;
+        NeuralEvaluator evaluator = new NeuralEvaluator(hidden,
+                randomWeights(NeuralEvaluator.FEATURES * hidden, random), randomWeights(hidden, random),
+                randomWeights(2 * hidden, random), random.nextInt(-1000, 1001), 64);
+        RandomGames.assertIncrementalUpdatesMatchReset(evaluator, 200, random);
+    }
+
+    /**
+     * A saved network loads with the same evaluations, and a file with a first layer weight beyond
+     * {@link NeuralEvaluator#FEATURE_LIMIT} is rejected.
+     *
+     * @param directory temporary directory of the weights files
+     * @throws IOException if a weights file can not be written or read
+     */
+    @Test
+    void loadChecksFeatureLimit(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(25);
+        int hidden = 8;
+        short[] featureWeights = randomWeights(NeuralEvaluator.FEATURES * hidden, random);
+        NeuralEvaluator evaluator = new NeuralEvaluator(hidden, featureWeights, randomWeights(hidden, random),
+                randomWeights(2 * hidden, random), 0, 64);
+        Path path = directory.resolve("test.nnue");
+        evaluator.save(path);
+        Board board = new Board();
+        RandomGames.playRandomly(board, 30, random);
+        evaluator.reset(board);
+        Evaluator loaded = NeuralEvaluator.load(path);
+        loaded.reset(board);
+        assertEquals(evaluator.evaluate(board, Board.BLACK), loaded.evaluate(board, Board.BLACK));
+
+        featureWeights[0] = NeuralEvaluator.FEATURE_LIMIT + 1;
+        evaluator.save(path);
+        assertThrows(IOException.class, () -> NeuralEvaluator.load(path));
+    }
+
+    /**
+     * Creates random weights small enough that no accumulator overflows, about half of the hidden units are active.
+     *
+     * @param length number of weights
+     * @param random random generator
+     * @return the weights
+     */
+    private static short[] randomWeights(int length, SplittableRandom random) {
+        short[] weights = new short[length];
+        for (int i = 0; i < length; i++) {
+            weights[i] = (short) random.nextInt(-64, 65);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,117 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks opening books written by {@link OpeningBookBuilder} and the validation of book files.
+ */
+class OpeningBookTest {
+    /**
+     * Number of moves from the start position of the test book
+     */
+    private static final int BOOK_MOVES = 3;
+
+    /**
+     * Every position of a built book is found in all eight orientations, and the book move of every orientation is
+     * the transformed book move of the original position.
+     *
+     * @param directory temporary directory of the book file
+     * @throws IOException if the book can not be written or read
+     */
+    @Test
+    void builtBookFindsMovesInAllOrientations(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("test.book");
+        OpeningBookBuilder.build(path, BOOK_MOVES, 2);
+        OpeningBook book = OpeningBook.open(path);
+        assertTrue(book.size() > 0);
+        checkPositions(book, new Board(), Board.BLACK, BOOK_MOVES);
+    }
+
+    /**
+     * Checks a position and all positions after it up to the specified number of moves.
+     *
+     * @param book  book to check
+     * @param board board of the position
+     * @param color color index of the player to move
+     * @param moves remaining number of moves
+     */
+    private static void checkPositions(OpeningBook book, Board board, int color, int moves) {
+        long black = board.getDiscs(Board.BLACK);
+        long white = board.getDiscs(Board.WHITE);
+        int move = book.findMove(board, color);
+        assertTrue(move >= 0, "position not in the book");
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+            Board transformed = new Board(Symmetry.transform(black, symmetry), Symmetry.transform(white, symmetry));
+            int transformedMove = book.findMove(transformed, color);
+            assertTrue(transformedMove >= 0, "symmetry " + symmetry);
+            //symmetric positions may have several equivalent best moves, the book keeps one of them
+            Board expected = new Board(transformed);
+            expected.makeMove(color, Symmetry.transformSquare(move, symmetry));
+            Board actual = new Board(transformed);
+            actual.makeMove(color, transformedMove);
+            assertEquals(Symmetry.canonicalHash(expected.getDiscs(color), expected.getDiscs(color ^ 1)),
+                    Symmetry.canonicalHash(actual.getDiscs(color), actual.getDiscs(color ^ 1)), "symmetry " + symmetry);
+        }
+        if (moves == 0) {
+            return;
+        }
+        for (long valid = board.getValidMoves(color); valid != 0; valid = Bitboard.removeFirst(valid)) {
+            board.makeMove(color, Bitboard.firstSquare(valid));
+            checkPositions(book, board, color ^ 1, moves - 1);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * A book header with as many entries as slots is rejected, a lookup would find no empty slot to stop at.
+     *
+     * @param directory temporary directory of the book file
+     * @throws IOException if the book file can not be written
+     */
+    @Test
+    void fullBookIsRejected(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("full.book");
+        Files.write(path, book(4, 4, 4));
+        assertThrows(IOException.class, () -> OpeningBook.open(path));
+    }
+
+    /**
+     * A lookup in a damaged book whose slots are all used ends without a move.
+     *
+     * @param directory temporary directory of the book file
+     * @throws IOException if the book can not be written or read
+     */
+    @Test
+    void lookupInFullTableEnds(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("damaged.book");
+        Files.write(path, book(4, 1, 4));
+        assertEquals(-1, OpeningBook.open(path).findMove(new Board(), Board.BLACK));
+    }
+
+    /**
+     * Creates the content of a book file whose used slots have keys that match no position.
+     *
+     * @param capacity  number of slots
+     * @param size      number of entries of the header
+     * @param usedSlots number of used slots
+     * @return content of the book file
+     */
+    private static byte[] book(int capacity, int size, int usedSlots) {
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + capacity * OpeningBook.SLOT_BYTES);
+        buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putInt(capacity).putInt(size);
+        for (int i = 0; i < usedSlots; i++) {
+            buffer.putLong(OpeningBook.HEADER_BYTES + i * OpeningBook.SLOT_BYTES, -1L - i);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,25 @@
+package othello;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the pattern evaluator.
+ */
+class PatternEvaluatorTest {
+    /**
+     * Incrementally updated pattern codes give the same evaluations as codes computed from scratch, with random weights
+     * in every stage.
+     */
+    @Test
+    void incrementalUpdatesMatchReset() {
+        SplittableRandom random = new SplittableRandom(9);
+        int stages = 4;
+        short[] weights = new short[stages * PatternEvaluator.STAGE_WEIGHTS];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (short) random.nextInt(-1000, 1001);
+        }
+        RandomGames.assertIncrementalUpdatesMatchReset(new PatternEvaluator(weights, stages), 200, random);
+    }
+}
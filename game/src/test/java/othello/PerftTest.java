@@ -0,0 +1,76 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks move generation and make/unmake by counting the leaf nodes of the game tree.
+ */
+class PerftTest {
+    /**
+     * Deepest checked depth, deeper counts take too long for a unit test
+     */
+    private static final int MAX_DEPTH = 9;
+    /**
+     * Deepest checked depth of the plain and the parallel counts
+     */
+    private static final int PARALLEL_DEPTH = 8;
+
+    /**
+     * Counts of all depths up to {@link PerftTest#MAX_DEPTH} match the known perft numbers of othello.
+     */
+    @Test
+    void countsMatchKnownNumbers() {
+        Perft perft = new Perft(16);
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            assertEquals(Perft.KNOWN_COUNTS[depth], perft.count(new Board(), Board.BLACK, depth, false),
+                    "depth " + depth);
+        }
+    }
+
+    /**
+     * Counts of the plain recursion without hash table match the known perft numbers.
+     */
+    @Test
+    void countsWithoutHashMatchKnownNumbers() {
+        Perft perft = new Perft(0);
+        for (int depth = 1; depth <= PARALLEL_DEPTH; depth++) {
+            assertEquals(Perft.KNOWN_COUNTS[depth], perft.count(new Board(), Board.BLACK, depth, false),
+                    "depth " + depth);
+        }
+    }
+
+    /**
+     * Counts split into fork/join tasks match the known perft numbers, with and without the shared hash table.
+     */
+    @Test
+    void parallelCountsMatchKnownNumbers() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (Perft perft : new Perft[]{new Perft(0), new Perft(16)}) {
+                for (int depth = 1; depth <= PARALLEL_DEPTH; depth++) {
+                    assertEquals(Perft.KNOWN_COUNTS[depth], perft.countParallel(pool, new Board(), Board.BLACK, depth),
+                            "depth " + depth);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counting leaves the board unchanged.
+     */
+    @Test
+    void countRestoresBoard() {
+        Board board = new Board();
+        new Perft(1).count(board, Board.BLACK, 6, false);
+        Board start = new Board();
+        assertEquals(start.getDiscs(Board.BLACK), board.getDiscs(Board.BLACK));
+        assertEquals(start.getDiscs(Board.WHITE), board.getDiscs(Board.WHITE));
+        assertEquals(0, board.getMoveCount());
+    }
+}
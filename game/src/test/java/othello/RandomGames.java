@@ -0,0 +1,102 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random games shared by the tests: random moves, positions reached by random play and the check of incremental
+ * evaluator updates along random games.
+ */
+final class RandomGames {
+    /**
+     * Utility class, no instance is needed.
+     */
+    private RandomGames() {
+    }
+
+    /**
+     * Picks a random valid move.
+     *
+     * @param board  current board
+     * @param color  color index of the player to move, must have a valid move
+     * @param random random generator of the move
+     * @return square index of the move
+     */
+    static int randomMove(Board board, int color, SplittableRandom random) {
+        long moves = board.getValidMoves(color);
+        return Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves)));
+    }
+
+    /**
+     * Plays random moves from the start position until the specified number of empty cells is left.
+     *
+     * @param board   board in the start position
+     * @param empties number of empty cells to leave
+     * @param random  random generator of the moves
+     * @return color index of the player to move, {@code -1} if the game ended before
+     */
+    static int playRandomly(Board board, int empties, SplittableRandom random) {
+        int color = Board.BLACK;
+        while (board.getEmptyCount() > empties) {
+            if (board.isGameFinished()) {
+                return -1;
+            }
+            board.makeMove(color, randomMove(board, color, random));
+            color = board.nextTurn(color);
+        }
+        return board.isGameFinished() ? -1 : color;
+    }
+
+    /**
+     * Plays random games with occasional take backs, like a search returning from a subtree, and asserts after every
+     * move and every take back that the incrementally updated evaluator gives the same scores as a copy reset to the
+     * same board.
+     *
+     * @param evaluator evaluator to check
+     * @param games     number of games
+     * @param random    random generator of the moves
+     */
+    static void assertIncrementalUpdatesMatchReset(Evaluator evaluator, int games, SplittableRandom random) {
+        int[] colors = new int[Board.MAX_MOVES];
+        long[] flips = new long[Board.MAX_MOVES];
+        for (int game = 0; game < games; game++) {
+            Board board = new Board();
+            evaluator.reset(board);
+            int color = Board.BLACK;
+            while (!board.isGameFinished()) {
+                int move = randomMove(board, color, random);
+                int index = board.getMoveCount();
+                colors[index] = color;
+                flips[index] = board.makeMove(color, move);
+                evaluator.makeMove(color, move, flips[index]);
+                color = board.nextTurn(color);
+                assertMatchesReset(evaluator, board, color);
+                if (random.nextInt(4) == 0) {
+                    int back = Math.min(random.nextInt(1, 4), board.getMoveCount());
+                    for (int i = 0; i < back; i++) {
+                        int last = board.getMoveCount() - 1;
+                        evaluator.unmakeMove(colors[last], board.getMove(last), flips[last]);
+                        board.unmakeMove();
+                        color = colors[last];
+                        assertMatchesReset(evaluator, board, color);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Asserts that the evaluator gives the same scores as a copy reset to the board.
+     *
+     * @param evaluator incrementally updated evaluator
+     * @param board     current board
+     * @param color     color index of the player to move
+     */
+    private static void assertMatchesReset(Evaluator evaluator, Board board, int color) {
+        Evaluator fresh = evaluator.copy();
+        fresh.reset(board);
+        assertEquals(fresh.evaluate(board, color), evaluator.evaluate(board, color));
+        assertEquals(fresh.evaluate(board, color ^ 1), evaluator.evaluate(board, color ^ 1));
+    }
+}
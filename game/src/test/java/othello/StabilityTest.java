@@ -0,0 +1,97 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks stable discs and the score bounds derived from them against random playouts and solved endgames.
+ */
+class StabilityTest {
+    /**
+     * Number of played random games
+     */
+    private static final int GAMES = 2000;
+    /**
+     * Number of empty cells below which positions are solved to check the bounds of perfect play
+     */
+    private static final int SOLVED_EMPTIES = 10;
+
+    /**
+     * Discs found stable in any position of a random game keep their color until the end and the final disc
+     * difference is within the score bounds of every position.
+     */
+    @Test
+    void stableDiscsNeverFlip() {
+        SplittableRandom random = new SplittableRandom(22);
+        long[] stable = new long[2 * Board.MAX_MOVES + 2];
+        int[] lowerBounds = new int[Board.MAX_MOVES + 1];
+        int[] upperBounds = new int[Board.MAX_MOVES + 1];
+        int[] colors = new int[Board.MAX_MOVES + 1];
+        for (int game = 0; game < GAMES; game++) {
+            Board board = new Board();
+            int color = Board.BLACK;
+            int count = 0;
+            while (true) {
+                long player = board.getDiscs(color);
+                long opponent = board.getDiscs(color ^ 1);
+                stable[2 * count] = Stability.stableDiscs(player, opponent);
+                stable[2 * count + 1] = Stability.stableDiscs(opponent, player);
+                lowerBounds[count] = Stability.scoreLowerBound(player, opponent);
+                upperBounds[count] = Stability.scoreUpperBound(player, opponent);
+                colors[count] = color;
+                assertEquals(0, stable[2 * count] & ~player);
+                assertEquals(0, stable[2 * count + 1] & ~opponent);
+                for (int i = 0; i < count; i++) {
+                    //a disc stable for the player to move at position i is still of that color
+                    long own = board.getDiscs(colors[i]);
+                    assertEquals(stable[2 * i], stable[2 * i] & own, "position " + i);
+                    assertEquals(stable[2 * i + 1], stable[2 * i + 1] & board.getDiscs(colors[i] ^ 1));
+                }
+                count++;
+                if (board.isGameFinished()) {
+                    break;
+                }
+                board.makeMove(color, RandomGames.randomMove(board, color, random));
+                color = board.nextTurn(color);
+            }
+            int blackDifference = Long.bitCount(board.getDiscs(Board.BLACK))
+                    - Long.bitCount(board.getDiscs(Board.WHITE));
+            for (int i = 0; i < count; i++) {
+                int difference = colors[i] == Board.BLACK ? blackDifference : -blackDifference;
+                assertTrue(lowerBounds[i] <= difference && difference <= upperBounds[i], "position " + i);
+            }
+        }
+    }
+
+    /**
+     * The score of perfect play is within the score bounds of solved endgame positions.
+     */
+    @Test
+    void boundsContainSolvedScores() {
+        SplittableRandom random = new SplittableRandom(23);
+        EndgameSolver solver = new EndgameSolver();
+        for (int game = 0; game < GAMES / 10; game++) {
+            Board board = new Board();
+            int color = Board.BLACK;
+            while (!board.isGameFinished()) {
+                long player = board.getDiscs(color);
+                long opponent = board.getDiscs(color ^ 1);
+                int move;
+                if (board.getEmptyCount() <= SOLVED_EMPTIES) {
+                    move = solver.solve(board, color, false);
+                    int score = solver.getScore();
+                    assertTrue(Stability.scoreLowerBound(player, opponent) <= score);
+                    assertTrue(score <= Stability.scoreUpperBound(player, opponent));
+                } else {
+                    move = RandomGames.randomMove(board, color, random);
+                }
+                board.makeMove(color, move);
+                color = board.nextTurn(color);
+            }
+        }
+    }
+}
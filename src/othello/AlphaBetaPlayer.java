@@ -0,0 +1,297 @@
+package othello;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Determines a computer player that chooses its next move by searching the game tree with {@link SearchEngine}, on
+ * one or more threads.
+ * <br>
+ * If pondering is enabled, the player keeps searching while the opponent thinks. It predicts the reply of the
+ * opponent from its principal variation and searches the position after the reply in the background until its next
+ * turn. If the opponent plays the predicted reply, the background search goes on within the time limit of the move,
+ * so no iteration searched while the opponent thought is lost. Otherwise it is stopped and only its transposition
+ * table entries are reused.
+ */
+class AlphaBetaPlayer extends Player {
+    /**
+     * Kind of a move taken from the opening book
+     */
+    private static final int BOOK_MOVE = 0;
+    /**
+     * Kind of a move chosen by the endgame solver
+     */
+    private static final int SOLVED_MOVE = 1;
+    /**
+     * Kind of a move chosen by the search engine
+     */
+    private static final int SEARCHED_MOVE = 2;
+    /**
+     * The othello game board
+     */
+    private Board board;
+    /**
+     * The search engine of the player
+     */
+    private ParallelSearchEngine engine;
+    /**
+     * Solver of the endgame
+     */
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    /**
+     * The player solves the game to the end if the number of empty cells is not greater than this number
+     */
+    private int endgameEmpties;
+    /**
+     * Opening book consulted before searching, {@code null} if the player has no book
+     */
+    private OpeningBook openingBook;
+    /**
+     * Time limit of every move in milliseconds, {@code 0} for no limit
+     */
+    private long timeLimitMillis;
+    /**
+     * Whether the player searches while the opponent thinks
+     */
+    private boolean pondering;
+    /**
+     * Thread of background searches, created with the first background search
+     */
+    private ExecutorService ponderThread;
+    /**
+     * Running or finished background search, {@code null} if there is not any
+     */
+    private Future<Integer> ponderTask;
+    /**
+     * Hash of the position searched in the background, with the player to move
+     */
+    private long ponderHash;
+    /**
+     * Kind of the last move, one of {@link AlphaBetaPlayer#BOOK_MOVE}, {@link AlphaBetaPlayer#SOLVED_MOVE} and
+     * {@link AlphaBetaPlayer#SEARCHED_MOVE}
+     */
+    private int lastMoveKind;
+    /**
+     * Whether the position of the last move was searched in the background
+     */
+    private boolean ponderHit;
+    /**
+     * Description of the last move, formatted before the background search starts
+     */
+    private String moveInfo;
+
+    /**
+     * Constructor that initializes player.
+     *
+     * @param board           The othello game board
+     * @param piece           player piece
+     * @param evaluator       evaluation function of the search
+     * @param maxDepth        maximum search depth
+     * @param timeLimitMillis time limit of every move in milliseconds, {@code 0} for no limit
+     * @param hashMegabytes   memory budget of the transposition table in megabytes
+     * @param threads         number of search threads
+     * @param endgameEmpties  maximum number of empty cells where the player solves the game to the end
+     */
+    AlphaBetaPlayer(Board board, Piece piece, Evaluator evaluator, int maxDepth, long timeLimitMillis,
+                    int hashMegabytes, int threads, int endgameEmpties) {
+        super("Computer", piece);
+        this.board = board;
+        this.endgameEmpties = endgameEmpties;
+        this.timeLimitMillis = timeLimitMillis;
+        this.engine = new ParallelSearchEngine(evaluator, new TranspositionTable(hashMegabytes), maxDepth,
+                timeLimitMillis, threads);
+    }
+
+    /**
+     * Sets the opening book of the player.
+     *
+     * @param openingBook opening book, {@code null} to play without book
+     */
+    void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Enables or disables searching while the opponent thinks.
+     *
+     * @param pondering {@code true} to search while the opponent thinks
+     */
+    void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Searches the best move. The book move is played without search if the position is in the opening book, and if
+     * the number of empty cells is not greater than the endgame threshold, the game is solved to the end. If pondering
+     * is enabled, a background search of the predicted reply is started after the move is chosen.
+     *
+     * @return square index of the next move, {@link Player#PASS} if the player has no valid move
+     */
+    public int getNextMove() {
+        int color = Board.colorOf(getPiece());
+        ponderHit = false;
+        int selected = openingBook == null ? -1 : openingBook.findMove(board, color);
+        if (selected >= 0) {
+            stopPondering();
+            lastMoveKind = BOOK_MOVE;
+        } else if (board.getEmptyCount() <= endgameEmpties) {
+            stopPondering();
+            selected = endgameSolver.solve(board, color, false);
+            lastMoveKind = SOLVED_MOVE;
+        } else if (ponderTask != null && board.getHash(color) == ponderHash) {
+            ponderHit = true;
+            selected = finishPondering();
+            lastMoveKind = SEARCHED_MOVE;
+        } else {
+            stopPondering();
+            selected = engine.search(board, color);
+            lastMoveKind = SEARCHED_MOVE;
+        }
+        //the statistics are read before a background search resets them
+        moveInfo = formatMoveInfo();
+        if (selected < 0) {
+            return PASS;
+        }
+        if (pondering) {
+            startPondering(color, selected);
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the search statistics of the last move, including the number of searched nodes and the search speed.
+     *
+     * @return description of the last move
+     */
+    @Override
+    String getMoveInfo() {
+        return moveInfo;
+    }
+
+    /**
+     * Formats the search statistics of the last move from the searcher that chose it.
+     *
+     * @return description of the last move
+     */
+    private String formatMoveInfo() {
+        String info;
+        if (lastMoveKind == BOOK_MOVE) {
+            info = "book move";
+        } else if (lastMoveKind == SOLVED_MOVE) {
+            info = String.format("solved, score %+d, %d nodes", endgameSolver.getScore(), endgameSolver.getNodes());
+        } else {
+            info = String.format("depth %d, score %+.2f, %d nodes, %d nodes/s", engine.getDepth(),
+                    engine.getScore() / (double) Evaluator.DISC_SCORE, engine.getNodes(),
+                    engine.getNodesPerSecond());
+        }
+        return ponderHit ? "ponder hit, " + info : info;
+    }
+
+    /**
+     * Stops the background search and its thread when the game is finished. The thread is created again if the player
+     * ponders in another game.
+     */
+    @Override
+    void gameFinished() {
+        stopPondering();
+        if (ponderThread != null) {
+            ponderThread.shutdownNow();
+            ponderThread = null;
+        }
+    }
+
+    /**
+     * Starts the background search of the position after the selected move and the predicted reply. The reply is the
+     * second move of the principal variation, or the first ordered move of the opponent if the last move was not
+     * searched. Nothing is searched if the game ends or the position is left to the endgame solver.
+     *
+     * @param color    color index of the player
+     * @param selected square index of the selected move
+     */
+    private void startPondering(int color, int selected) {
+        Board ponderBoard = new Board(board);
+        ponderBoard.makeMove(color, selected);
+        int opponent = color ^ 1;
+        long replies = ponderBoard.getValidMoves(opponent);
+        if (replies != 0) {
+            int[] line = engine.getPrincipalVariation();
+            int reply = line.length > 1 && line[0] == selected && ((replies >>> line[1]) & 1) != 0 ? line[1]
+                    : Bitboard.firstSquare(replies);
+            ponderBoard.makeMove(opponent, reply);
+        }
+        if (ponderBoard.getValidMoves(color) == 0 || ponderBoard.getEmptyCount() <= endgameEmpties) {
+            return;
+        }
+        if (ponderThread == null) {
+            ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        ponderHash = ponderBoard.getHash(color);
+        engine.setTimeLimit(0);
+        ponderTask = ponderThread.submit(() -> engine.search(ponderBoard, color));
+    }
+
+    /**
+     * Finishes the background search of the current position after a ponder hit. The search goes on from the depth
+     * it has reached until it completes or the time limit of the move is over.
+     *
+     * @return square index of the best move found by the background search
+     */
+    private int finishPondering() {
+        Future<Integer> task = ponderTask;
+        try {
+            if (timeLimitMillis > 0) {
+                task.get(timeLimitMillis, TimeUnit.MILLISECONDS);
+            } else {
+                task.get();
+            }
+        } catch (TimeoutException e) {
+            //the time of the move is over, the search is stopped below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background search failed", e.getCause());
+        }
+        stopPondering();
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Background search failed", e);
+        }
+    }
+
+    /**
+     * Stops the background search and waits for it to finish. The stop request is repeated until the search
+     * finishes, so a search that starts just after a request is stopped too.
+     */
+    private void stopPondering() {
+        if (ponderTask == null) {
+            return;
+        }
+        while (!ponderTask.isDone()) {
+            engine.stop();
+            try {
+                ponderTask.get(10, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                //the search has not seen the request yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Background search failed", e.getCause());
+            }
+        }
+        ponderTask = null;
+        engine.setTimeLimit(timeLimitMillis);
+    }
+}
@@ -0,0 +1,17 @@
+package othello;
+
+/**
+ * Receives the improving scores of a {@link MoveAnalyzer} while the analysis is running.
+ */
+interface AnalysisListener {
+    /**
+     * Called on a search thread after a move is searched one ply deeper.
+     *
+     * @param move               square index of the move
+     * @param depth              completed depth, including the move itself
+     * @param score              score of the move from the point of view of the player to move
+     * @param principalVariation square indexes of the expected line of play starting with the move, passes are
+     *                           {@link SearchEngine#PASS}
+     */
+    void moveAnalyzed(int move, int depth, int score, int[] principalVariation);
+}
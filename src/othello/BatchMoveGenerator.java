@@ -0,0 +1,49 @@
+package othello;
+
+/**
+ * Move generation for many independent positions per call, for example the positions of many self-play games. Every
+ * position is given as a pair of bitboards at the same index of two arrays, the discs of the player to move and the
+ * discs of the opponent.
+ * <br>
+ * {@link BatchMoveGenerator#create()} returns the SIMD implementation of the vector module if it is on the class path
+ * and the {@code jdk.incubator.vector} module is available, otherwise the scalar implementation.
+ */
+interface BatchMoveGenerator {
+    /**
+     * Computes the valid moves of every position.
+     *
+     * @param players   discs of the player to move of every position
+     * @param opponents discs of the opponent of every position
+     * @param moves     receives the bitboard of valid moves of every position
+     * @param count     number of positions
+     */
+    void validMoves(long[] players, long[] opponents, long[] moves, int count);
+
+    /**
+     * Plays a move in every position. The results are seen from the opponent, who is to move next, so they can be
+     * passed to the next call directly. The result arrays may be the same arrays as the position arrays.
+     *
+     * @param players       discs of the player to move of every position
+     * @param opponents     discs of the opponent of every position
+     * @param squares       square index of a valid move of every position
+     * @param nextPlayers   receives the discs of the opponent after the move of every position
+     * @param nextOpponents receives the discs of the player after the move of every position
+     * @param count         number of positions
+     */
+    void play(long[] players, long[] opponents, int[] squares, long[] nextPlayers, long[] nextOpponents, int count);
+
+    /**
+     * Creates the fastest available implementation. The SIMD implementation is loaded by reflection, so this class
+     * does not depend on the vector module.
+     *
+     * @return batch move generator
+     */
+    static BatchMoveGenerator create() {
+        try {
+            return (BatchMoveGenerator) Class.forName("othello.VectorBatchMoveGenerator").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarBatchMoveGenerator();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reading and writing of whole buffers of the binary file formats, a file channel may read or write fewer bytes than
+ * requested in one call.
+ */
+final class BinaryFiles {
+    /**
+     * Utility class, no instance is needed.
+     */
+    private BinaryFiles() {
+    }
+
+    /**
+     * Fills the buffer up to its limit from the channel and flips it.
+     *
+     * @param channel channel to read
+     * @param buffer  buffer to fill
+     * @return {@code false} if the channel ends before the buffer is full
+     * @throws IOException if the channel can not be read
+     */
+    static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Reads the specified number of bytes from a channel.
+     *
+     * @param channel  channel to read
+     * @param bytes    number of bytes
+     * @param fileType name of the file format for the error message
+     * @return buffer of read bytes, ready to get
+     * @throws IOException if the channel ends before all bytes are read
+     */
+    static ByteBuffer readFully(FileChannel channel, int bytes, String fileType) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        if (!fill(channel, buffer)) {
+            throw new IOException("Unexpected end of " + fileType);
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the remaining content of a buffer to a file, an existing file is replaced.
+     *
+     * @param path   path of the file
+     * @param buffer content of the file from its position to its limit
+     * @throws IOException if the file can not be written
+     */
+    static void write(Path path, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package othello;
+
+/**
+ * Bitboard operations of the othello game. A bitboard is a 64-bit mask with one bit per cell, the cell with row
+ * index {@code r} and column index {@code c} is kept at bit {@code r * 8 + c}. Every position is described by two
+ * bitboards, one for the discs of the player and one for the discs of the opponent.
+ * <br>
+ * All eight directions are handled by the same shift pass, four directions are shifted to the left and their
+ * opposite directions are shifted to the right by the same amount.
+ */
+final class Bitboard {
+    /**
+     * Shift amounts of the four line directions: horizontal, vertical, anti-diagonal and diagonal
+     */
+    static final int[] DIRECTION_SHIFTS = {1, 8, 7, 9};
+    /**
+     * Masks of the cells that can be crossed while walking in each line direction without wrapping around the board
+     * edges, indexed same as {@link Bitboard#DIRECTION_SHIFTS}
+     */
+    static final long[] DIRECTION_MASKS = {
+            0x7E7E7E7E7E7E7E7EL, 0x00FFFFFFFFFFFF00L, 0x007E7E7E7E7E7E00L, 0x007E7E7E7E7E7E00L
+    };
+
+    /**
+     * Utility class, no instance is needed.
+     */
+    private Bitboard() {
+    }
+
+    /**
+     * Converts row and column indexes to the square index used in bitboards.
+     *
+     * @param row    row index in range 0 to 7
+     * @param column column index in range 0 to 7
+     * @return square index in range 0 to 63
+     */
+    static int square(int row, int column) {
+        return (row << 3) | column;
+    }
+
+    /**
+     * Gets the row index of a square index.
+     *
+     * @param square square index in range 0 to 63
+     * @return row index in range 0 to 7
+     */
+    static int row(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * Gets the column index of a square index.
+     *
+     * @param square square index in range 0 to 63
+     * @return column index in range 0 to 7
+     */
+    static int column(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Gets the square index of the lowest set bit of a bitboard, used with {@link Bitboard#removeFirst(long)} to
+     * iterate over all squares of a bitboard without any allocation:
+     * <pre>
+     * for (long moves = ...; moves != 0; moves = Bitboard.removeFirst(moves)) {
+     *     int square = Bitboard.firstSquare(moves);
+     * }
+     * </pre>
+     *
+     * @param bitboard a non-zero bitboard
+     * @return square index of the lowest set bit
+     */
+    static int firstSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * Removes the lowest set bit of a bitboard.
+     *
+     * @param bitboard a bitboard
+     * @return the bitboard without its lowest set bit
+     */
+    static long removeFirst(long bitboard) {
+        return bitboard & (bitboard - 1);
+    }
+
+    /**
+     * Gets the square index of the n-th lowest set bit of a bitboard.
+     *
+     * @param bitboard a bitboard with more than {@code n} set bits
+     * @param n        zero based index of the set bit
+     * @return square index of the n-th set bit
+     */
+    static int nthSquare(long bitboard, int n) {
+        for (int i = 0; i < n; i++) {
+            bitboard = removeFirst(bitboard);
+        }
+        return firstSquare(bitboard);
+    }
+
+    /**
+     * Computes all valid moves of the player as a bitboard. A move is valid if the cell is empty and there exists at
+     * least one straight line of contiguous opponent discs between the cell and another player disc.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return bitboard of all valid moves
+     */
+    static long validMoves(long player, long opponent) {
+        long moves = 0;
+        for (int d = 0; d < 4; d++) {
+            int shift = DIRECTION_SHIFTS[d];
+            long mask = opponent & DIRECTION_MASKS[d];
+            //walking from player discs over contiguous opponent discs, at most six discs can lie between
+            long left = mask & (player << shift);
+            long right = mask & (player >>> shift);
+            for (int i = 0; i < 5; i++) {
+                left |= mask & (left << shift);
+                right |= mask & (right >>> shift);
+            }
+            moves |= (left << shift) | (right >>> shift);
+        }
+        return moves & ~(player | opponent);
+    }
+
+    /**
+     * Computes all opponent discs that will be reversed if the player puts a new disc at the specified square. The
+     * square is not checked to be empty.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param square   square index of the new disc
+     * @return bitboard of reversed discs, {@code 0} if the move is not valid
+     */
+    static long flips(long player, long opponent, int square) {
+        long move = 1L << square;
+        long flipped = 0;
+        for (int d = 0; d < 4; d++) {
+            int shift = DIRECTION_SHIFTS[d];
+            long mask = opponent & DIRECTION_MASKS[d];
+            //walking from the new disc over contiguous opponent discs
+            long left = mask & (move << shift);
+            long right = mask & (move >>> shift);
+            for (int i = 0; i < 5; i++) {
+                left |= mask & (left << shift);
+                right |= mask & (right >>> shift);
+            }
+            //discs of a line are reversed only if the line is closed by a player disc, all ones mask otherwise zero
+            long leftOutflank = (left << shift) & player;
+            long rightOutflank = (right >>> shift) & player;
+            flipped |= left & ((leftOutflank | -leftOutflank) >> 63);
+            flipped |= right & ((rightOutflank | -rightOutflank) >> 63);
+        }
+        return flipped;
+    }
+}
@@ -1,11 +1,12 @@
 package othello;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Board class to manage board of othello game. This class manages current state of game board and takes all actions
  * that take place when a move occurs.
+ * <br>
+ * The board state is kept as two bitboards, one per color, see {@link Bitboard} for the square layout.
  */
 class Board {
     /**
@@ -17,531 +18,196 @@ class Board {
      */
     final static Piece BLACK_PIECE = new BlackPiece();
     /**
-     * An 8 by 8 array that keeps current board state
+     * Color index of black pieces
      */
-    private Cell[][] boardState = new Cell[8][8];
-
+    final static int BLACK = 0;
     /**
-     * Constructor to initialize board state at the beginning of the game. The start state determines as bellow:
-     * <br>
-     * All cells of the board will be initialized to empty, except four central cells that will contain two whites and
-     * two blacks.
+     * Color index of white pieces
      */
-    Board() {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                boardState[i][j] = new Cell();
-            }
-        }
-        boardState[3][3].putPiece(WHITE_PIECE);
-        boardState[4][4].putPiece(WHITE_PIECE);
-        boardState[3][4].putPiece(BLACK_PIECE);
-        boardState[4][3].putPiece(BLACK_PIECE);
-    }
-
+    final static int WHITE = 1;
     /**
-     * Prints current state of board.
+     * Maximum number of moves in a game, every move fills one of the 60 initially empty cells
      */
-    void print() {
-        System.out.println("     A     B     C     D     E     F     G     H");
-        for (int i = 0; i < 8; i++) {
-            System.out.println("  ------------------------------------");
-            System.out.print((i + 1) + " ");
-            for (int j = 0; j < 8; j++) {
-                System.out.print("| " + boardState[i][j].toString() + " ");
-            }
-            System.out.println("|");
-        }
-        System.out.println("  ------------------------------------");
-    }
-
+    final static int MAX_MOVES = 60;
     /**
-     * Checks the validity of putting input piece piece into the cell with row and column index.
-     * <br>
-     * The move is valid only if the cell pointer by row and column index was empty and there exists at least
-     * one straight (horizontal, vertical, or diagonal) occupied line between the new piece and another same colored piece,
-     * with one or more contiguous opposite piece pieces between them.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Zobrist keys of every color and square, the hash of a position is the xor of keys of all its pieces
      */
-    boolean isValidMove(Piece piece, int row, int column) {
-        if (!boardState[row][column].isEmpty()) {
-            return false;
-        }
-        if (checkDown(piece, row, column) || checkUp(piece, row, column) ||
-                checkLeft(piece, row, column) || checkRight(piece, row, column) ||
-                checkUpLeft(piece, row, column) || checkUpRight(piece, row, column) ||
-                checkDownLeft(piece, row, column) || checkDownRight(piece, row, column)) {
-            return true;
-        }
-        return false;
-    }
-
+    private final static long[][] ZOBRIST_KEYS = new long[2][64];
     /**
-     * Checks validity of move only at the left (west) horizontal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Zobrist key of white player to move
      */
-    private boolean checkLeft(Piece piece, int row, int column) {
-        boolean foundOppositeColor = false;
-        Cell currentCell;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = column - 1; i >= 0; i--) {
-            currentCell = boardState[row][i];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
+    private final static long WHITE_TO_MOVE_KEY;
+
+    static {
+        //fixed seed, so hashes are the same in every run and can be stored in files
+        SplittableRandom random = new SplittableRandom(0x4F7468656C6C6FL);
+        for (int color = 0; color < 2; color++) {
+            for (int square = 0; square < 64; square++) {
+                ZOBRIST_KEYS[color][square] = random.nextLong();
             }
         }
-        return false;
+        WHITE_TO_MOVE_KEY = random.nextLong();
     }
 
     /**
-     * Checks validity of move only at the right (east) horizontal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * A two member array that keeps current board state, each member is the bitboard of one color indexed by
+     * {@link Board#BLACK} and {@link Board#WHITE}
      */
-    private boolean checkRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = column + 1; i < 8; i++) {
-            currentCell = boardState[row][i];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    private long[] discs = new long[2];
     /**
-     * Checks validity of move only at the up (north) vertical direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Zobrist hash of current board state, updated incrementally by every move
      */
-    private boolean checkUp(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row - 1; i >= 0; i--) {
-            currentCell = boardState[i][column];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    private long hash;
     /**
-     * Checks validity of move only at the down (south) vertical direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Undo stack of reversed pieces of every applied move, the top of stack is at {@link Board#moveCount} - 1
      */
-    private boolean checkDown(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row + 1; i < 8; i++) {
-            currentCell = boardState[i][column];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    private long[] undoFlips = new long[MAX_MOVES];
     /**
-     * Checks validity of move only at the up-left (north-west) diagonal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Undo stack of square indexes of every applied move
      */
-    private boolean checkUpLeft(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row - 1, j = column - 1; i >= 0 && j >= 0; i--, j--) {
-            currentCell = boardState[i][j];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    private byte[] undoSquares = new byte[MAX_MOVES];
     /**
-     * Checks validity of move only at the up-right (north-east) diagonal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Undo stack of color indexes of every applied move
      */
-    private boolean checkUpRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row - 1, j = column + 1; i >= 0 && j < 8; i--, j++) {
-            currentCell = boardState[i][j];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
+    private byte[] undoColors = new byte[MAX_MOVES];
     /**
-     * Checks validity of move only at the down-left (south-west) diagonal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Undo stack of hashes before every applied move
      */
-    private boolean checkDownLeft(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row + 1, j = column - 1; i < 8 && j >= 0; i++, j--) {
-            currentCell = boardState[i][j];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
+    private long[] undoHashes = new long[MAX_MOVES];
+    /**
+     * Number of applied moves, equals to the size of undo stacks
+     */
+    private int moveCount;
 
     /**
-     * Checks validity of move only at the down-right (south-east) diagonal direction.
-     *
-     * @param piece  piece of piece to check validity of move
-     * @param row    row index of the move
-     * @param column column index of the move
-     * @return {@code true} if the move is valid, {@code false} otherwise
+     * Constructor to initialize board state at the beginning of the game. The start state determines as bellow:
+     * <br>
+     * All cells of the board will be initialized to empty, except four central cells that will contain two whites and
+     * two blacks.
      */
-    private boolean checkDownRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        boolean foundOppositeColor = false;
-        //Should find all opposite colors in straight line until reaches same piece
-        for (int i = row + 1, j = column + 1; i < 8 && j < 8; i++, j++) {
-            currentCell = boardState[i][j];
-            //if before finding opposites until same piece found an empty cell, the situation is not valid
-            if (currentCell.isEmpty()) {
-                return false;
-            }
-            //first should find an opposite piece
-            if (!foundOppositeColor) {
-                if (!currentCell.isSameColor(piece)) {
-                    foundOppositeColor = true;
-                } else { //if finds same piece before finding opposite piece, this situation is not valid
-                    return false;
-                }
-            } else {
-                //finding same piece after finding opposite piece is a valid situation
-                if (currentCell.isSameColor(piece)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    Board() {
+        discs[WHITE] = (1L << Bitboard.square(3, 3)) | (1L << Bitboard.square(4, 4));
+        discs[BLACK] = (1L << Bitboard.square(3, 4)) | (1L << Bitboard.square(4, 3));
+        hash = computeHash(discs[BLACK], discs[WHITE]);
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the right (east) horizontal direction.
+     * Constructor to initialize board state to the specified position with an empty undo stack.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param black bitboard of black pieces
+     * @param white bitboard of white pieces
      */
-    private void reversRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkRight(piece, row, column)) {
-            int i = column + 1;
-            currentCell = boardState[row][i];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[row][i].putPiece(piece);
-                i++;
-                currentCell = boardState[row][i];
-            }
-        }
+    Board(long black, long white) {
+        discs[BLACK] = black;
+        discs[WHITE] = white;
+        hash = computeHash(black, white);
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the left (west) horizontal direction.
+     * Copy constructor, the new board has the same state and the same undo stack as the specified board and can be
+     * used independently, for example by another thread.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param other board to copy
      */
-    private void reverseLeft(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkLeft(piece, row, column)) {
-            int i = column - 1;
-            currentCell = boardState[row][i];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[row][i].putPiece(piece);
-                i--;
-                currentCell = boardState[row][i];
-            }
-        }
+    Board(Board other) {
+        discs = other.discs.clone();
+        hash = other.hash;
+        undoFlips = other.undoFlips.clone();
+        undoSquares = other.undoSquares.clone();
+        undoColors = other.undoColors.clone();
+        undoHashes = other.undoHashes.clone();
+        moveCount = other.moveCount;
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the up (north) vertical direction.
+     * Computes Zobrist hash of a position from scratch.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param black bitboard of black pieces
+     * @param white bitboard of white pieces
+     * @return hash of the position
      */
-    private void reverseUp(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkUp(piece, row, column)) {
-            int i = row - 1;
-            currentCell = boardState[i][column];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][column].putPiece(piece);
-                i--;
-                currentCell = boardState[i][column];
-            }
+    static long computeHash(long black, long white) {
+        long result = 0;
+        for (long b = black; b != 0; b = Bitboard.removeFirst(b)) {
+            result ^= ZOBRIST_KEYS[BLACK][Bitboard.firstSquare(b)];
+        }
+        for (long w = white; w != 0; w = Bitboard.removeFirst(w)) {
+            result ^= ZOBRIST_KEYS[WHITE][Bitboard.firstSquare(w)];
         }
+        return result;
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the down (south) vertical direction.
+     * Gets the color index of the specified piece.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param piece piece to find its color
+     * @return {@link Board#BLACK} for black pieces, {@link Board#WHITE} otherwise
      */
-    private void reverseDown(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkDown(piece, row, column)) {
-            int i = row + 1;
-            currentCell = boardState[i][column];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][column].putPiece(piece);
-                i++;
-                currentCell = boardState[i][column];
-            }
-        }
+    static int colorOf(Piece piece) {
+        return BLACK_PIECE.equals(piece) ? BLACK : WHITE;
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the up-left (north-west) diagonal direction.
-     *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * Prints current state of board.
      */
-    private void reverseUpLeft(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkUpLeft(piece, row, column)) {
-            int i = row - 1;
-            int j = column - 1;
-            currentCell = boardState[i][j];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][j].putPiece(piece);
-                i--;
-                j--;
-                currentCell = boardState[i][j];
+    void print() {
+        System.out.println("     A     B     C     D     E     F     G     H");
+        for (int i = 0; i < 8; i++) {
+            System.out.println("  ------------------------------------");
+            System.out.print((i + 1) + " ");
+            for (int j = 0; j < 8; j++) {
+                System.out.print("| " + cellString(Bitboard.square(i, j)) + " ");
             }
+            System.out.println("|");
         }
+        System.out.println("  ------------------------------------");
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the up-right (north-east) diagonal direction.
+     * String representation of the cell, even empty or piece representation in the cell.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param square square index of the cell
+     * @return string representation of the cell
      */
-    private void reverseUpRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkUpRight(piece, row, column)) {
-            int i = row - 1;
-            int j = column + 1;
-            currentCell = boardState[i][j];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][j].putPiece(piece);
-                i--;
-                j++;
-                currentCell = boardState[i][j];
-            }
+    private String cellString(int square) {
+        long bit = 1L << square;
+        if ((discs[BLACK] & bit) != 0) {
+            return BLACK_PIECE.toString();
+        } else if ((discs[WHITE] & bit) != 0) {
+            return WHITE_PIECE.toString();
+        } else {
+            return "     ";
         }
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the down-right (south-east) diagonal direction.
+     * Checks the validity of putting input piece piece into the cell with row and column index.
+     * <br>
+     * The move is valid only if the cell pointer by row and column index was empty and there exists at least
+     * one straight (horizontal, vertical, or diagonal) occupied line between the new piece and another same colored piece,
+     * with one or more contiguous opposite piece pieces between them.
      *
-     * @param piece  piece of new piece
+     * @param piece  piece of piece to check validity of move
      * @param row    row index of the move
      * @param column column index of the move
+     * @return {@code true} if the move is valid, {@code false} otherwise
      */
-    private void reverseDownRight(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkDownRight(piece, row, column)) {
-            int i = row + 1;
-            int j = column + 1;
-            currentCell = boardState[i][j];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][j].putPiece(piece);
-                i++;
-                j++;
-                currentCell = boardState[i][j];
-            }
-        }
+    boolean isValidMove(Piece piece, int row, int column) {
+        return getFlips(colorOf(piece), Bitboard.square(row, column)) != 0;
     }
 
     /**
-     * After placing the new piece, this method reverses all opposite piece pieces lying on a straight line
-     * between the new piece and any anchoring pieces with same piece at the down-left (south-west) diagonal direction.
+     * Computes the pieces that will be reversed if a piece with the specified color is put at the specified square.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param color  color index of new piece
+     * @param square square index of the move
+     * @return bitboard of reversed pieces, {@code 0} if the move is not valid
      */
-    private void reverseDownLeft(Piece piece, int row, int column) {
-        Cell currentCell;
-        if (checkDownLeft(piece, row, column)) {
-            int i = row + 1;
-            int j = column - 1;
-            currentCell = boardState[i][j];
-            //reversing pieces until receives to same colored piece
-            while (!currentCell.isSameColor(piece)) {
-                boardState[i][j].putPiece(piece);
-                i++;
-                j--;
-                currentCell = boardState[i][j];
-            }
+    private long getFlips(int color, int square) {
+        if (((discs[BLACK] | discs[WHITE]) & (1L << square)) != 0) {
+            return 0;
         }
+        return Bitboard.flips(discs[color], discs[color ^ 1], square);
     }
 
     /**
@@ -553,339 +219,172 @@ class Board {
      * @param column column index of the move
      */
     void putPiece(Piece piece, int row, int column) {
-        if (isValidMove(piece, row, column)) {
-            boardState[row][column].putPiece(piece);
-            reverseUp(piece, row, column);
-            reverseDown(piece, row, column);
-            reversRight(piece, row, column);
-            reverseLeft(piece, row, column);
-            reverseDownRight(piece, row, column);
-            reverseDownLeft(piece, row, column);
-            reverseUpRight(piece, row, column);
-            reverseUpLeft(piece, row, column);
-        }
+        makeMove(colorOf(piece), Bitboard.square(row, column));
     }
 
     /**
-     * Checks if the game is finished or not using three rules:<br>
-     * 1. All pieces in the board has single color,<br>
-     * 2. There is no empty cell,<br>
-     * 3. There is no valid move for both black and white players.
+     * Puts new piece with the specified color to the specified square and reverses all earned pieces. The applied move
+     * is pushed to the undo stack, so it can be taken back by {@link Board#unmakeMove()}. Nothing is changed if the
+     * move is not valid.
      *
-     * @return {@code true} if the game is finished, {@code false} otherwise
+     * @param color  color index of new piece
+     * @param square square index of the move
+     * @return bitboard of reversed pieces, {@code 0} if the move is not valid
      */
-    boolean isGameFinished() {
-        if (isAllSingleColor()) {
-            return true;
-        }
-        if (!isEmptyExists()) {
-            return true;
-        }
-        if (hasNoValidMoves(BLACK_PIECE) && hasNoValidMoves(WHITE_PIECE)) {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Checks if all pieces in the board has single color.
-     *
-     * @return {@code true} if the game is finished, {@code false} otherwise
-     */
-    private boolean isAllSingleColor() {
-        boolean black = false;
-        boolean white = false;
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (boardState[i][j].isSameColor(BLACK_PIECE)) {
-                    black = true;
-                }
-                if (boardState[i][j].isSameColor(WHITE_PIECE)) {
-                    white = true;
-                }
+    long makeMove(int color, int square) {
+        long flips = getFlips(color, square);
+        if (flips != 0) {
+            undoHashes[moveCount] = hash;
+            hash ^= ZOBRIST_KEYS[color][square];
+            //a reversed piece changes from the other color to this color
+            for (long f = flips; f != 0; f = Bitboard.removeFirst(f)) {
+                int flipped = Bitboard.firstSquare(f);
+                hash ^= ZOBRIST_KEYS[BLACK][flipped] ^ ZOBRIST_KEYS[WHITE][flipped];
             }
+            discs[color] |= flips | (1L << square);
+            discs[color ^ 1] &= ~flips;
+            undoFlips[moveCount] = flips;
+            undoSquares[moveCount] = (byte) square;
+            undoColors[moveCount] = (byte) color;
+            moveCount++;
         }
-        //xor black and white, all should be black or white
-        return black ^ white;
+        return flips;
     }
 
     /**
-     * Checks if there exist any empty cell on the board.
-     *
-     * @return {@code true} if the game is finished, {@code false} otherwise
+     * Takes back the last move applied by {@link Board#makeMove(int, int)} and restores the exact prior position.
      */
-    private boolean isEmptyExists() {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (boardState[i][j].isEmpty()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    void unmakeMove() {
+        moveCount--;
+        long flips = undoFlips[moveCount];
+        int color = undoColors[moveCount];
+        discs[color] ^= flips | (1L << undoSquares[moveCount]);
+        discs[color ^ 1] |= flips;
+        hash = undoHashes[moveCount];
     }
 
     /**
-     * Computes count of pieces with the specified piece on the board.
+     * Gets Zobrist hash of current board state with the specified player to move.
      *
-     * @param piece piece piece that will be counted
-     * @return count of specified piece pieces
+     * @param color color index of the player to move
+     * @return hash of the position
      */
-    int getColorCount(Piece piece) {
-        int sum = 0;
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (boardState[i][j].isSameColor(piece)) {
-                    sum += 1;
-                }
-            }
-        }
-        return sum;
+    long getHash(int color) {
+        return color == WHITE ? hash ^ WHITE_TO_MOVE_KEY : hash;
     }
 
     /**
-     * Finds a list of all possible and valid moves of specified piece piece. The returned list contains all index pairs
-     * that determines cells that can be selected as next valid move.
+     * Gets number of applied moves that can be taken back.
      *
-     * @param piece piece piece to find valid moves
-     * @return a list of all valid moves
+     * @return number of applied moves
      */
-    List<int[]> getValidMoves(Piece piece) {
-        List<int[]> resultList = new ArrayList<>();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (isValidMove(piece, i, j)) {
-                    int[] ints = new int[2];
-                    ints[0] = i;
-                    ints[1] = j;
-                    resultList.add(ints);
-                }
-            }
-        }
-        return resultList;
+    int getMoveCount() {
+        return moveCount;
     }
 
     /**
-     * Checks if the specified piece has any valid move at the next turn.
+     * Gets an applied move that can be taken back.
      *
-     * @param piece piece piece to check existence of valid move
-     * @return {@code true} if the game is finished, {@code false} otherwise
+     * @param index index of the move in playing order, less than {@link Board#getMoveCount()}
+     * @return square index of the move
      */
-    boolean hasNoValidMoves(Piece piece) {
-        return getValidMoves(piece).isEmpty();
+    int getMove(int index) {
+        return undoSquares[index];
     }
 
     /**
-     * Computes all possible earned pieces if the specified move apply.
+     * Checks if the game is finished or not using three rules:<br>
+     * 1. All pieces in the board has single color,<br>
+     * 2. There is no empty cell,<br>
+     * 3. There is no valid move for both black and white players.
+     * <br>
+     * The first two rules are special cases of the third one.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @return {@code true} if the game is finished, {@code false} otherwise
      */
-    int getEarnedPiecesCountWithMove(Piece piece, int row, int column) {
-        int earns = 0;
-        if (isValidMove(piece, row, column)) {
-            earns += getEarnedPiecesCountLeft(piece, row, column);
-            earns += getEarnedPiecesCountRight(piece, row, column);
-            earns += getEarnedPiecesCountUp(piece, row, column);
-            earns += getEarnedPiecesCountDown(piece, row, column);
-            earns += getEarnedPiecesCountUpLeft(piece, row, column);
-            earns += getEarnedPiecesCountUpRight(piece, row, column);
-            earns += getEarnedPiecesCountDownLeft(piece, row, column);
-            earns += getEarnedPiecesCountDownRight(piece, row, column);
-        }
-        return earns;
+    boolean isGameFinished() {
+        return getValidMoves(BLACK) == 0 && getValidMoves(WHITE) == 0;
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the left (west) horizontal direction.
+     * Determines the color to move after the specified color has moved. The turn goes to the other color, unless it
+     * has no valid move and passes. Every game loop advances the turn with this method, so passes are handled alike.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param color color index of the player that moved
+     * @return color index of the player to move, the same color if the other color passes
      */
-    private int getEarnedPiecesCountLeft(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkLeft(piece, row, column)) {
-            int i = column - 1;
-            currentCell = boardState[row][i];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i--;
-                currentCell = boardState[row][i];
-            }
-        }
-        return sum;
+    int nextTurn(int color) {
+        return getValidMoves(color ^ 1) != 0 ? color ^ 1 : color;
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the right (east) horizontal direction.
+     * Gets the bitboard of all pieces with the specified color.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param color color index of pieces
+     * @return bitboard of pieces
      */
-    private int getEarnedPiecesCountRight(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkRight(piece, row, column)) {
-            int i = column + 1;
-            currentCell = boardState[row][i];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i++;
-                currentCell = boardState[row][i];
-            }
-        }
-        return sum;
+    long getDiscs(int color) {
+        return discs[color];
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the up (north) vertical direction.
+     * Computes count of empty cells on the board.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @return count of empty cells
      */
-    private int getEarnedPiecesCountUp(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkUp(piece, row, column)) {
-            int i = row - 1;
-            currentCell = boardState[i][column];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i--;
-                currentCell = boardState[i][column];
-            }
-        }
-        return sum;
+    int getEmptyCount() {
+        return 64 - Long.bitCount(discs[BLACK] | discs[WHITE]);
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the down (south) vertical direction.
+     * Computes count of pieces with the specified piece on the board.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param piece piece piece that will be counted
+     * @return count of specified piece pieces
      */
-    private int getEarnedPiecesCountDown(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkDown(piece, row, column)) {
-            int i = row + 1;
-            currentCell = boardState[i][column];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i++;
-                currentCell = boardState[i][column];
-            }
-        }
-        return sum;
+    int getColorCount(Piece piece) {
+        return Long.bitCount(discs[colorOf(piece)]);
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the up-left (north-west) diagonal direction.
+     * Finds all possible and valid moves of specified piece piece. The returned bitboard has one set bit for every
+     * cell that can be selected as next valid move, see {@link Bitboard#firstSquare(long)} to iterate over them.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param piece piece piece to find valid moves
+     * @return bitboard of all valid moves
      */
-    private int getEarnedPiecesCountUpLeft(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkUpLeft(piece, row, column)) {
-            int i = row - 1;
-            int j = column - 1;
-            currentCell = boardState[i][j];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i--;
-                j--;
-                currentCell = boardState[i][j];
-            }
-        }
-        return sum;
+    long getValidMoves(Piece piece) {
+        return getValidMoves(colorOf(piece));
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the up-right (north-east) diagonal direction.
+     * Finds all possible and valid moves of specified color as a bitboard.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param color color index to find valid moves
+     * @return bitboard of all valid moves
      */
-    private int getEarnedPiecesCountUpRight(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkUpRight(piece, row, column)) {
-            int i = row - 1;
-            int j = column + 1;
-            currentCell = boardState[i][j];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i--;
-                j++;
-                currentCell = boardState[i][j];
-            }
-        }
-        return sum;
+    long getValidMoves(int color) {
+        return Bitboard.validMoves(discs[color], discs[color ^ 1]);
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the down-left (south-west) diagonal direction.
+     * Checks if the specified piece has any valid move at the next turn.
      *
-     * @param piece  piece of new piece
-     * @param row    row index of the move
-     * @param column column index of the move
+     * @param piece piece piece to check existence of valid move
+     * @return {@code true} if the game is finished, {@code false} otherwise
      */
-    private int getEarnedPiecesCountDownLeft(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkDownLeft(piece, row, column)) {
-            int i = row + 1;
-            int j = column - 1;
-            currentCell = boardState[i][j];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i++;
-                j--;
-                currentCell = boardState[i][j];
-            }
-        }
-        return sum;
+    boolean hasNoValidMoves(Piece piece) {
+        return getValidMoves(piece) == 0;
     }
 
     /**
-     * If the specified move apply, computes all possible earned pieces lying on a straight line between the new piece
-     * and any anchoring pieces with same piece at the down-right (south-east) diagonal direction.
+     * Computes all possible earned pieces if the specified move apply.
      *
      * @param piece  piece of new piece
      * @param row    row index of the move
      * @param column column index of the move
      */
-    private int getEarnedPiecesCountDownRight(Piece piece, int row, int column) {
-        int sum = 0;
-        Cell currentCell;
-        if (checkDownRight(piece, row, column)) {
-            int i = row + 1;
-            int j = column + 1;
-            currentCell = boardState[i][j];
-            while (!currentCell.isSameColor(piece)) {
-                sum++;
-                i++;
-                j++;
-                currentCell = boardState[i][j];
-            }
-        }
-        return sum;
+    int getEarnedPiecesCountWithMove(Piece piece, int row, int column) {
+        return Long.bitCount(getFlips(colorOf(piece), Bitboard.square(row, column)));
     }
 }
@@ -1,17 +1,43 @@
 package othello;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 /**
- * Determines a semi-intelligent computer player that can choose its next move based on some heuristic rules.
+ * Determines a semi-intelligent computer player that can choose its next move based on some heuristic rules. When few
+ * empty cells are left, the player plays perfectly by solving the game to the end with {@link EndgameSolver}.
  */
 class ComputerPlayer extends Player {
+    /**
+     * Bitboards of the six parts of the board, ordered from the highest priority to the lowest one
+     */
+    static final long[] PRIORITY_GROUPS = {
+            0x8100000000000081L, //corners
+            0x00003C3C3C3C0000L, //4 by 4 center square
+            0x3C0081818181003CL, //edges except cells near corners
+            0x003C424242423C00L, //cells between center square and edges except cells near corners
+            0x4281000000008142L, //cells at edges and near corners
+            0x0042000000004200L  //cells at diameters and near corners
+    };
+    /**
+     * Default number of empty cells where the player switches from heuristic rules to the endgame solver
+     */
+    static final int DEFAULT_ENDGAME_EMPTIES = 14;
     /**
      * The othello game board
      */
     private Board board;
+    /**
+     * Solver of the endgame
+     */
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    /**
+     * The player solves the game to the end if the number of empty cells is not greater than this number
+     */
+    private int endgameEmpties;
+    /**
+     * Random generator to choose between equally good moves
+     */
+    private Random random = new Random();
 
     /**
      * Constructor that initializes player.
@@ -19,8 +45,19 @@ class ComputerPlayer extends Player {
      * @param board The othello game board
      */
     ComputerPlayer(Board board) {
+        this(board, DEFAULT_ENDGAME_EMPTIES);
+    }
+
+    /**
+     * Constructor that initializes player with the specified endgame solver threshold.
+     *
+     * @param board          The othello game board
+     * @param endgameEmpties maximum number of empty cells where the player solves the game to the end
+     */
+    ComputerPlayer(Board board, int endgameEmpties) {
         super("Computer", new WhitePiece());
         this.board = board;
+        this.endgameEmpties = endgameEmpties;
     }
 
     /**
@@ -37,109 +74,66 @@ class ComputerPlayer extends Player {
      * In every turn, list of valid moves will be categorized in this six groups and next move will be selected from
      * group with highest priority that contains any valid moves. If there exists more than one move in selected group,
      * the move with most earned pieces will be selectd.
+     * <br>
+     * If the number of empty cells is not greater than the endgame threshold, the move with best final result is
+     * selected by the endgame solver instead.
      *
-     * @return next move string for computer player
+     * @return square index of the next move, {@link Player#PASS} if the player has no valid move
      */
-    public String getNextMove() {
-        List<int[]> validMoves = board.getValidMoves(getPiece());
+    public int getNextMove() {
+        long validMoves = board.getValidMoves(getPiece());
 
-        int[] selected;
-        if (validMoves.size() == 0) {
-            return "";
-        } else if (validMoves.size() == 1) {
-            selected = validMoves.get(0);
+        int selected;
+        if (validMoves == 0) {
+            return PASS;
+        } else if (Long.bitCount(validMoves) == 1) {
+            selected = Bitboard.firstSquare(validMoves);
+        } else if (board.getEmptyCount() <= endgameEmpties) {
+            selected = endgameSolver.solve(board, Board.colorOf(getPiece()), false);
         } else {
-            //six groups
-            List<int[]> corners = new ArrayList<>();
-            List<int[]> centers = new ArrayList<>();
-            List<int[]> edges = new ArrayList<>();
-            List<int[]> betweenEdgeAndCenters = new ArrayList<>();
-            List<int[]> aroundCornersInEdge = new ArrayList<>();
-            List<int[]> aroundCornersInDiameter = new ArrayList<>();
-
-            //categorizing all valid moves to the six groups
-            for (int[] currentMove : validMoves) {
-                if ((currentMove[0] == 0 && currentMove[1] == 0) || (currentMove[0] == 0 && currentMove[1] == 7)
-                        || (currentMove[0] == 7 && currentMove[1] == 0) || (currentMove[0] == 7 && currentMove[1] == 7)) {
-                    corners.add(currentMove);
-                } else if (currentMove[0] >= 2 && currentMove[0] <= 5 && currentMove[1] >= 2 && currentMove[1] <= 5) {
-                    centers.add(currentMove);
-                } else if (((currentMove[0] == 0 || currentMove[0] == 7) && currentMove[1] >= 2 && currentMove[1] <= 5)
-                        || ((currentMove[1] == 0 || currentMove[1] == 7) && currentMove[0] >= 2 && currentMove[0] <= 5)) {
-                    edges.add(currentMove);
-                } else if (((currentMove[0] == 1 || currentMove[0] == 6) && currentMove[1] >= 2 && currentMove[1] <= 5)
-                        || ((currentMove[1] == 1 || currentMove[1] == 6) && currentMove[0] >= 2 && currentMove[0] <= 5)) {
-                    betweenEdgeAndCenters.add(currentMove);
-                } else if ((currentMove[0] == 0 && currentMove[1] == 1) || (currentMove[0] == 0 && currentMove[1] == 6)
-                        || (currentMove[0] == 1 && currentMove[1] == 0) || (currentMove[0] == 1 && currentMove[1] == 7)
-                        || (currentMove[0] == 6 && currentMove[1] == 0) || (currentMove[0] == 6 && currentMove[1] == 7)
-                        || (currentMove[0] == 7 && currentMove[1] == 1) || (currentMove[0] == 7 && currentMove[1] == 6)) {
-                    aroundCornersInEdge.add(currentMove);
-                } else if ((currentMove[0] == 1 && currentMove[1] == 1) || (currentMove[0] == 1 && currentMove[1] == 6)
-                        || (currentMove[0] == 6 && currentMove[1] == 1) || (currentMove[0] == 6 && currentMove[1] == 6)) {
-                    aroundCornersInDiameter.add(currentMove);
+            //selecting highest priority group that contains any valid moves
+            long higherPriorityWithValidMoves = 0;
+            for (long group : PRIORITY_GROUPS) {
+                higherPriorityWithValidMoves = validMoves & group;
+                if (higherPriorityWithValidMoves != 0) {
+                    break;
                 }
             }
-            List<int[]> higherPriorityWithValidMoves;
-            //selecting highest priority that contains any valid moves
-            if (!corners.isEmpty()) {
-                higherPriorityWithValidMoves = corners;
-            } else if (!centers.isEmpty()) {
-                higherPriorityWithValidMoves = centers;
-            } else if (!edges.isEmpty()) {
-                higherPriorityWithValidMoves = edges;
-            } else if (!betweenEdgeAndCenters.isEmpty()) {
-                higherPriorityWithValidMoves = betweenEdgeAndCenters;
-            } else if (!aroundCornersInEdge.isEmpty()) {
-                higherPriorityWithValidMoves = aroundCornersInEdge;
-            } else {
-                higherPriorityWithValidMoves = aroundCornersInDiameter;
-            }
 
             //choosing the move with the most earned pieces
             selected = chooseWithMostEarnPieces(higherPriorityWithValidMoves);
         }
-
-        //converting indexes to move string with format "I C"
-        String selectedMoveStr = convertToMoveStr(selected);
-        System.out.println(selectedMoveStr);
-        return selectedMoveStr;
+        return selected;
     }
 
     /**
-     * Chooses the move that lead to maximum earn pieces from specified move list. If there is more than one so called
+     * Chooses the move that lead to maximum earn pieces from specified moves. If there is more than one so called
      * moves, it chooses one randomly.
      *
-     * @param moves list of available moves to choose
-     * @return move that lead to maximum earn pieces
+     * @param moves bitboard of available moves to choose, must not be empty
+     * @return square index of the move that lead to maximum earn pieces
      */
-    private int[] chooseWithMostEarnPieces(List<int[]> moves) {
-        if (moves.isEmpty()) {
-            return null;
-        } else if (moves.size() == 1) {
-            return moves.get(0);
-        } else {
-            //finding move with max earn pieces
-            List<int[]> maxEarnMoves = new ArrayList<>();
-            int maxEarned = 0;
-            for (int[] move : moves) {
-                int earnedWithMove = board.getEarnedPiecesCountWithMove(getPiece(), move[0], move[1]);
-                if (earnedWithMove > maxEarned) {
-                    maxEarned = earnedWithMove;
-                    maxEarnMoves.clear();
-                    maxEarnMoves.add(move);
-                } else if (earnedWithMove == maxEarned) {
-                    maxEarnMoves.add(move);
-                }
-            }
-            if (maxEarnMoves.size() == 1) {
-                return maxEarnMoves.get(0);
-            } else {
-                Random random = new Random();
-                int selectedMoveIndex = random.nextInt(maxEarnMoves.size());
-                return maxEarnMoves.get(selectedMoveIndex);
+    private int chooseWithMostEarnPieces(long moves) {
+        //finding moves with max earn pieces
+        long maxEarnMoves = 0;
+        int maxEarned = 0;
+        for (long remaining = moves; remaining != 0; remaining = Bitboard.removeFirst(remaining)) {
+            int move = Bitboard.firstSquare(remaining);
+            int earnedWithMove = board.getEarnedPiecesCountWithMove(getPiece(), Bitboard.row(move),
+                    Bitboard.column(move));
+            if (earnedWithMove > maxEarned) {
+                maxEarned = earnedWithMove;
+                maxEarnMoves = 1L << move;
+            } else if (earnedWithMove == maxEarned) {
+                maxEarnMoves |= 1L << move;
             }
         }
+        int count = Long.bitCount(maxEarnMoves);
+        if (count == 1) {
+            return Bitboard.firstSquare(maxEarnMoves);
+        } else {
+            return Bitboard.nthSquare(maxEarnMoves, random.nextInt(count));
+        }
     }
 
     /**
@@ -147,13 +141,13 @@ class ComputerPlayer extends Player {
      * 0 to 7. Computed input string format is "I C" that 'I' part is a number in range 1 to 8 and 'C' part is an
      * upper case character in range A to H.
      *
-     * @param ints an array with two members, 0 index indicates computed row and 1 index indicates computed column
+     * @param square square index of the move
      * @return move string with format "I C", that 'I' part is a number in range 1 to 8 and 'C' part is an upper case
      * character in range A to H.
      */
-    private String convertToMoveStr(int[] ints) {
-        char row = (char) ((ints[0] + 1) + '0');
-        char column = (char) (ints[1] + 65);
+    static String convertToMoveStr(int square) {
+        char row = (char) ((Bitboard.row(square) + 1) + '0');
+        char column = (char) (Bitboard.column(square) + 65);
         return row + " " + column;
     }
 }
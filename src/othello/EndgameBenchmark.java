@@ -0,0 +1,56 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * Benchmark of the endgame solver. It solves random positions with a range of empty cell counts and prints the average
+ * solve time of every count in exact and win/loss modes, so the empty count where the computer players switch to the
+ * solver can be tuned for a machine.
+ * <br>
+ * Usage: {@code EndgameBenchmark [min empties] [max empties] [positions]}, by default 10 to 18 empty cells and 10
+ * positions per count.
+ */
+public class EndgameBenchmark {
+    /**
+     * Seed of random benchmark positions, the same positions are used in every run
+     */
+    private static final long SEED = 20200401;
+
+    /**
+     * The main method of the benchmark.
+     *
+     * @param args optional minimum and maximum empty counts and number of positions per count
+     */
+    public static void main(String[] args) {
+        int minEmpties = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int maxEmpties = args.length > 1 ? Integer.parseInt(args[1]) : 18;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        Random random = new Random(SEED);
+        EndgameSolver exactSolver = new EndgameSolver();
+        EndgameSolver winLossSolver = new EndgameSolver();
+
+        System.out.println("empties  exact(ms)  win/loss(ms)");
+        for (int empties = minEmpties; empties <= maxEmpties; empties++) {
+            for (int i = 0; i < positions; i++) {
+                Board board = new Board();
+                int color = Board.BLACK;
+                //plays random moves until the empty count is reached, retries if the game finishes before it
+                while (board.getEmptyCount() > empties || board.getValidMoves(color) == 0) {
+                    if (board.isGameFinished() || board.getEmptyCount() < empties) {
+                        board = new Board();
+                        color = Board.BLACK;
+                    }
+                    long moves = board.getValidMoves(color);
+                    if (moves != 0 && board.getEmptyCount() > empties) {
+                        board.makeMove(color, Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves))));
+                    }
+                    color ^= 1;
+                }
+                exactSolver.solve(board, color, false);
+                winLossSolver.solve(board, color, true);
+            }
+            System.out.printf("%7d  %9.3f  %12.3f%n", empties, exactSolver.getAverageSolveNanos(empties) / 1e6,
+                    winLossSolver.getAverageSolveNanos(empties) / 1e6);
+        }
+    }
+}
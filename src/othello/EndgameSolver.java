@@ -0,0 +1,480 @@
+package othello;
+
+/**
+ * Exact endgame solver. With few empty cells left, the game tree can be searched to the end, so the solver computes
+ * the exact final disc difference of perfect play, or only whether the game is won, lost or drawn which is faster.
+ * <br>
+ * The solver works directly on bitboards of the player to move and the opponent. Moves are ordered fastest-first (the
+ * move that leaves the opponent with the fewest valid moves first) far from the end, and by parity near the end:
+ * moves in board quadrants with an odd number of empty cells are tried first, since the player who moves last in a
+ * region usually keeps its discs. The last three empty cells are solved by special routines without move generation.
+ * <br>
+ * A solve can be stopped from another thread by {@link EndgameSolver#stop()}, it then returns the best move found so
+ * far.
+ */
+class EndgameSolver {
+    /**
+     * Score bound greater than every possible final disc difference
+     */
+    private static final int INFINITY = 65;
+    /**
+     * Above this number of empty cells moves are ordered fastest-first, below it only by parity
+     */
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+    /**
+     * Minimum number of empty cells where the stability bound is checked, closer to the end it costs more than it saves
+     */
+    private static final int STABILITY_EMPTIES = 6;
+    /**
+     * The stop request is checked once per this many nodes, must be a power of two minus one
+     */
+    private static final long STOP_CHECK_MASK = 4095;
+    /**
+     * Bitboards of the four 4 by 4 quadrants of the board, indexed by {@link EndgameSolver#quadrant(int)}
+     */
+    private static final long[] QUADRANTS = {
+            0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+    /**
+     * Preallocated move lists of every empty count
+     */
+    private int[][] moveLists = new int[Board.MAX_MOVES + 1][Board.MAX_MOVES];
+    /**
+     * Preallocated reversed pieces of the moves in {@link EndgameSolver#moveLists}
+     */
+    private long[][] flipLists = new long[Board.MAX_MOVES + 1][Board.MAX_MOVES];
+    /**
+     * Preallocated ordering keys of the moves in {@link EndgameSolver#moveLists}, lower keys are searched first
+     */
+    private int[][] keyLists = new int[Board.MAX_MOVES + 1][Board.MAX_MOVES];
+    /**
+     * Number of nodes visited by the last solve
+     */
+    private long nodes;
+    /**
+     * Score of the last solve
+     */
+    private int score;
+    /**
+     * Total solve time of every empty count in nanoseconds
+     */
+    private long[] solveNanos = new long[Board.MAX_MOVES + 1];
+    /**
+     * Number of solves of every empty count
+     */
+    private int[] solveCounts = new int[Board.MAX_MOVES + 1];
+    /**
+     * Stop request from another thread, checked once per {@link EndgameSolver#STOP_CHECK_MASK} + 1 nodes
+     */
+    private volatile boolean stopRequested;
+    /**
+     * Whether the last solve is stopped before it finished
+     */
+    private boolean stopped;
+
+    /**
+     * Finds the best move of the specified color by solving the current position of the board to the end.
+     *
+     * @param board        board to solve
+     * @param color        color index of the player to move
+     * @param winLossOnly {@code true} to find only a winning (or drawing) move, which is faster than exact solve
+     * @return square index of the best move, {@code -1} if there is no valid move, the best move searched so far if
+     * the solve is stopped
+     */
+    int solve(Board board, int color, boolean winLossOnly) {
+        long start = System.nanoTime();
+        nodes = 0;
+        stopRequested = false;
+        stopped = false;
+        long player = board.getDiscs(color);
+        long opponent = board.getDiscs(color ^ 1);
+        int empties = board.getEmptyCount();
+        int alpha = winLossOnly ? -1 : -INFINITY;
+        int beta = winLossOnly ? 1 : INFINITY;
+
+        int count = orderMoves(player, opponent, Bitboard.validMoves(player, opponent), empties);
+        int bestMove = -1;
+        int bestScore = -INFINITY;
+        int[] moveList = moveLists[empties];
+        long[] flipList = flipLists[empties];
+        for (int i = 0; i < count; i++) {
+            long flips = flipList[i];
+            long nextPlayer = opponent & ~flips;
+            long nextOpponent = player | flips | (1L << moveList[i]);
+            int moveScore;
+            if (i == 0) {
+                moveScore = -solve(nextPlayer, nextOpponent, -beta, -alpha, empties - 1);
+            } else {
+                moveScore = -solve(nextPlayer, nextOpponent, -alpha - 1, -alpha, empties - 1);
+                if (moveScore > alpha && moveScore < beta) {
+                    moveScore = -solve(nextPlayer, nextOpponent, -beta, -moveScore, empties - 1);
+                }
+            }
+            if (stopped) {
+                break;
+            }
+            if (moveScore > bestScore) {
+                bestScore = moveScore;
+                bestMove = moveList[i];
+                if (moveScore > alpha) {
+                    alpha = moveScore;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (stopped && bestMove < 0) {
+            //the moves are ordered, so the first one is the best guess if no move is searched yet
+            bestMove = moveList[0];
+            bestScore = 0;
+        }
+        score = bestScore;
+        if (stopped) {
+            return bestMove;
+        }
+        solveNanos[empties] += System.nanoTime() - start;
+        solveCounts[empties]++;
+        return bestMove;
+    }
+
+    /**
+     * Computes the final disc difference of perfect play in a position, if it lies in the score window.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param alpha    lower bound of the score window
+     * @param beta     upper bound of the score window
+     * @param empties  number of empty cells
+     * @return exact score if it is in the window, otherwise a bound of the score on the failed side
+     */
+    private int solve(long player, long opponent, int alpha, int beta, int empties) {
+        if (empties <= 3) {
+            return solveLast(player, opponent, alpha, beta, empties);
+        }
+        if ((++nodes & STOP_CHECK_MASK) == 0 && stopRequested) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        //the stable discs of the opponent bound the score, only high windows are checked since low ones rarely fail
+        if (empties >= STABILITY_EMPTIES && alpha >= 2 * empties && 2 * Long.bitCount(opponent) >= 64 - alpha) {
+            int bound = Stability.scoreUpperBound(player, opponent);
+            if (bound <= alpha) {
+                return bound;
+            }
+        }
+        long moves = Bitboard.validMoves(player, opponent);
+        if (moves == 0) {
+            if (Bitboard.validMoves(opponent, player) == 0) {
+                return finalScore(player, opponent);
+            }
+            return -solve(opponent, player, -beta, -alpha, empties);
+        }
+
+        int count = orderMoves(player, opponent, moves, empties);
+        int[] moveList = moveLists[empties];
+        long[] flipList = flipLists[empties];
+        int bestScore = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            long flips = flipList[i];
+            long nextPlayer = opponent & ~flips;
+            long nextOpponent = player | flips | (1L << moveList[i]);
+            int moveScore;
+            if (i == 0) {
+                moveScore = -solve(nextPlayer, nextOpponent, -beta, -alpha, empties - 1);
+            } else {
+                moveScore = -solve(nextPlayer, nextOpponent, -alpha - 1, -alpha, empties - 1);
+                if (moveScore > alpha && moveScore < beta) {
+                    moveScore = -solve(nextPlayer, nextOpponent, -beta, -moveScore, empties - 1);
+                }
+            }
+            if (moveScore > bestScore) {
+                bestScore = moveScore;
+                if (moveScore > alpha) {
+                    alpha = moveScore;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Fills the move list of the empty count in search order with the reversed pieces of every move. Moves are sorted
+     * by the number of opponent valid moves after them if there are enough empty cells, and moves in quadrants with
+     * odd number of empty cells come first among equal moves.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param moves    bitboard of valid moves
+     * @param empties  number of empty cells
+     * @return number of moves
+     */
+    private int orderMoves(long player, long opponent, long moves, int empties) {
+        int[] moveList = moveLists[empties];
+        long[] flipList = flipLists[empties];
+        int[] keyList = keyLists[empties];
+        long parity = oddQuadrants(~(player | opponent));
+        int count = 0;
+        for (; moves != 0; moves = Bitboard.removeFirst(moves)) {
+            int move = Bitboard.firstSquare(moves);
+            long flips = Bitboard.flips(player, opponent, move);
+            int key = ((parity >>> move) & 1) == 0 ? 1 : 0;
+            if (empties > FASTEST_FIRST_EMPTIES) {
+                long nextPlayer = opponent & ~flips;
+                long nextOpponent = player | flips | (1L << move);
+                key += 2 * Long.bitCount(Bitboard.validMoves(nextPlayer, nextOpponent));
+            }
+            //insertion sort, move lists are short
+            int i = count++;
+            for (; i > 0 && keyList[i - 1] > key; i--) {
+                moveList[i] = moveList[i - 1];
+                flipList[i] = flipList[i - 1];
+                keyList[i] = keyList[i - 1];
+            }
+            moveList[i] = move;
+            flipList[i] = flips;
+            keyList[i] = key;
+        }
+        return count;
+    }
+
+    /**
+     * Solves positions with at most three empty cells.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param alpha    lower bound of the score window
+     * @param beta     upper bound of the score window
+     * @param empties  number of empty cells
+     * @return exact score if it is in the window, otherwise a bound of the score on the failed side
+     */
+    private int solveLast(long player, long opponent, int alpha, int beta, int empties) {
+        long empty = ~(player | opponent);
+        if (empties == 0) {
+            nodes++;
+            return finalScore(player, opponent);
+        }
+        int x1 = Bitboard.firstSquare(empty);
+        if (empties == 1) {
+            return solve1(player, opponent, x1);
+        }
+        empty = Bitboard.removeFirst(empty);
+        int x2 = Bitboard.firstSquare(empty);
+        if (empties == 2) {
+            return solve2(player, opponent, alpha, beta, x1, x2);
+        }
+        int x3 = Bitboard.firstSquare(Bitboard.removeFirst(empty));
+        //parity ordering, the cell alone in its quadrant first
+        if (quadrant(x1) == quadrant(x2)) {
+            return solve3(player, opponent, alpha, beta, x3, x1, x2);
+        } else if (quadrant(x1) == quadrant(x3)) {
+            return solve3(player, opponent, alpha, beta, x2, x1, x3);
+        } else {
+            return solve3(player, opponent, alpha, beta, x1, x2, x3);
+        }
+    }
+
+    /**
+     * Solves a position with three empty cells.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param alpha    lower bound of the score window
+     * @param beta     upper bound of the score window
+     * @param x1       square index of the first empty cell to try
+     * @param x2       square index of the second empty cell to try
+     * @param x3       square index of the third empty cell to try
+     * @return exact score if it is in the window, otherwise a bound of the score on the failed side
+     */
+    private int solve3(long player, long opponent, int alpha, int beta, int x1, int x2, int x3) {
+        nodes++;
+        int bestScore = -INFINITY;
+        long flips = Bitboard.flips(player, opponent, x1);
+        if (flips != 0) {
+            bestScore = -solve2(opponent & ~flips, player | flips | (1L << x1), -beta, -alpha, x2, x3);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+        flips = Bitboard.flips(player, opponent, x2);
+        if (flips != 0) {
+            int moveScore = -solve2(opponent & ~flips, player | flips | (1L << x2), -beta, -alpha, x1, x3);
+            if (moveScore >= beta) {
+                return moveScore;
+            }
+            bestScore = Math.max(bestScore, moveScore);
+            alpha = Math.max(alpha, moveScore);
+        }
+        flips = Bitboard.flips(player, opponent, x3);
+        if (flips != 0) {
+            int moveScore = -solve2(opponent & ~flips, player | flips | (1L << x3), -beta, -alpha, x1, x2);
+            bestScore = Math.max(bestScore, moveScore);
+        }
+        if (bestScore == -INFINITY) {
+            //no valid move, pass if the opponent has any move, otherwise the game is finished
+            if ((Bitboard.flips(opponent, player, x1) | Bitboard.flips(opponent, player, x2)
+                    | Bitboard.flips(opponent, player, x3)) == 0) {
+                return finalScore(player, opponent);
+            }
+            return -solve3(opponent, player, -beta, -alpha, x1, x2, x3);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Solves a position with two empty cells.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param alpha    lower bound of the score window
+     * @param beta     upper bound of the score window
+     * @param x1       square index of the first empty cell
+     * @param x2       square index of the second empty cell
+     * @return exact score if it is in the window, otherwise a bound of the score on the failed side
+     */
+    private int solve2(long player, long opponent, int alpha, int beta, int x1, int x2) {
+        nodes++;
+        int bestScore = -INFINITY;
+        long flips = Bitboard.flips(player, opponent, x1);
+        if (flips != 0) {
+            bestScore = -solve1(opponent & ~flips, player | flips | (1L << x1), x2);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+        }
+        flips = Bitboard.flips(player, opponent, x2);
+        if (flips != 0) {
+            bestScore = Math.max(bestScore, -solve1(opponent & ~flips, player | flips | (1L << x2), x1));
+        }
+        if (bestScore == -INFINITY) {
+            //no valid move, pass if the opponent has any move, otherwise the game is finished
+            if ((Bitboard.flips(opponent, player, x1) | Bitboard.flips(opponent, player, x2)) == 0) {
+                return finalScore(player, opponent);
+            }
+            return -solve2(opponent, player, -beta, -alpha, x1, x2);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Solves a position with one empty cell, the final score is counted without applying the last move.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param x        square index of the empty cell
+     * @return exact final score
+     */
+    private int solve1(long player, long opponent, int x) {
+        nodes++;
+        int score = finalScore(player, opponent);
+        int flipped = Long.bitCount(Bitboard.flips(player, opponent, x));
+        if (flipped != 0) {
+            return score + 2 * flipped + 1;
+        }
+        flipped = Long.bitCount(Bitboard.flips(opponent, player, x));
+        if (flipped != 0) {
+            return score - 2 * flipped - 1;
+        }
+        return score;
+    }
+
+    /**
+     * Computes the disc difference of a finished game.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return disc count of the player minus disc count of the opponent
+     */
+    private static int finalScore(long player, long opponent) {
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    /**
+     * Finds the quadrants with odd number of empty cells.
+     *
+     * @param empty bitboard of empty cells
+     * @return bitboard of all cells of quadrants with odd number of empty cells
+     */
+    private static long oddQuadrants(long empty) {
+        long result = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                result |= quadrant;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the quadrant index of a square.
+     *
+     * @param square square index
+     * @return quadrant index in range 0 to 3
+     */
+    private static int quadrant(int square) {
+        return ((square >>> 5) << 1) | ((square >>> 2) & 1);
+    }
+
+    /**
+     * Requests the running solve to stop, the solve returns the best move searched so far. This method can be called
+     * from any thread.
+     */
+    void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Checks if the last solve is stopped before it finished. The move of a stopped solve may not be the best one and
+     * its score is only a lower bound, or {@code 0} if no move is searched.
+     *
+     * @return {@code true} if the last solve is stopped
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Gets the score of the last solve. In win/loss mode only the sign of the score is reliable.
+     *
+     * @return final disc difference of the player to move
+     */
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the number of nodes visited by the last solve.
+     *
+     * @return number of nodes
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the average solve time of positions with the specified number of empty cells, over all solves of this
+     * solver. Used to tune the empty count where the computer player switches to the solver.
+     *
+     * @param empties number of empty cells
+     * @return average solve time in nanoseconds, {@code 0} if no such position is solved
+     */
+    long getAverageSolveNanos(int empties) {
+        return solveCounts[empties] == 0 ? 0 : solveNanos[empties] / solveCounts[empties];
+    }
+
+    /**
+     * Gets the number of solved positions with the specified number of empty cells.
+     *
+     * @param empties number of empty cells
+     * @return number of solves
+     */
+    int getSolveCount(int empties) {
+        return solveCounts[empties];
+    }
+}
@@ -0,0 +1,83 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Determines a static evaluation function of board positions used at the leaves of the search.
+ * <br>
+ * Evaluators may keep incremental state of the board. The search calls {@link Evaluator#reset(Board)} before it
+ * starts and reports every move it applies and takes back, so such state stays in step with the board.
+ */
+interface Evaluator {
+    /**
+     * Score of one disc, all scores are measured in hundredths of a disc
+     */
+    int DISC_SCORE = 100;
+    /**
+     * File name extension of neural weights files
+     */
+    String NEURAL_WEIGHTS_EXTENSION = ".nnue";
+
+    /**
+     * Evaluates the current position of the board from the point of view of the specified color.
+     *
+     * @param board board to evaluate
+     * @param color color index of the player to move
+     * @return estimated final disc difference of the player multiplied by {@link Evaluator#DISC_SCORE}
+     */
+    int evaluate(Board board, int color);
+
+    /**
+     * Initializes the incremental state of the evaluator from the current position of the board.
+     *
+     * @param board board that is going to be searched
+     */
+    default void reset(Board board) {
+    }
+
+    /**
+     * Updates the incremental state of the evaluator after a move is applied to the board.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    default void makeMove(int color, int square, long flips) {
+    }
+
+    /**
+     * Updates the incremental state of the evaluator after a move is taken back from the board.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    default void unmakeMove(int color, int square, long flips) {
+    }
+
+    /**
+     * Creates an evaluator for another search thread. Evaluators without incremental state can return themselves.
+     *
+     * @return an evaluator with the same evaluation function and its own incremental state
+     */
+    default Evaluator copy() {
+        return this;
+    }
+
+    /**
+     * Creates an evaluator from its command line name.
+     *
+     * @param name {@code heuristic}, the path of a neural weights file ending with {@code .nnue} or the path of a
+     *             pattern weights file
+     * @return the evaluator
+     * @throws IOException if the weights file can not be read
+     */
+    static Evaluator load(String name) throws IOException {
+        if (name.equals("heuristic")) {
+            return new HeuristicEvaluator();
+        }
+        return name.endsWith(NEURAL_WEIGHTS_EXTENSION) ? NeuralEvaluator.load(Paths.get(name))
+                : PatternEvaluator.load(Paths.get(name));
+    }
+}
@@ -0,0 +1,158 @@
+package othello;
+
+/**
+ * Record of a played game: names of both players, start time, duration, final disc difference and the moves. Every
+ * move is one byte, the square index of the move. Passes are not recorded, they follow from the rules when the game is
+ * replayed.
+ */
+class GameRecord {
+    /**
+     * Maximum number of UTF-8 bytes of a player name
+     */
+    static final int MAX_NAME_BYTES = 255;
+    /**
+     * Name of the black player
+     */
+    private String blackPlayer;
+    /**
+     * Name of the white player
+     */
+    private String whitePlayer;
+    /**
+     * Start time of the game in milliseconds since the epoch
+     */
+    private long startMillis;
+    /**
+     * Duration of the game in milliseconds
+     */
+    private int durationMillis;
+    /**
+     * Final number of black discs minus number of white discs
+     */
+    private int discDifference;
+    /**
+     * Square indexes of the moves in playing order
+     */
+    private byte[] moves;
+
+    /**
+     * Constructor of the record.
+     *
+     * @param blackPlayer    name of the black player
+     * @param whitePlayer    name of the white player
+     * @param startMillis    start time of the game in milliseconds since the epoch
+     * @param durationMillis duration of the game in milliseconds
+     * @param discDifference final number of black discs minus number of white discs
+     * @param moves          square indexes of the moves in playing order
+     */
+    GameRecord(String blackPlayer, String whitePlayer, long startMillis, int durationMillis, int discDifference,
+               byte[] moves) {
+        if (moves.length > Board.MAX_MOVES) {
+            throw new IllegalArgumentException("A game has at most " + Board.MAX_MOVES + " moves");
+        }
+        this.blackPlayer = blackPlayer;
+        this.whitePlayer = whitePlayer;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.discDifference = discDifference;
+        this.moves = moves;
+    }
+
+    /**
+     * Replays the moves from the start position. The player to move passes whenever it has no valid move.
+     *
+     * @return board of the final position
+     * @throws IllegalStateException if a move is not valid
+     */
+    Board replay() {
+        Board board = new Board();
+        int color = Board.BLACK;
+        for (byte move : moves) {
+            if (board.getValidMoves(color) == 0) {
+                color ^= 1;
+            }
+            if (board.makeMove(color, move) == 0) {
+                throw new IllegalStateException("Invalid move " + ComputerPlayer.convertToMoveStr(move));
+            }
+            color ^= 1;
+        }
+        return board;
+    }
+
+    /**
+     * Replays the moves from the start position and visits the position before every move with the result of the
+     * game.
+     *
+     * @param visitor visitor of the positions
+     * @throws IllegalStateException if a move is not valid
+     */
+    void visitPositions(PositionVisitor visitor) {
+        Board board = new Board();
+        int color = Board.BLACK;
+        for (byte move : moves) {
+            if (board.getValidMoves(color) == 0) {
+                color ^= 1;
+            }
+            visitor.visit(board.getDiscs(color), board.getDiscs(color ^ 1),
+                    color == Board.BLACK ? discDifference : -discDifference);
+            if (board.makeMove(color, move) == 0) {
+                throw new IllegalStateException("Invalid move " + ComputerPlayer.convertToMoveStr(move));
+            }
+            color ^= 1;
+        }
+    }
+
+    /**
+     * Gets the name of the black player.
+     *
+     * @return name of the black player
+     */
+    String getBlackPlayer() {
+        return blackPlayer;
+    }
+
+    /**
+     * Gets the name of the white player.
+     *
+     * @return name of the white player
+     */
+    String getWhitePlayer() {
+        return whitePlayer;
+    }
+
+    /**
+     * Gets the start time of the game.
+     *
+     * @return start time in milliseconds since the epoch
+     */
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Gets the duration of the game.
+     *
+     * @return duration in milliseconds
+     */
+    int getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Gets the result of the game.
+     *
+     * @return final number of black discs minus number of white discs
+     */
+    int getDiscDifference() {
+        return discDifference;
+    }
+
+    /**
+     * Gets the moves of the game.
+     *
+     * @return square indexes of the moves in playing order
+     */
+    byte[] getMoves() {
+        return moves;
+    }
+}
@@ -0,0 +1,149 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads {@link GameRecord}s of a game record file through a buffered channel, one record at a time, so files of any
+ * size can be read with constant memory. The file format is described in {@link GameRecordWriter}.
+ */
+class GameRecordReader implements Closeable {
+    /**
+     * Size of the read buffer in bytes
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * Channel of the record file
+     */
+    private ReadableByteChannel channel;
+    /**
+     * Buffer of bytes read from the channel and not parsed yet
+     */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    /**
+     * {@code true} if the end of the channel is reached
+     */
+    private boolean endOfChannel;
+
+    /**
+     * Constructor of the reader on a channel that is positioned at the beginning of a record file.
+     *
+     * @param channel channel of the record file
+     * @throws IOException if the channel can not be read or is not a game record file
+     */
+    GameRecordReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip();
+        if (!fill(GameRecordWriter.HEADER_BYTES) || buffer.getInt() != GameRecordWriter.MAGIC
+                || buffer.getInt() != GameRecordWriter.VERSION) {
+            throw new IOException("Not a game record file");
+        }
+    }
+
+    /**
+     * Opens a record file for reading.
+     *
+     * @param path path of the record file
+     * @return the reader
+     * @throws IOException if the file can not be opened or is not a game record file
+     */
+    static GameRecordReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new GameRecordReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, {@code null} at the end of the file
+     * @throws IOException if the channel can not be read or the file ends inside a record
+     */
+    GameRecord read() throws IOException {
+        if (!fill(GameRecordWriter.RECORD_HEADER_BYTES)) {
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected end of game record file");
+            }
+            return null;
+        }
+        int moveCount = buffer.get() & 0xFF;
+        int discDifference = buffer.get();
+        long startMillis = buffer.getLong();
+        int durationMillis = buffer.getInt();
+        if (moveCount > Board.MAX_MOVES) {
+            throw new IOException("Corrupted game record file");
+        }
+        String blackPlayer = readName();
+        String whitePlayer = readName();
+        byte[] moves = new byte[moveCount];
+        readBytes(moves);
+        return new GameRecord(blackPlayer, whitePlayer, startMillis, durationMillis, discDifference, moves);
+    }
+
+    /**
+     * Reads a player name with its length byte.
+     *
+     * @return player name
+     * @throws IOException if the channel can not be read or the file ends inside the name
+     */
+    private String readName() throws IOException {
+        if (!fill(1)) {
+            throw new IOException("Unexpected end of game record file");
+        }
+        byte[] bytes = new byte[buffer.get() & 0xFF];
+        readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads bytes of a record.
+     *
+     * @param bytes array to fill
+     * @throws IOException if the channel can not be read or the file ends inside the record
+     */
+    private void readBytes(byte[] bytes) throws IOException {
+        if (!fill(bytes.length)) {
+            throw new IOException("Unexpected end of game record file");
+        }
+        buffer.get(bytes);
+    }
+
+    /**
+     * Reads from the channel until the buffer has the specified number of bytes or the channel ends.
+     *
+     * @param bytes number of bytes that are needed, not greater than the buffer size
+     * @return {@code true} if the buffer has the bytes
+     * @throws IOException if the channel can not be read
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfChannel) {
+            endOfChannel = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Closes the channel.
+     *
+     * @throws IOException if the channel can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
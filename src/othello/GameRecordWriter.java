@@ -0,0 +1,160 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes {@link GameRecord}s to a game record file through a buffered channel.
+ * <br>
+ * The file starts with two {@code int} values: magic number and version. Then the records follow, each one is: number
+ * of moves ({@code byte}), disc difference ({@code byte}), start time ({@code long}), duration ({@code int}), black and
+ * white player names (length {@code byte} and UTF-8 bytes each) and one byte per move. A record without names has 16
+ * bytes plus its moves.
+ */
+class GameRecordWriter implements Closeable {
+    /**
+     * Magic number at the beginning of game record files
+     */
+    static final int MAGIC = 0x4F475231;
+    /**
+     * Version of the game record file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the file header in bytes
+     */
+    static final int HEADER_BYTES = 8;
+    /**
+     * Size of a record without names and moves in bytes
+     */
+    static final int RECORD_HEADER_BYTES = 16;
+    /**
+     * Size of the write buffer in bytes
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * Channel of the record file
+     */
+    private WritableByteChannel channel;
+    /**
+     * Buffer of records that are not written to the channel yet
+     */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /**
+     * Constructor of the writer on a channel that is positioned after the file header.
+     *
+     * @param channel channel of the record file
+     */
+    GameRecordWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a record file for appending, the file is created with its header if it does not exist.
+     *
+     * @param path path of the record file
+     * @return the writer
+     * @throws IOException if the file can not be opened or is not a game record file
+     */
+    static GameRecordWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() == 0) {
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                int read = 0;
+                while (header.hasRemaining() && read >= 0) {
+                    read = channel.read(header, header.position());
+                }
+                header.flip();
+                if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("Not a game record file");
+                }
+            }
+            channel.position(channel.size());
+            return new GameRecordWriter(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a record, the record may stay in the buffer until the writer is flushed or closed.
+     *
+     * @param record record to write
+     * @throws IOException if the buffer can not be written to the channel
+     */
+    void write(GameRecord record) throws IOException {
+        byte[] blackPlayer = encodeName(record.getBlackPlayer());
+        byte[] whitePlayer = encodeName(record.getWhitePlayer());
+        byte[] moves = record.getMoves();
+        if (buffer.remaining() < RECORD_HEADER_BYTES + blackPlayer.length + whitePlayer.length + moves.length) {
+            flush();
+        }
+        buffer.put((byte) moves.length)
+                .put((byte) record.getDiscDifference())
+                .putLong(record.getStartMillis())
+                .putInt(record.getDurationMillis())
+                .put((byte) blackPlayer.length)
+                .put(blackPlayer)
+                .put((byte) whitePlayer.length)
+                .put(whitePlayer)
+                .put(moves);
+    }
+
+    /**
+     * Encodes a player name, names longer than {@link GameRecord#MAX_NAME_BYTES} are truncated.
+     *
+     * @param name player name
+     * @return UTF-8 bytes of the name
+     */
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= GameRecord.MAX_NAME_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[GameRecord.MAX_NAME_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        return truncated;
+    }
+
+    /**
+     * Writes all buffered records to the channel.
+     *
+     * @throws IOException if the channel can not be written
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all buffered records and closes the channel.
+     *
+     * @throws IOException if the channel can not be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package othello;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP server that hosts games of remote human players against the computer. Every connection is served by its own
+ * pooled platform thread with a small stack, so the number of concurrent sessions is bounded by the process and memory
+ * limits of the host. Searches of the computer moves run on
+ * a bounded pool of engine threads, each with its own search engine, and the latency of every computer move is
+ * recorded and reported periodically.
+ * <br>
+ * The protocol is line based, the client sends commands and the server answers every command:
+ * <ul>
+ * <li>{@code NEW BLACK} or {@code NEW WHITE} starts a game where the client plays the specified color, answered by
+ * {@code OK} and the events of the game</li>
+ * <li>{@code MOVE I C} plays a move in the format of the console game, answered by {@code ILLEGAL} or by the events of
+ * the game</li>
+ * <li>{@code GO} continues the game after {@code ERROR busy}, answered by the events of the game</li>
+ * <li>{@code BOARD} answers {@code BOARD} and 64 characters, {@code X} for black, {@code O} for white and {@code -} for
+ * empty cells</li>
+ * <li>{@code QUIT} closes the connection</li>
+ * </ul>
+ * Events of the game are {@code PASS BLACK} or {@code PASS WHITE} if a player has no valid move, {@code MOVE I C} for
+ * every computer move and {@code END} with the numbers of black and white discs when the game is finished. The client
+ * is to move after the last event unless the game is finished. If all engine threads are busy, the events stop with
+ * {@code ERROR busy} before a computer move and the client can send {@code GO} to retry. A {@code MOVE} while the
+computer is to move is answered by {@code ERROR computer to move}.
+ * <br>
+ * Usage: {@code GameServer [port] [engine threads] [depth] [evaluator]}, by default port 5555, all available
+ * processors, depth 6 and the heuristic evaluator. An evaluator is {@code heuristic}, a neural weights file ending
+ * with {@code .nnue} or a pattern weights file.
+ */
+public class GameServer {
+    /**
+     * Transposition table size of every engine thread in megabytes
+     */
+    private static final int HASH_MEGABYTES = 16;
+    /**
+     * Number of empty cells where the computer solves the game to the end
+     */
+    private static final int ENDGAME_EMPTIES = 12;
+    /**
+     * Maximum number of computer moves waiting for an engine thread
+     */
+    private static final int MAX_PENDING_MOVES = 1 << 16;
+    /**
+     * Interval between latency reports in seconds
+     */
+    private static final int REPORT_SECONDS = 10;
+    /**
+     * Stack size of session threads in bytes, a session only parses commands and waits for engine threads
+     */
+    private static final long SESSION_STACK_BYTES = 256 * 1024;
+    /**
+     * Threads that search computer moves
+     */
+    private ThreadPoolExecutor enginePool;
+    /**
+     * Search engine of every engine thread, with a copy of the evaluator of the computer
+     */
+    private ThreadLocal<SearchEngine> engines;
+    /**
+     * Endgame solver of every engine thread
+     */
+    private ThreadLocal<EndgameSolver> endgameSolvers = ThreadLocal.withInitial(EndgameSolver::new);
+    /**
+     * Latencies of computer moves, from the move request to the answer including the wait for an engine thread
+     */
+    private LatencyHistogram moveLatencies = new LatencyHistogram();
+    /**
+     * Number of open connections
+     */
+    private AtomicInteger sessions = new AtomicInteger();
+
+    /**
+     * Constructor of the server.
+     *
+     * @param engineThreads number of engine threads
+     * @param depth         search depth of the computer
+     * @param evaluator     evaluator of the computer
+     */
+    GameServer(int engineThreads, int depth, Evaluator evaluator) {
+        engines = ThreadLocal.withInitial(() -> new SearchEngine(evaluator.copy(),
+                new TranspositionTable(HASH_MEGABYTES), depth, 0));
+        enginePool = new ThreadPoolExecutor(engineThreads, engineThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_MOVES), runnable -> {
+            Thread thread = new Thread(runnable, "engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The main method of the server.
+     *
+     * @param args optional port, number of engine threads, search depth and evaluator
+     * @throws IOException if the server socket can not be opened or the evaluator can not be loaded
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5555;
+        int engineThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        Evaluator evaluator = Evaluator.load(args.length > 3 ? args[3] : "heuristic");
+        GameServer server = new GameServer(engineThreads, depth, evaluator);
+        try (ServerSocket serverSocket = new ServerSocket()) {
+            serverSocket.bind(new InetSocketAddress(port), 1024);
+            System.out.println("listening on port " + serverSocket.getLocalPort());
+            server.serve(serverSocket);
+        }
+    }
+
+    /**
+     * Creates an executor that runs every task on a pooled platform thread with a small stack.
+     *
+     * @return executor of connection tasks
+     */
+    static ExecutorService newSessionExecutor() {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "session", SESSION_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Accepts connections until the server socket is closed and serves every connection on its own thread.
+     *
+     * @param serverSocket bound server socket
+     */
+    void serve(ServerSocket serverSocket) {
+        ExecutorService sessionExecutor = newSessionExecutor();
+        Thread reporter = new Thread(this::reportLatencies, "latency-report");
+        reporter.setDaemon(true);
+        reporter.start();
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                sessionExecutor.execute(() -> serveConnection(socket));
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.out.println("Can't accept connections: " + e.getMessage());
+            }
+        } finally {
+            sessionExecutor.shutdownNow();
+            enginePool.shutdownNow();
+            reporter.interrupt();
+        }
+    }
+
+    /**
+     * Prints the number of sessions and the computer move latencies periodically, runs until it is interrupted.
+     */
+    private void reportLatencies() {
+        long reportedCount = 0;
+        try {
+            while (true) {
+                Thread.sleep(REPORT_SECONDS * 1000L);
+                if (moveLatencies.getCount() != reportedCount) {
+                    reportedCount = moveLatencies.getCount();
+                    System.out.println("sessions " + sessions.get() + ", moves " + moveLatencies);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serves the commands of a connection until the client quits or disconnects.
+     *
+     * @param socket socket of the connection
+     */
+    private void serveConnection(Socket socket) {
+        sessions.incrementAndGet();
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+            s.setTcpNoDelay(true);
+            Session session = new Session(out);
+            for (String line = in.readLine(); line != null && session.execute(line.trim()); line = in.readLine()) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client is disconnected
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Searches a computer move on an engine thread and records its latency.
+     *
+     * @param board board of the game, it is not changed
+     * @param color color index of the computer
+     * @return square index of the move, {@code -1} if the engine pool is full
+     * @throws IOException          if the search fails
+     * @throws InterruptedException if the session thread is interrupted while waiting
+     */
+    private int searchMove(Board board, int color) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        //engine threads work on their own copy, so the session board is never shared
+        Board copy = new Board(board);
+        Future<Integer> move;
+        try {
+            move = enginePool.submit(() -> copy.getEmptyCount() <= ENDGAME_EMPTIES
+                    ? endgameSolvers.get().solve(copy, color, false) : engines.get().search(copy, color));
+        } catch (RejectedExecutionException e) {
+            return -1;
+        }
+        try {
+            return move.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Search failed", e.getCause());
+        } finally {
+            moveLatencies.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * State of the game of a connection.
+     */
+    private class Session {
+        /**
+         * Writer of answers to the client
+         */
+        private Writer out;
+        /**
+         * Board of the current game, {@code null} before the first game
+         */
+        private Board board;
+        /**
+         * Color index of the client
+         */
+        private int clientColor;
+        /**
+         * Color index of the player to move
+         */
+        private int turn;
+
+        /**
+         * Constructor of the session.
+         *
+         * @param out writer of answers to the client
+         */
+        Session(Writer out) {
+            this.out = out;
+        }
+
+        /**
+         * Executes a command of the client.
+         *
+         * @param command command line
+         * @return {@code false} if the client quits
+         * @throws IOException          if an answer can not be written
+         * @throws InterruptedException if the session thread is interrupted
+         */
+        boolean execute(String command) throws IOException, InterruptedException {
+            String[] words = command.split("\\s+");
+            switch (words[0]) {
+                case "NEW":
+                    if (words.length != 2 || (!words[1].equals("BLACK") && !words[1].equals("WHITE"))) {
+                        send("ERROR expected NEW BLACK or NEW WHITE");
+                    } else {
+                        board = new Board();
+                        clientColor = words[1].equals("BLACK") ? Board.BLACK : Board.WHITE;
+                        turn = Board.BLACK;
+                        send("OK");
+                        advance();
+                    }
+                    return true;
+                case "MOVE":
+                    if (board == null || board.isGameFinished()) {
+                        send("ERROR no game in progress");
+                    } else if (turn != clientColor) {
+                        send("ERROR computer to move");
+                    } else if (words.length != 3 || words[1].length() != 1 || words[2].length() != 1) {
+                        send("ERROR expected MOVE I C");
+                    } else {
+                        int row = words[1].charAt(0) - '1';
+                        int column = words[2].charAt(0) - 'A';
+                        if (row < 0 || row >= 8 || column < 0 || column >= 8
+                                || board.makeMove(clientColor, Bitboard.square(row, column)) == 0) {
+                            send("ILLEGAL");
+                        } else {
+                            changeTurn();
+                            advance();
+                        }
+                    }
+                    return true;
+                case "GO":
+                    if (board == null || board.isGameFinished()) {
+                        send("ERROR no game in progress");
+                    } else if (turn == clientColor) {
+                        send("ERROR client to move");
+                    } else {
+                        advance();
+                    }
+                    return true;
+                case "BOARD":
+                    sendBoard();
+                    return true;
+                case "QUIT":
+                    return false;
+                default:
+                    send("ERROR unknown command");
+                    return true;
+            }
+        }
+
+        /**
+         * Plays computer moves until the client is to move or the game is finished, and sends them as events. Stops
+         * with {@code ERROR busy} if the engine pool is full.
+         *
+         * @throws IOException          if an event can not be written
+         * @throws InterruptedException if the session thread is interrupted
+         */
+        private void advance() throws IOException, InterruptedException {
+            while (!board.isGameFinished() && turn != clientColor) {
+                int move = searchMove(board, turn);
+                if (move < 0) {
+                    //the session stays open, the client retries with GO
+                    send("ERROR busy");
+                    return;
+                }
+                board.makeMove(turn, move);
+                send("MOVE " + ComputerPlayer.convertToMoveStr(move));
+                changeTurn();
+            }
+            if (board.isGameFinished()) {
+                send("END " + Long.bitCount(board.getDiscs(Board.BLACK)) + " "
+                        + Long.bitCount(board.getDiscs(Board.WHITE)));
+            }
+        }
+
+        /**
+         * Gives the turn to the other color after a move, or sends its pass event if it has no valid move.
+         *
+         * @throws IOException if the pass event can not be written
+         */
+        private void changeTurn() throws IOException {
+            int next = board.nextTurn(turn);
+            if (next == turn && !board.isGameFinished()) {
+                send(turn == Board.BLACK ? "PASS WHITE" : "PASS BLACK");
+            }
+            turn = next;
+        }
+
+        /**
+         * Sends the current board.
+         *
+         * @throws IOException if the answer can not be written
+         */
+        private void sendBoard() throws IOException {
+            StringBuilder builder = new StringBuilder("BOARD ");
+            for (int square = 0; square < 64; square++) {
+                if (board != null && ((board.getDiscs(Board.BLACK) >>> square) & 1) != 0) {
+                    builder.append('X');
+                } else if (board != null && ((board.getDiscs(Board.WHITE) >>> square) & 1) != 0) {
+                    builder.append('O');
+                } else {
+                    builder.append('-');
+                }
+            }
+            send(builder.toString());
+        }
+
+        /**
+         * Writes an answer line.
+         *
+         * @param line answer without line separator
+         * @throws IOException if the answer can not be written
+         */
+        private void send(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package othello;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of {@link GameServer}. It opens many connections at once and plays random moves against the server on
+ * every connection, then prints the number of finished games, the games per second and the round trip latencies of
+ * the moves as seen by the clients.
+ * <br>
+ * Usage: {@code GameServerBenchmark [host] [port] [sessions] [games per session]}, by default 1000 sessions that play
+ * one game each against localhost port 5555.
+ */
+public class GameServerBenchmark {
+    /**
+     * Round trip latencies of client moves, from sending the move to receiving the last event of the answer
+     */
+    private static LatencyHistogram roundTrips = new LatencyHistogram();
+    /**
+     * Number of finished games
+     */
+    private static AtomicInteger finishedGames = new AtomicInteger();
+    /**
+     * Number of sessions that failed
+     */
+    private static AtomicInteger failedSessions = new AtomicInteger();
+    /**
+     * Number of computer moves retried because all engine threads were busy
+     */
+    private static AtomicInteger busyAnswers = new AtomicInteger();
+
+    /**
+     * The main method of the load test.
+     *
+     * @param args optional host, port, number of sessions and number of games of every session
+     * @throws InterruptedException if the main thread is interrupted while sessions are running
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5555;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        ExecutorService executor = GameServer.newSessionExecutor();
+        CountDownLatch done = new CountDownLatch(sessions);
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            long seed = i;
+            executor.execute(() -> {
+                try {
+                    playSession(host, port, games, new SplittableRandom(seed));
+                } catch (IOException e) {
+                    failedSessions.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+        System.out.printf("%d games, %d failed sessions, %d busy retries, %.1f games/s%n", finishedGames.get(),
+                failedSessions.get(), busyAnswers.get(), finishedGames.get() * 1e9 / nanos);
+        System.out.println("round trips: " + roundTrips);
+    }
+
+    /**
+     * Plays games with random moves on one connection.
+     *
+     * @param host   host of the server
+     * @param port   port of the server
+     * @param games  number of games to play
+     * @param random random generator of the moves
+     * @throws IOException if the connection fails or the server answers unexpectedly
+     */
+    private static void playSession(String host, int port, int games, SplittableRandom random) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            for (int game = 0; game < games; game++) {
+                int color = random.nextInt(2);
+                Board board = new Board();
+                send(out, color == Board.BLACK ? "NEW BLACK" : "NEW WHITE");
+                if (!"OK".equals(in.readLine())) {
+                    throw new IOException("Game not started");
+                }
+                boolean finished = readEvents(in, out, board, color, Board.BLACK);
+                while (!finished) {
+                    long moves = board.getValidMoves(color);
+                    int move = Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves)));
+                    board.makeMove(color, move);
+                    long start = System.nanoTime();
+                    send(out, "MOVE " + ComputerPlayer.convertToMoveStr(move));
+                    finished = readEvents(in, out, board, color, color ^ 1);
+                    roundTrips.record(System.nanoTime() - start);
+                }
+                finishedGames.incrementAndGet();
+            }
+            send(out, "QUIT");
+        }
+    }
+
+    /**
+     * Reads events of the server and applies the computer moves to the client board, until the client is to move or
+     * the game is finished. The client board tells which event comes next. If the server is busy, the client retries
+     * the computer move with {@code GO}.
+     *
+     * @param in    reader of the connection
+     * @param out   writer of the connection
+     * @param board board of the client
+     * @param color color index of the client
+     * @param turn  color index of the player to move
+     * @return {@code true} if the game is finished
+     * @throws IOException if the connection fails or the server answers unexpectedly
+     */
+    private static boolean readEvents(BufferedReader in, Writer out, Board board, int color, int turn)
+            throws IOException {
+        while (true) {
+            String expected = board.isGameFinished() ? "END" : board.getValidMoves(turn) == 0 ? "PASS"
+                    : turn == color ? null : "MOVE ";
+            if (expected == null) {
+                return false;
+            }
+            String line = in.readLine();
+            if ("ERROR busy".equals(line) && expected.equals("MOVE ")) {
+                busyAnswers.incrementAndGet();
+                send(out, "GO");
+                continue;
+            }
+            if (line == null || !line.startsWith(expected)) {
+                throw new IOException("Unexpected answer: " + line);
+            } else if (expected.equals("END")) {
+                return true;
+            } else if (expected.equals("MOVE ")) {
+                board.makeMove(turn, Bitboard.square(line.charAt(5) - '1', line.charAt(7) - 'A'));
+            }
+            turn ^= 1;
+        }
+    }
+
+    /**
+     * Writes a command line and flushes it.
+     *
+     * @param out  writer of the connection
+     * @param line command without line separator
+     * @throws IOException if the command can not be written
+     */
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+}
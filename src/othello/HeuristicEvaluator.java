@@ -0,0 +1,62 @@
+package othello;
+
+/**
+ * Determines a simple evaluation function based on mobility and corner ownership. Cells diagonally near an empty
+ * corner are penalized, since they usually give the corner to the opponent.
+ */
+class HeuristicEvaluator implements Evaluator {
+    /**
+     * Score of every valid move more than the opponent
+     */
+    private static final int MOBILITY_SCORE = 20;
+    /**
+     * Score of every owned corner
+     */
+    private static final int CORNER_SCORE = 300;
+    /**
+     * Penalty of every owned cell diagonally near an empty corner
+     */
+    private static final int X_SQUARE_PENALTY = 150;
+    /**
+     * Square indexes of the four corners
+     */
+    private static final int[] CORNERS = {0, 7, 56, 63};
+    /**
+     * Square indexes of the cells diagonally near the corners, indexed same as {@link HeuristicEvaluator#CORNERS}
+     */
+    private static final int[] X_SQUARES = {9, 14, 49, 54};
+
+    /**
+     * Evaluates the current position as weighted sum of mobility difference, corner difference and owned cells near
+     * empty corners.
+     *
+     * @param board board to evaluate
+     * @param color color index of the player to move
+     * @return estimated score of the player
+     */
+    @Override
+    public int evaluate(Board board, int color) {
+        long player = board.getDiscs(color);
+        long opponent = board.getDiscs(color ^ 1);
+        int mobility = Long.bitCount(Bitboard.validMoves(player, opponent))
+                - Long.bitCount(Bitboard.validMoves(opponent, player));
+        int score = mobility * MOBILITY_SCORE;
+        for (int i = 0; i < 4; i++) {
+            long corner = 1L << CORNERS[i];
+            long xSquare = 1L << X_SQUARES[i];
+            if ((player & corner) != 0) {
+                score += CORNER_SCORE;
+            } else if ((opponent & corner) != 0) {
+                score -= CORNER_SCORE;
+            } else {
+                //the corner is empty
+                if ((player & xSquare) != 0) {
+                    score -= X_SQUARE_PENALTY;
+                } else if ((opponent & xSquare) != 0) {
+                    score += X_SQUARE_PENALTY;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -17,13 +17,48 @@ class HumanPlayer extends Player {
     }
 
     /**
-     * Gets next move as a string from console and returns that input as player's next move.
+     * Reads the next move from console until the input has valid syntax and returns it as player's next move.
      *
-     * @return input move string
+     * @return square index of the input move
      */
-    public String getNextMove() {
+    public int getNextMove() {
         Scanner scanner = new Scanner(System.in);
-        String line = scanner.nextLine();
-        return line.trim();
+        int move = parseMove(scanner.nextLine().trim());
+        //gets next move from user until input string has valid syntax
+        while (move < 0) {
+            System.out.println("Input format must be like \"I C\", I is a number in range [1-8] and C is a character in range [A-H].");
+            move = parseMove(scanner.nextLine().trim());
+        }
+        return move;
+    }
+
+    /**
+     * Returns {@code true}, the moves of a human player are entered on the console.
+     *
+     * @return {@code true}
+     */
+    @Override
+    boolean isHuman() {
+        return true;
+    }
+
+    /**
+     * Parses the move string that entered by user. The input string format is "I C" that 'I' part is a number in
+     * range 1 to 8 and 'C' part is an upper case character in range A to H.
+     *
+     * @param moveString move string
+     * @return square index of the move, {@code -1} if the move string is not valid
+     */
+    static int parseMove(String moveString) {
+        //input format should be 3 character in format "I C"
+        if (moveString.length() != 3 || moveString.charAt(1) != ' ') {
+            return -1;
+        }
+        char row = moveString.charAt(0);
+        char column = moveString.charAt(2);
+        if (row < '1' || row > '8' || column < 'A' || column > 'H') {
+            return -1;
+        }
+        return Bitboard.square(row - '1', column - 'A');
     }
 }
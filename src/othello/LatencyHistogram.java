@@ -0,0 +1,118 @@
+package othello;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds that can be recorded by many threads at once. Every power of two
+ * range is split into eight buckets, so reported percentiles are accurate to 12.5 percent.
+ */
+class LatencyHistogram {
+    /**
+     * Number of buckets of every power of two range
+     */
+    private static final int SUB_BUCKETS = 8;
+    /**
+     * Number of buckets, enough for all positive {@code long} values
+     */
+    private static final int BUCKETS = 61 * SUB_BUCKETS;
+    /**
+     * Number of recorded latencies in every bucket
+     */
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * Number of recorded latencies
+     */
+    private AtomicLong count = new AtomicLong();
+    /**
+     * Sum of recorded latencies in microseconds
+     */
+    private AtomicLong sum = new AtomicLong();
+    /**
+     * Maximum recorded latency in microseconds
+     */
+    private AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Gets the bucket of a latency, latencies below eight microseconds have their own buckets.
+     *
+     * @param micros latency in microseconds
+     * @return bucket index
+     */
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return (exponent - 2) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the highest latency of a bucket.
+     *
+     * @param bucket bucket index
+     * @return highest latency in microseconds
+     */
+    private static long bucketLimit(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 2;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+        return lowest + (1L << (exponent - 3)) - 1;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies.
+     *
+     * @param percentile percentile in range 0 to 100
+     * @return upper limit of the percentile in microseconds, {@code 0} if nothing is recorded
+     */
+    long percentile(double percentile) {
+        long total = count.get();
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(bucketLimit(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return number of latencies
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets a summary of the recorded latencies.
+     *
+     * @return count, mean, median, 90th and 99th percentile and maximum in microseconds
+     */
+    @Override
+    public String toString() {
+        long total = count.get();
+        return String.format("count %d, mean %d us, p50 %d us, p90 %d us, p99 %d us, max %d us", total,
+                total == 0 ? 0 : sum.get() / total, percentile(50), percentile(90), percentile(99), max.get());
+    }
+}
@@ -0,0 +1,257 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays engine against engine games without any console input or board printing, so an engine change can be validated
+ * by thousands of games. Games are played in parallel on all available processors, every game on its own
+ * {@link Board} that is never shared with another thread, and every worker thread has its own search engines.
+ * <br>
+ * Every opening is played twice with swapped colors. Openings are random moves from the start position, or random
+ * moves that stay inside an opening book if a book file is specified. The result is printed as wins, draws and losses
+ * of the first engine, its score and the number of games per second.
+ * <br>
+ * Usage: {@code MatchRunner [games] [depth A] [depth B] [evaluator A] [evaluator B] [opening moves] [book file]
+ * [record file]}, an evaluator is {@code heuristic}, a neural weights file ending with {@code .nnue} or a pattern
+ * weights file and a book file {@code -} means random openings. By default 1000 games at depth 4 with the heuristic
+ * evaluator and 8 random opening moves.
+ * Played games are appended to the record file if it is specified.
+ */
+public class MatchRunner {
+    /**
+     * Transposition table size of every search engine in megabytes
+     */
+    private static final int HASH_MEGABYTES = 8;
+    /**
+     * Number of empty cells where both engines solve the game to the end
+     */
+    private static final int ENDGAME_EMPTIES = 12;
+    /**
+     * Seed of random openings, the same openings are played in every run
+     */
+    private static final long SEED = 20200401;
+    /**
+     * Number of games between progress reports
+     */
+    private static final int REPORT_INTERVAL = 1000;
+    /**
+     * Number of games to play
+     */
+    private int games;
+    /**
+     * Search depth of both engines
+     */
+    private int[] depths;
+    /**
+     * Evaluators of both engines, copied for every worker thread
+     */
+    private Evaluator[] evaluators;
+    /**
+     * Number of random opening moves
+     */
+    private int openingMoves;
+    /**
+     * Opening book that limits opening moves, {@code null} for random openings
+     */
+    private OpeningBook openingBook;
+    /**
+     * Writer of played games, {@code null} if games are not recorded
+     */
+    private GameRecordWriter recordWriter;
+    /**
+     * Index of the next game to play
+     */
+    private AtomicInteger nextGame = new AtomicInteger();
+    /**
+     * Number of wins, draws and losses of the first engine
+     */
+    private AtomicInteger[] results = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+    /**
+     * Sum of final disc differences from the point of view of the first engine
+     */
+    private AtomicLong discDifference = new AtomicLong();
+    /**
+     * First error of the record writer, games are not recorded after an error
+     */
+    private volatile IOException recordError;
+
+    /**
+     * Constructor of the match.
+     *
+     * @param games        number of games to play
+     * @param depths       search depth of both engines
+     * @param evaluators   evaluators of both engines
+     * @param openingMoves number of random opening moves
+     * @param openingBook  opening book that limits opening moves, {@code null} for random openings
+     */
+    MatchRunner(int games, int[] depths, Evaluator[] evaluators, int openingMoves, OpeningBook openingBook) {
+        this.games = games;
+        this.depths = depths;
+        this.evaluators = evaluators;
+        this.openingMoves = openingMoves;
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * The main method of the match runner.
+     *
+     * @param args optional number of games, depths, evaluators, number of opening moves, book file and record file
+     * @throws IOException if an evaluator or the book can not be loaded or games can not be recorded
+     * @throws InterruptedException if the main thread is interrupted while games are played
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int[] depths = {args.length > 1 ? Integer.parseInt(args[1]) : 4, args.length > 2 ? Integer.parseInt(args[2]) : 4};
+        Evaluator[] evaluators = {Evaluator.load(args.length > 3 ? args[3] : "heuristic"),
+                Evaluator.load(args.length > 4 ? args[4] : "heuristic")};
+        int openingMoves = args.length > 5 ? Integer.parseInt(args[5]) : 8;
+        OpeningBook openingBook = args.length > 6 && !args[6].equals("-") ? OpeningBook.open(Paths.get(args[6]))
+                : null;
+
+        MatchRunner match = new MatchRunner(games, depths, evaluators, openingMoves, openingBook);
+        long start = System.nanoTime();
+        if (args.length > 7) {
+            try (GameRecordWriter recordWriter = GameRecordWriter.open(Paths.get(args[7]))) {
+                match.recordWriter = recordWriter;
+                match.run(Runtime.getRuntime().availableProcessors());
+            }
+        } else {
+            match.run(Runtime.getRuntime().availableProcessors());
+        }
+        long nanos = System.nanoTime() - start;
+        match.printResults();
+        System.out.printf("%.1f games/s%n", games * 1e9 / nanos);
+    }
+
+    /**
+     * Plays all games of the match and waits for them to finish.
+     *
+     * @param threads number of worker threads
+     * @throws IOException          if a game can not be recorded
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    void run(int threads) throws IOException, InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::playGames, "match-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (recordError != null) {
+            throw recordError;
+        }
+    }
+
+    /**
+     * Plays games until no game is left, runs on every worker thread.
+     */
+    private void playGames() {
+        SearchEngine[] engines = new SearchEngine[2];
+        for (int i = 0; i < 2; i++) {
+            engines[i] = new SearchEngine(evaluators[i].copy(), new TranspositionTable(HASH_MEGABYTES), depths[i], 0);
+        }
+        EndgameSolver endgameSolver = new EndgameSolver();
+        for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+            //both games of an opening start from the same position, the first engine plays black in even games
+            long startMillis = System.currentTimeMillis();
+            Board board = new Board();
+            int color = playOpening(board, new SplittableRandom(SEED + game / 2));
+            int firstEngineColor = game % 2 == 0 ? Board.BLACK : Board.WHITE;
+            while (!board.isGameFinished()) {
+                SearchEngine engine = engines[color == firstEngineColor ? 0 : 1];
+                int move = board.getEmptyCount() <= ENDGAME_EMPTIES ? endgameSolver.solve(board, color, false)
+                        : engine.search(board, color);
+                board.makeMove(color, move);
+                color = board.nextTurn(color);
+            }
+            int difference = Long.bitCount(board.getDiscs(firstEngineColor))
+                    - Long.bitCount(board.getDiscs(firstEngineColor ^ 1));
+            recordGame(board, firstEngineColor, startMillis);
+            results[difference > 0 ? 0 : difference == 0 ? 1 : 2].incrementAndGet();
+            discDifference.addAndGet(difference);
+            int played = results[0].get() + results[1].get() + results[2].get();
+            if (played % REPORT_INTERVAL == 0 && played < games) {
+                printResults();
+            }
+        }
+    }
+
+    /**
+     * Appends a finished game to the record file if games are recorded.
+     *
+     * @param board            board of the finished game
+     * @param firstEngineColor color index of the first engine
+     * @param startMillis      start time of the game in milliseconds since the epoch
+     */
+    private void recordGame(Board board, int firstEngineColor, long startMillis) {
+        if (recordWriter == null || recordError != null) {
+            return;
+        }
+        byte[] moves = new byte[board.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (byte) board.getMove(i);
+        }
+        String[] names = {"A", "B"};
+        GameRecord record = new GameRecord(names[firstEngineColor], names[firstEngineColor ^ 1], startMillis,
+                (int) (System.currentTimeMillis() - startMillis),
+                Long.bitCount(board.getDiscs(Board.BLACK)) - Long.bitCount(board.getDiscs(Board.WHITE)), moves);
+        synchronized (recordWriter) {
+            try {
+                recordWriter.write(record);
+            } catch (IOException e) {
+                recordError = e;
+            }
+        }
+    }
+
+    /**
+     * Plays random opening moves. If the match has an opening book, only moves to positions in the book are chosen.
+     *
+     * @param board  board in the start position
+     * @param random random generator of the opening
+     * @return color index of the player to move after the opening
+     */
+    private int playOpening(Board board, SplittableRandom random) {
+        int color = Board.BLACK;
+        for (int i = 0; i < openingMoves && !board.isGameFinished(); i++) {
+            long moves = board.getValidMoves(color);
+            if (openingBook != null) {
+                long inBook = 0;
+                for (long m = moves; m != 0; m = Bitboard.removeFirst(m)) {
+                    int move = Bitboard.firstSquare(m);
+                    board.makeMove(color, move);
+                    if (openingBook.contains(board.getDiscs(color ^ 1), board.getDiscs(color))) {
+                        inBook |= 1L << move;
+                    }
+                    board.unmakeMove();
+                }
+                if (inBook == 0) {
+                    //the book line ends here
+                    break;
+                }
+                moves = inBook;
+            }
+            board.makeMove(color, Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves))));
+            color = board.nextTurn(color);
+        }
+        return color;
+    }
+
+    /**
+     * Prints wins, draws and losses of the first engine, its score and average disc difference.
+     */
+    void printResults() {
+        int wins = results[0].get();
+        int draws = results[1].get();
+        int losses = results[2].get();
+        int played = wins + draws + losses;
+        System.out.printf("%d games: +%d =%d -%d, score %.1f%%, average disc difference %+.2f%n", played, wins, draws,
+                losses, (wins + draws / 2.0) * 100 / played, discDifference.get() / (double) played);
+    }
+}
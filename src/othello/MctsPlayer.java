@@ -0,0 +1,60 @@
+package othello;
+
+/**
+ * Determines a computer player that chooses its next move by {@link MonteCarloTreeSearch}, on one or more threads.
+ * The search tree is kept between moves, so the playouts of the played line are reused.
+ */
+class MctsPlayer extends Player {
+    /**
+     * The othello game board
+     */
+    private Board board;
+    /**
+     * The search of the player
+     */
+    private MonteCarloTreeSearch search;
+
+    /**
+     * Constructor that initializes player.
+     *
+     * @param board           The othello game board
+     * @param piece           player piece
+     * @param timeLimitMillis time limit of every move in milliseconds
+     * @param threads         number of search threads
+     * @param megabytes       memory budget of the search tree in megabytes
+     */
+    MctsPlayer(Board board, Piece piece, long timeLimitMillis, int threads, int megabytes) {
+        super("Computer", piece);
+        this.board = board;
+        search = new MonteCarloTreeSearch(timeLimitMillis, threads, megabytes);
+    }
+
+    /**
+     * Searches the move with the most playouts.
+     *
+     * @return square index of the next move, {@link Player#PASS} if the player has no valid move
+     */
+    public int getNextMove() {
+        int selected = search.search(board, Board.colorOf(getPiece()));
+        return selected < 0 ? PASS : selected;
+    }
+
+    /**
+     * Gets the search statistics of the last move, including the number of playouts and the search speed.
+     *
+     * @return description of the last move
+     */
+    @Override
+    String getMoveInfo() {
+        return String.format("%d playouts, %d playouts/s, win rate %.1f%%, %d nodes", search.getPlayouts(),
+                search.getPlayoutsPerSecond(), search.getWinRate() * 100, search.getNodeCount());
+    }
+
+    /**
+     * Terminates the search threads when the game is finished.
+     */
+    @Override
+    void gameFinished() {
+        search.shutdown();
+    }
+}
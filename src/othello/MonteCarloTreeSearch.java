@@ -0,0 +1,575 @@
+package othello;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monte Carlo tree search with UCT selection, searched by many threads in one shared tree. Every iteration walks down
+ * the tree choosing the child with the best upper confidence bound, expands the reached leaf, plays a random game
+ * from it and adds the result to every node of the walked path.
+ * <br>
+ * Nodes live in primitive arrays of a fixed capacity, so the tree never allocates during the search. The visits and
+ * score of a node are packed into one {@code long} that threads update with atomic adds: a visit is added on the way
+ * down with no score, a virtual loss that steers the other threads to other lines, and the score is added when the
+ * playout is finished. Leaves are expanded by the thread that wins a compare-and-set of the child index, and children
+ * of a node are allocated as one block. When the pool is full the tree stops growing and iterations play out from the
+ * leaves.
+ * <br>
+ * Between moves the subtree of the new position is copied to a second pool in breadth-first order and the pools are
+ * swapped, so the statistics of the played line are kept and the rest of the tree is freed.
+ */
+class MonteCarloTreeSearch {
+    /**
+     * Exploration constant of UCT, with scores between 0 and 1
+     */
+    private static final double EXPLORATION = 1.0;
+    /**
+     * Seconds an idle search thread waits for the next search before it terminates
+     */
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+    /**
+     * Number of visits before a leaf is expanded, so leaves visited only once do not use pool space
+     */
+    private static final int EXPAND_VISITS = 2;
+    /**
+     * Bytes of a node in both pools
+     */
+    private static final int NODE_BYTES = 2 * (1 + 1 + 4 + 8);
+    /**
+     * Child index of a leaf that is being expanded
+     */
+    private static final int EXPANDING = -1;
+    /**
+     * Visit increment of the packed node statistics
+     */
+    private static final long VISIT = 1L << 32;
+    /**
+     * Score of a won playout, a draw scores half of it
+     */
+    private static final int WIN = 2;
+    /**
+     * Corner squares, preferred by the playout policy
+     */
+    private static final long CORNERS = 0x8100000000000081L;
+    /**
+     * Maximum number of nodes of a path, every move can be preceded by a pass
+     */
+    private static final int MAX_PATH = 2 * Board.MAX_MOVES + 2;
+    /**
+     * Pool of the current tree, the root is node 0
+     */
+    private Pool pool;
+    /**
+     * Pool that receives the subtree of the next root
+     */
+    private Pool sparePool;
+    /**
+     * Discs of the player to move at the root
+     */
+    private long rootPlayer;
+    /**
+     * Discs of the opponent at the root
+     */
+    private long rootOpponent;
+    /**
+     * Search threads
+     */
+    private ThreadPoolExecutor threadPool;
+    /**
+     * Futures of the running searches of the threads
+     */
+    private Future<?>[] futures;
+    /**
+     * Time limit of every search in milliseconds
+     */
+    private long timeLimitMillis;
+    /**
+     * Stop request of the running search
+     */
+    private volatile boolean stopRequested;
+    /**
+     * Number of playouts of the last search
+     */
+    private long playouts;
+    /**
+     * Duration of the last search in nanoseconds
+     */
+    private long elapsedNanos;
+
+    /**
+     * Constructor of the search.
+     *
+     * @param timeLimitMillis time limit of every search in milliseconds
+     * @param threads         number of search threads
+     * @param megabytes       memory budget of both node pools in megabytes
+     */
+    MonteCarloTreeSearch(long timeLimitMillis, int threads, int megabytes) {
+        this.timeLimitMillis = timeLimitMillis;
+        int capacity = (int) Math.min(Integer.MAX_VALUE, (long) megabytes * 1024 * 1024 / NODE_BYTES);
+        pool = new Pool(capacity);
+        sparePool = new Pool(capacity);
+        futures = new Future<?>[threads];
+        threadPool = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, "mcts");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Searches the best move of the specified color until the time limit, on all threads. The tree of the previous
+     * search is reused if the position follows from its root within two plies.
+     *
+     * @param board board to search, not changed by the search
+     * @param color color index of the player to move
+     * @return square index of the most visited move, {@code -1} if there is no valid move
+     */
+    int search(Board board, int color) {
+        long player = board.getDiscs(color);
+        long opponent = board.getDiscs(color ^ 1);
+        if (Bitboard.validMoves(player, opponent) == 0) {
+            return -1;
+        }
+        setRoot(player, opponent);
+        long start = System.nanoTime();
+        long startVisits = visits(pool.stats.get(0));
+        long deadline = start + timeLimitMillis * 1000000L;
+        stopRequested = false;
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = threadPool.submit(() -> runIterations(deadline));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                stopRequested = true;
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search thread failed", e.getCause());
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+        playouts = visits(pool.stats.get(0)) - startVisits;
+        int best = bestChild();
+        return best < 0 ? -1 : pool.moves[best];
+    }
+
+    /**
+     * Requests the running search to stop. This method can be called from any thread.
+     */
+    void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Runs iterations until the deadline or a stop request. Runs on every search thread.
+     *
+     * @param deadline deadline in {@link System#nanoTime()} units
+     */
+    private void runIterations(long deadline) {
+        int[] path = new int[MAX_PATH];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!stopRequested && System.nanoTime() < deadline) {
+            //a batch between clock reads, playouts take microseconds
+            for (int i = 0; i < 16; i++) {
+                iterate(path, random);
+            }
+        }
+    }
+
+    /**
+     * Runs one iteration: selection with virtual loss, expansion, playout and backpropagation.
+     *
+     * @param path   node indexes of the walked path
+     * @param random random generator of the thread
+     */
+    private void iterate(int[] path, ThreadLocalRandom random) {
+        Pool tree = pool;
+        long player = rootPlayer;
+        long opponent = rootOpponent;
+        int node = 0;
+        int length = 0;
+        path[length++] = node;
+        tree.stats.addAndGet(node, VISIT);
+        while (true) {
+            int first = tree.children.get(node);
+            if (first <= 0) {
+                if (first == EXPANDING || visits(tree.stats.get(node)) < EXPAND_VISITS
+                        || !expand(tree, node, player, opponent)) {
+                    break;
+                }
+                first = tree.children.get(node);
+            }
+            node = select(tree, node, first);
+            int move = tree.moves[node];
+            if (move == SearchEngine.PASS) {
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+            } else {
+                long flips = Bitboard.flips(player, opponent, move);
+                long newPlayer = opponent & ~flips;
+                opponent = player | flips | (1L << move);
+                player = newPlayer;
+            }
+            path[length++] = node;
+            tree.stats.addAndGet(node, VISIT);
+        }
+        //the score of a node is counted for the player who made its move, the opponent of the player to move there
+        int score = WIN - playout(player, opponent, random);
+        for (int i = length - 1; i >= 0; i--) {
+            tree.stats.addAndGet(path[i], score);
+            score = WIN - score;
+        }
+    }
+
+    /**
+     * Expands a leaf, if no other thread is expanding it and the pool has room for its children. A leaf where the
+     * player to move must pass gets a single pass child and a leaf of a finished game is not expanded.
+     *
+     * @param tree     pool of the tree
+     * @param node     index of the leaf
+     * @param player   discs of the player to move at the leaf
+     * @param opponent discs of the opponent
+     * @return {@code true} if the leaf has children
+     */
+    private boolean expand(Pool tree, int node, long player, long opponent) {
+        if (!tree.children.compareAndSet(node, 0, EXPANDING)) {
+            return false;
+        }
+        long moves = Bitboard.validMoves(player, opponent);
+        int count = Long.bitCount(moves);
+        if (count == 0 && Bitboard.validMoves(opponent, player) != 0) {
+            count = 1;
+        }
+        int first = count == 0 ? -1 : tree.allocate(count);
+        if (first < 0) {
+            tree.children.set(node, 0);
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            tree.moves[first + i] = (byte) (moves == 0 ? SearchEngine.PASS : Bitboard.firstSquare(moves));
+            moves = Bitboard.removeFirst(moves);
+            tree.children.set(first + i, 0);
+            tree.stats.set(first + i, 0);
+        }
+        tree.childCounts[node] = (byte) count;
+        //the volatile write publishes the children to the other threads
+        tree.children.set(node, first);
+        return true;
+    }
+
+    /**
+     * Selects the child with the best upper confidence bound, unvisited children first.
+     *
+     * @param tree  pool of the tree
+     * @param node  index of the parent
+     * @param first index of the first child
+     * @return index of the selected child
+     */
+    private static int select(Pool tree, int node, int first) {
+        double logVisits = Math.log(visits(tree.stats.get(node)));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first, end = first + tree.childCounts[node]; child < end; child++) {
+            long stats = tree.stats.get(child);
+            long visits = visits(stats);
+            if (visits == 0) {
+                return child;
+            }
+            double value = score(stats) / (double) (WIN * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays a game to the end with random moves, corners are taken whenever possible.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param random   random generator of the thread
+     * @return {@link MonteCarloTreeSearch#WIN} if the player to move wins, half of it for a draw and {@code 0} for a
+     * loss
+     */
+    private static int playout(long player, long opponent, ThreadLocalRandom random) {
+        boolean swapped = false;
+        while (true) {
+            long moves = Bitboard.validMoves(player, opponent);
+            if (moves == 0) {
+                if (Bitboard.validMoves(opponent, player) == 0) {
+                    break;
+                }
+            } else {
+                long corners = moves & CORNERS;
+                long candidates = corners != 0 ? corners : moves;
+                int move = Bitboard.nthSquare(candidates, random.nextInt(Long.bitCount(candidates)));
+                long flips = Bitboard.flips(player, opponent, move);
+                player |= flips | (1L << move);
+                opponent &= ~flips;
+            }
+            long swap = player;
+            player = opponent;
+            opponent = swap;
+            swapped = !swapped;
+        }
+        int difference = Long.bitCount(player) - Long.bitCount(opponent);
+        if (swapped) {
+            difference = -difference;
+        }
+        return difference > 0 ? WIN : difference == 0 ? WIN / 2 : 0;
+    }
+
+    /**
+     * Sets the root of the tree. If the position is the root or follows from it within two plies, its subtree is
+     * copied to the spare pool, otherwise the tree is cleared.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     */
+    private void setRoot(long player, long opponent) {
+        if (pool.size.get() > 0 && player == rootPlayer && opponent == rootOpponent) {
+            return;
+        }
+        int newRoot = -1;
+        int first = pool.size.get() > 0 ? pool.children.get(0) : 0;
+        for (int i = 0; first > 0 && newRoot < 0 && i < pool.childCounts[0]; i++) {
+            //children are positions with the opponent of the root to move, so their children are compared
+            int child = first + i;
+            int grandFirst = pool.children.get(child);
+            for (int j = 0; grandFirst > 0 && newRoot < 0 && j < pool.childCounts[child]; j++) {
+                long[] position = play(rootPlayer, rootOpponent, pool.moves[child], pool.moves[grandFirst + j]);
+                if (position[0] == player && position[1] == opponent) {
+                    newRoot = grandFirst + j;
+                }
+            }
+        }
+        if (newRoot < 0) {
+            pool.clear();
+        } else {
+            sparePool.copySubtree(pool, newRoot);
+            Pool swap = pool;
+            pool = sparePool;
+            sparePool = swap;
+        }
+        rootPlayer = player;
+        rootOpponent = opponent;
+    }
+
+    /**
+     * Plays two plies.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param move     square index of the move of the player, or {@link SearchEngine#PASS}
+     * @param reply    square index of the reply of the opponent, or {@link SearchEngine#PASS}
+     * @return discs of the player and of the opponent after both plies
+     */
+    private static long[] play(long player, long opponent, int move, int reply) {
+        if (move != SearchEngine.PASS) {
+            long flips = Bitboard.flips(player, opponent, move);
+            player |= flips | (1L << move);
+            opponent &= ~flips;
+        }
+        if (reply != SearchEngine.PASS) {
+            long flips = Bitboard.flips(opponent, player, reply);
+            opponent |= flips | (1L << reply);
+            player &= ~flips;
+        }
+        return new long[]{player, opponent};
+    }
+
+    /**
+     * Gets the most visited child of the root.
+     *
+     * @return node index of the child, {@code -1} if the root has no children
+     */
+    private int bestChild() {
+        int first = pool.children.get(0);
+        int best = -1;
+        long bestVisits = -1;
+        for (int child = first; first > 0 && child < first + pool.childCounts[0]; child++) {
+            long visits = visits(pool.stats.get(child));
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the number of visits of packed node statistics.
+     *
+     * @param stats packed statistics
+     * @return number of visits
+     */
+    private static long visits(long stats) {
+        return stats >>> 32;
+    }
+
+    /**
+     * Gets the score of packed node statistics.
+     *
+     * @param stats packed statistics
+     * @return sum of playout scores, {@link MonteCarloTreeSearch#WIN} for every win
+     */
+    private static long score(long stats) {
+        return stats & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Gets the expected result of the most visited move of the last search.
+     *
+     * @return win rate in range 0 to 1 from the point of view of the player to move
+     */
+    double getWinRate() {
+        int best = bestChild();
+        long stats = best < 0 ? 0 : pool.stats.get(best);
+        return visits(stats) == 0 ? 0 : score(stats) / (double) (WIN * visits(stats));
+    }
+
+    /**
+     * Gets the number of playouts of the last search.
+     *
+     * @return number of playouts
+     */
+    long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Gets the speed of the last search.
+     *
+     * @return playouts per second
+     */
+    long getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playouts * 1000000000L / elapsedNanos;
+    }
+
+    /**
+     * Gets the number of nodes of the tree.
+     *
+     * @return number of nodes
+     */
+    int getNodeCount() {
+        return pool.size.get();
+    }
+
+    /**
+     * Terminates the search threads, the search can not be used anymore.
+     */
+    void shutdown() {
+        threadPool.shutdown();
+    }
+
+    /**
+     * Nodes of a tree in primitive arrays. Node 0 is the root and children of a node are stored as one block.
+     */
+    private static class Pool {
+        /**
+         * Move of every node, a square index or {@link SearchEngine#PASS}
+         */
+        private final byte[] moves;
+        /**
+         * Number of children of every node
+         */
+        private final byte[] childCounts;
+        /**
+         * Index of the first child of every node, {@code 0} for a leaf and {@link MonteCarloTreeSearch#EXPANDING}
+         * while it is being expanded
+         */
+        private final AtomicIntegerArray children;
+        /**
+         * Packed statistics of every node, visits in the high 32 bits and the score in the low 32 bits
+         */
+        private final AtomicLongArray stats;
+        /**
+         * Number of used nodes
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Constructor of the pool.
+         *
+         * @param capacity maximum number of nodes
+         */
+        private Pool(int capacity) {
+            moves = new byte[capacity];
+            childCounts = new byte[capacity];
+            children = new AtomicIntegerArray(capacity);
+            stats = new AtomicLongArray(capacity);
+        }
+
+        /**
+         * Allocates a block of nodes.
+         *
+         * @param count number of nodes
+         * @return index of the first node, {@code -1} if the pool is full
+         */
+        private int allocate(int count) {
+            while (true) {
+                int first = size.get();
+                if (first + count > moves.length) {
+                    return -1;
+                }
+                if (size.compareAndSet(first, first + count)) {
+                    return first;
+                }
+            }
+        }
+
+        /**
+         * Clears the pool and adds an unvisited root.
+         */
+        private void clear() {
+            size.set(1);
+            children.set(0, 0);
+            stats.set(0, 0);
+        }
+
+        /**
+         * Replaces the nodes of this pool with a subtree of another pool in breadth-first order, so children of a node
+         * stay in one block.
+         *
+         * @param source pool of the subtree
+         * @param root   index of the root of the subtree in the source pool
+         */
+        private void copySubtree(Pool source, int root) {
+            clear();
+            moves[0] = source.moves[root];
+            stats.set(0, source.stats.get(root));
+            int[] sourceIndexes = new int[Math.min(source.size.get(), moves.length)];
+            sourceIndexes[0] = root;
+            for (int node = 0; node < size.get(); node++) {
+                int sourceNode = sourceIndexes[node];
+                int sourceFirst = source.children.get(sourceNode);
+                if (sourceFirst <= 0) {
+                    continue;
+                }
+                int count = source.childCounts[sourceNode];
+                int first = allocate(count);
+                for (int i = 0; i < count; i++) {
+                    sourceIndexes[first + i] = sourceFirst + i;
+                    moves[first + i] = source.moves[sourceFirst + i];
+                    children.set(first + i, 0);
+                    stats.set(first + i, source.stats.get(sourceFirst + i));
+                }
+                childCounts[node] = (byte) count;
+                children.set(node, first);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package othello;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis of every valid move of a position, for example to review a finished game. Every move is searched on its
+ * own with the other root moves left out, one iteration of iterative deepening at a time, and the iterations of all
+ * moves are queued in turn on a thread pool, so all moves deepen together even if there are fewer threads than moves.
+ * The score of every completed iteration is sent to an {@link AnalysisListener}. All searches share one
+ * {@link TranspositionTable}, so every iteration takes over the move ordering of the iterations before it.
+ * <br>
+ * The analysis of a single move can be cancelled while the other moves go on, and the whole analysis is stopped when
+ * its time budget runs out. Moves are ranked by their scores at the deepest depth completed by all of them, so the
+ * ranking compares scores of the same depth.
+ * <br>
+ * Usage: {@code MoveAnalyzer [moves] [seconds] [depth] [threads] [evaluator]}, moves are the moves from the start
+ * position in NBoard format like {@code F5D6C3} or {@code -} for the start position and an evaluator is
+ * {@code heuristic}, the path of a neural weights file ending with {@code .nnue} or the path of a pattern weights
+ * file. By default the start position is analyzed for 5 seconds to depth 60 with the heuristic evaluator on all
+ * available processors.
+ */
+public class MoveAnalyzer {
+    /**
+     * Transposition table size of the analysis in megabytes
+     */
+    private static final int HASH_MEGABYTES = 64;
+    /**
+     * Transposition table shared by all searches
+     */
+    private TranspositionTable transpositionTable;
+    /**
+     * Maximum search depth of every move, including the move itself
+     */
+    private int maxDepth;
+    /**
+     * Thread pool of the iterations
+     */
+    private ExecutorService pool;
+    /**
+     * Search engine of every pool thread
+     */
+    private ThreadLocal<SearchEngine> engines;
+
+    /**
+     * Constructor of the analyzer.
+     *
+     * @param evaluator evaluation function of the searches, copied for every thread
+     * @param maxDepth  maximum search depth of every move, including the move itself
+     * @param threads   number of search threads
+     */
+    MoveAnalyzer(Evaluator evaluator, int maxDepth, int threads) {
+        this.maxDepth = Math.min(maxDepth, SearchEngine.MAX_DEPTH);
+        transpositionTable = new TranspositionTable(HASH_MEGABYTES);
+        engines = ThreadLocal.withInitial(() -> new SearchEngine(evaluator.copy(), transpositionTable, maxDepth, 0));
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The main method of the analyzer.
+     *
+     * @param args optional moves, seconds, depth, number of threads and evaluator
+     * @throws IOException          if the evaluator can not be loaded
+     * @throws InterruptedException if the main thread is interrupted while waiting for the analysis
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String moves = args.length > 0 && !args[0].equals("-") ? args[0] : "";
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : SearchEngine.MAX_DEPTH;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Evaluator evaluator = Evaluator.load(args.length > 4 ? args[4] : "heuristic");
+
+        Board board = new Board();
+        int color = Board.BLACK;
+        for (int i = 0; i + 2 <= moves.length(); i += 2) {
+            int square = NBoardProtocol.parseSquare(moves.substring(i, i + 2));
+            if (square < 0 || board.makeMove(color, square) == 0) {
+                throw new IllegalArgumentException("Invalid move " + moves.substring(i, i + 2));
+            }
+            color = board.nextTurn(color);
+        }
+
+        MoveAnalyzer analyzer = new MoveAnalyzer(evaluator, depth, threads);
+        List<MoveResult> ranking = analyzer.analyze(board, color, seconds * 1000,
+                (move, completedDepth, score, line) -> System.out.printf("depth %2d %s %+7.2f %s%n", completedDepth,
+                        NBoardProtocol.squareName(move), score / (double) Evaluator.DISC_SCORE, formatLine(line)));
+        analyzer.shutdown();
+        System.out.println();
+        for (MoveResult result : ranking) {
+            System.out.printf("%s %+7.2f depth %2d %s%n", NBoardProtocol.squareName(result.getMove()),
+                    result.getScore() / (double) Evaluator.DISC_SCORE, result.getDepth(),
+                    formatLine(result.getPrincipalVariation()));
+        }
+    }
+
+    /**
+     * Formats a line of play.
+     *
+     * @param line square indexes of the moves
+     * @return moves in NBoard format separated by spaces
+     */
+    private static String formatLine(int[] line) {
+        StringBuilder builder = new StringBuilder();
+        for (int move : line) {
+            builder.append(builder.length() == 0 ? "" : " ").append(NBoardProtocol.squareName(move));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Analyzes every valid move of a position within a time budget.
+     *
+     * @param board        board of the position, not changed by the analysis
+     * @param color        color index of the player to move
+     * @param budgetMillis time budget in milliseconds
+     * @param listener     receiver of the improving scores, {@code null} if nobody listens
+     * @return results of all moves, best move first
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the analysis
+     */
+    List<MoveResult> analyze(Board board, int color, long budgetMillis, AnalysisListener listener)
+            throws InterruptedException {
+        Analysis analysis = start(board, color, listener);
+        if (!analysis.await(budgetMillis)) {
+            analysis.stop();
+            analysis.await(Long.MAX_VALUE);
+        }
+        return analysis.getRanking();
+    }
+
+    /**
+     * Starts the analysis of every valid move of a position, the analysis runs until every move reaches the maximum
+     * depth or it is stopped.
+     *
+     * @param board    board of the position, not changed by the analysis
+     * @param color    color index of the player to move
+     * @param listener receiver of the improving scores, {@code null} if nobody listens
+     * @return the running analysis
+     */
+    Analysis start(Board board, int color, AnalysisListener listener) {
+        transpositionTable.newSearch();
+        int depthLimit = Math.min(maxDepth, board.getEmptyCount());
+        List<MoveResult> results = new ArrayList<>();
+        for (long moves = board.getValidMoves(color); moves != 0; moves = Bitboard.removeFirst(moves)) {
+            results.add(new MoveResult(Bitboard.firstSquare(moves), new Board(board)));
+        }
+        Analysis analysis = new Analysis(results, color, depthLimit, listener);
+        for (MoveResult result : results) {
+            pool.execute(() -> searchIteration(analysis, result, 1));
+        }
+        return analysis;
+    }
+
+    /**
+     * Searches one iteration of a move and queues the next one.
+     *
+     * @param analysis analysis of the move
+     * @param result   result of the move
+     * @param depth    depth of the iteration
+     */
+    private void searchIteration(Analysis analysis, MoveResult result, int depth) {
+        SearchEngine engine = engines.get();
+        //the engine is published before the cancel check, so a cancel request either is seen here or stops the engine
+        result.engine = engine;
+        engine.clearStop();
+        if (result.cancelled) {
+            result.engine = null;
+            analysis.finished.countDown();
+            return;
+        }
+        engine.setRootMoves(1L << result.move);
+        engine.setMaxDepth(depth);
+        engine.search(result.board, analysis.color, depth);
+        result.engine = null;
+        if (engine.getDepth() == depth) {
+            int[] line = engine.getPrincipalVariation();
+            result.update(depth, engine.getScore(), line);
+            if (analysis.listener != null) {
+                analysis.listener.moveAnalyzed(result.move, depth, engine.getScore(), line);
+            }
+            if (depth == analysis.depthLimit) {
+                analysis.finished.countDown();
+            } else {
+                pool.execute(() -> searchIteration(analysis, result, depth + 1));
+            }
+        } else {
+            //stopped by a cancel request of this move or of a move that ran on the same engine before
+            pool.execute(() -> searchIteration(analysis, result, depth));
+        }
+    }
+
+    /**
+     * Stops the threads of the analyzer, running analyses are not finished.
+     */
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * A running or finished analysis of all moves of a position.
+     */
+    static class Analysis {
+        /**
+         * Results of all moves
+         */
+        private List<MoveResult> results;
+        /**
+         * Color index of the player to move
+         */
+        private int color;
+        /**
+         * Depth where the analysis of a move is finished
+         */
+        private int depthLimit;
+        /**
+         * Receiver of the improving scores, {@code null} if nobody listens
+         */
+        private AnalysisListener listener;
+        /**
+         * Counted down once for every move when its analysis is finished or cancelled
+         */
+        private CountDownLatch finished;
+
+        /**
+         * Constructor of the analysis.
+         *
+         * @param results    results of all moves
+         * @param color      color index of the player to move
+         * @param depthLimit depth where the analysis of a move is finished
+         * @param listener   receiver of the improving scores, {@code null} if nobody listens
+         */
+        private Analysis(List<MoveResult> results, int color, int depthLimit, AnalysisListener listener) {
+            this.results = results;
+            this.color = color;
+            this.depthLimit = depthLimit;
+            this.listener = listener;
+            finished = new CountDownLatch(results.size());
+        }
+
+        /**
+         * Gets the results of all moves, in square order.
+         *
+         * @return results that keep improving while the analysis runs
+         */
+        List<MoveResult> getResults() {
+            return Collections.unmodifiableList(results);
+        }
+
+        /**
+         * Waits until the analysis of every move is finished or cancelled.
+         *
+         * @param millis maximum waiting time in milliseconds
+         * @return {@code true} if the analysis is finished, {@code false} if the waiting time ran out
+         * @throws InterruptedException if the calling thread is interrupted while waiting
+         */
+        boolean await(long millis) throws InterruptedException {
+            return finished.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Cancels the analysis of every move, the results of completed iterations are kept.
+         */
+        void stop() {
+            for (MoveResult result : results) {
+                result.cancel();
+            }
+        }
+
+        /**
+         * Ranks the moves by their scores at the deepest depth completed by all moves that completed at least one
+         * iteration, moves without any completed iteration come last.
+         *
+         * @return results of all moves, best move first
+         */
+        List<MoveResult> getRanking() {
+            int commonDepth = SearchEngine.MAX_DEPTH;
+            for (MoveResult result : results) {
+                if (result.getDepth() > 0) {
+                    commonDepth = Math.min(commonDepth, result.getDepth());
+                }
+            }
+            int rankDepth = commonDepth;
+            List<MoveResult> ranking = new ArrayList<>(results);
+            ranking.sort((a, b) -> {
+                if (a.getDepth() == 0 || b.getDepth() == 0) {
+                    return Integer.compare(b.getDepth(), a.getDepth());
+                }
+                return Integer.compare(b.getScore(rankDepth), a.getScore(rankDepth));
+            });
+            return ranking;
+        }
+    }
+
+    /**
+     * Improving result of the analysis of one move.
+     */
+    static class MoveResult {
+        /**
+         * Square index of the move
+         */
+        private final int move;
+        /**
+         * Board of the position, used by one search at a time
+         */
+        private final Board board;
+        /**
+         * Score of every completed depth
+         */
+        private final int[] scores = new int[SearchEngine.MAX_DEPTH + 1];
+        /**
+         * Deepest completed depth, {@code 0} before the first iteration
+         */
+        private int depth;
+        /**
+         * Principal variation of the deepest completed depth
+         */
+        private int[] principalVariation = new int[0];
+        /**
+         * Whether the analysis of the move is cancelled
+         */
+        private volatile boolean cancelled;
+        /**
+         * Engine that is searching the move, {@code null} between iterations
+         */
+        private volatile SearchEngine engine;
+
+        /**
+         * Constructor of the result.
+         *
+         * @param move  square index of the move
+         * @param board board of the position
+         */
+        private MoveResult(int move, Board board) {
+            this.move = move;
+            this.board = board;
+        }
+
+        /**
+         * Stores the result of a completed iteration.
+         *
+         * @param depth              completed depth
+         * @param score              score of the move
+         * @param principalVariation expected line of play starting with the move
+         */
+        private synchronized void update(int depth, int score, int[] principalVariation) {
+            this.depth = depth;
+            scores[depth] = score;
+            this.principalVariation = principalVariation;
+        }
+
+        /**
+         * Cancels the analysis of the move and stops its running iteration. This method can be called from any
+         * thread.
+         */
+        void cancel() {
+            cancelled = true;
+            SearchEngine running = engine;
+            if (running != null) {
+                running.stop();
+            }
+        }
+
+        /**
+         * Checks whether the analysis of the move is cancelled.
+         *
+         * @return {@code true} if it is cancelled
+         */
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Gets the move.
+         *
+         * @return square index of the move
+         */
+        int getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the deepest completed depth.
+         *
+         * @return depth including the move itself, {@code 0} before the first iteration
+         */
+        synchronized int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets the score of the deepest completed depth.
+         *
+         * @return score from the point of view of the player to move
+         */
+        synchronized int getScore() {
+            return scores[depth];
+        }
+
+        /**
+         * Gets the score of a completed depth.
+         *
+         * @param depth completed depth
+         * @return score from the point of view of the player to move
+         */
+        synchronized int getScore(int depth) {
+            return scores[depth];
+        }
+
+        /**
+         * Gets the principal variation of the deepest completed depth.
+         *
+         * @return square indexes of the expected line of play starting with the move
+         */
+        synchronized int[] getPrincipalVariation() {
+            return principalVariation.clone();
+        }
+    }
+}
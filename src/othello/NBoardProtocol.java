@@ -0,0 +1,401 @@
+package othello;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Engine mode that talks the NBoard protocol over standard input and output, so the engine can be used by othello GUIs
+ * and match tools. Commands are read on the calling thread and searches run on a worker thread, so the engine answers
+ * every command at once and a new command stops the running search.
+ * <br>
+ * Supported commands are {@code nboard}, {@code set depth}, {@code set game} (GGF game), {@code set ponder on|off},
+ * {@code move}, {@code go}, {@code hint}, {@code ping}, {@code stop} and {@code quit}. While {@code go} searches, the
+ * result of every completed iteration is sent as a {@code status} line, and {@code hint} sends it as a {@code search}
+ * line. After answering {@code go} the engine ponders on the position after its move until the next command, and the
+ * results are kept in the shared transposition table.
+ */
+class NBoardProtocol {
+    /**
+     * Name of the engine sent to the GUI
+     */
+    private static final String ENGINE_NAME = "Othello";
+    /**
+     * Search depth until the GUI sets one
+     */
+    private static final int DEFAULT_DEPTH = 12;
+    /**
+     * Transposition table size in megabytes
+     */
+    private static final int HASH_MEGABYTES = 128;
+    /**
+     * Maximum number of empty cells where the game is solved to the end instead of searched
+     */
+    private static final int ENDGAME_EMPTIES = 16;
+    /**
+     * Property pattern of GGF games, a property name and a value in brackets
+     */
+    private static final Pattern GGF_PROPERTY = Pattern.compile("([A-Z]+)\\[([^\\]]*)\\]");
+    /**
+     * Reader of commands
+     */
+    private BufferedReader in;
+    /**
+     * Writer of answers, every line is printed with one call so lines of the worker thread are not mixed
+     */
+    private PrintStream out;
+    /**
+     * Board of the current position
+     */
+    private Board board = new Board();
+    /**
+     * Color index of the player to move
+     */
+    private int color = Board.BLACK;
+    /**
+     * Search depth set by the GUI
+     */
+    private int depth = DEFAULT_DEPTH;
+    /**
+     * Whether the engine ponders after its moves
+     */
+    private boolean ponder = true;
+    /**
+     * Search engine of all searches
+     */
+    private ParallelSearchEngine engine;
+    /**
+     * Solver of the endgame
+     */
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    /**
+     * Worker thread of searches
+     */
+    private ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nboard-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Running or last search task, {@code null} before the first search
+     */
+    private Future<?> task;
+
+    /**
+     * Constructor of the protocol.
+     *
+     * @param in        reader of commands
+     * @param out       writer of answers
+     * @param evaluator evaluation function of the search
+     * @param threads   number of search threads
+     */
+    NBoardProtocol(BufferedReader in, PrintStream out, Evaluator evaluator, int threads) {
+        this.in = in;
+        this.out = out;
+        engine = new ParallelSearchEngine(evaluator, new TranspositionTable(HASH_MEGABYTES), depth, 0, threads);
+    }
+
+    /**
+     * Reads and executes commands until the input ends or {@code quit} is received.
+     *
+     * @throws IOException if the input can not be read
+     */
+    void run() throws IOException {
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                line = line.trim();
+                if (!line.isEmpty() && !execute(line)) {
+                    break;
+                }
+            }
+        } finally {
+            stopSearch();
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes a command. Every command except {@code nboard} stops the running search first.
+     *
+     * @param line command line
+     * @return {@code false} if the engine quits
+     */
+    private boolean execute(String line) {
+        String[] words = line.split("\\s+");
+        if (!words[0].equals("nboard")) {
+            stopSearch();
+        }
+        switch (words[0]) {
+            case "nboard":
+                out.println("set myname " + ENGINE_NAME);
+                break;
+            case "set":
+                set(words, line);
+                break;
+            case "move":
+                if (words.length < 2 || !playMove(words[1].split("/")[0])) {
+                    out.println("status invalid move " + line);
+                }
+                break;
+            case "go":
+                task = worker.submit(this::go);
+                break;
+            case "hint":
+                task = worker.submit(this::hint);
+                break;
+            case "ping":
+                out.println("pong" + (words.length > 1 ? " " + words[1] : ""));
+                break;
+            case "stop":
+            case "learn":
+            case "analyze":
+                break;
+            case "quit":
+                return false;
+            default:
+                out.println("status unknown command " + words[0]);
+        }
+        return true;
+    }
+
+    /**
+     * Executes a {@code set} command.
+     *
+     * @param words words of the command
+     * @param line  command line
+     */
+    private void set(String[] words, String line) {
+        if (words.length < 3) {
+            return;
+        }
+        switch (words[1]) {
+            case "depth":
+                try {
+                    depth = Math.max(1, Math.min(SearchEngine.MAX_DEPTH, Integer.parseInt(words[2])));
+                } catch (NumberFormatException e) {
+                    out.println("status invalid depth");
+                }
+                break;
+            case "game":
+                if (!setGame(line.substring(line.indexOf("game") + 4).trim())) {
+                    out.println("status invalid game");
+                }
+                break;
+            case "ponder":
+                ponder = words[2].equals("on");
+                break;
+            default:
+                //other settings like contempt are not supported
+        }
+    }
+
+    /**
+     * Sets the position of a GGF game, the start position of the game with all its moves applied.
+     *
+     * @param game GGF game
+     * @return {@code true} if the game is valid
+     */
+    private boolean setGame(String game) {
+        Board newBoard = null;
+        int newColor = Board.BLACK;
+        Matcher matcher = GGF_PROPERTY.matcher(game);
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String value = matcher.group(2).trim();
+            if (name.equals("BO")) {
+                String[] parts = value.split("\\s+");
+                if (parts.length != 3 || !parts[0].equals("8") || parts[1].length() != 64) {
+                    return false;
+                }
+                long black = 0;
+                long white = 0;
+                for (int square = 0; square < 64; square++) {
+                    char cell = parts[1].charAt(square);
+                    if (cell == '*') {
+                        black |= 1L << square;
+                    } else if (cell == 'O') {
+                        white |= 1L << square;
+                    }
+                }
+                newBoard = new Board(black, white);
+                newColor = parts[2].equals("*") ? Board.BLACK : Board.WHITE;
+            } else if (name.equals("B") || name.equals("W")) {
+                int moveColor = name.equals("B") ? Board.BLACK : Board.WHITE;
+                int square = parseSquare(value.split("/")[0]);
+                if (newBoard == null || (square >= 0 && newBoard.makeMove(moveColor, square) == 0)) {
+                    return false;
+                }
+                newColor = moveColor ^ 1;
+            }
+        }
+        if (newBoard == null) {
+            return false;
+        }
+        board = newBoard;
+        color = newColor;
+        return true;
+    }
+
+    /**
+     * Plays a move of the player to move.
+     *
+     * @param move move in NBoard format, a column letter and a row number or {@code PA} for a pass
+     * @return {@code true} if the move is valid
+     */
+    private boolean playMove(String move) {
+        int square = parseSquare(move);
+        if (square == -2 || (square == -1 && board.getValidMoves(color) != 0)
+                || (square >= 0 && board.makeMove(color, square) == 0)) {
+            return false;
+        }
+        color ^= 1;
+        return true;
+    }
+
+    /**
+     * Parses a move in NBoard format.
+     *
+     * @param move column letter and row number, or {@code PA} for a pass
+     * @return square index of the move, {@code -1} for a pass and {@code -2} if the move is not valid
+     */
+    static int parseSquare(String move) {
+        String text = move.trim().toUpperCase();
+        if (text.equals("PA") || text.equals("PASS")) {
+            return -1;
+        }
+        if (text.length() != 2 || text.charAt(0) < 'A' || text.charAt(0) > 'H' || text.charAt(1) < '1'
+                || text.charAt(1) > '8') {
+            return -2;
+        }
+        return Bitboard.square(text.charAt(1) - '1', text.charAt(0) - 'A');
+    }
+
+    /**
+     * Formats a move in NBoard format.
+     *
+     * @param square square index of the move, {@link SearchEngine#PASS} or a negative number for a pass
+     * @return column letter and row number, or {@code PA} for a pass
+     */
+    static String squareName(int square) {
+        if (square < 0 || square == SearchEngine.PASS) {
+            return "PA";
+        }
+        return "" + (char) ('A' + Bitboard.column(square)) + (char) ('1' + Bitboard.row(square));
+    }
+
+    /**
+     * Formats a principal variation, moves without separators as NBoard expects them.
+     *
+     * @param principalVariation square indexes of the line
+     * @return formatted line
+     */
+    private static String formatLine(int[] principalVariation) {
+        StringBuilder builder = new StringBuilder();
+        for (int move : principalVariation) {
+            builder.append(squareName(move));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Searches the best move, sends it and ponders on the position after it. Runs on the worker thread.
+     */
+    private void go() {
+        Board searchBoard = new Board(board);
+        if (searchBoard.getValidMoves(color) == 0) {
+            out.println("=== PA");
+            return;
+        }
+        long start = System.nanoTime();
+        int move;
+        int score;
+        long nodes;
+        if (searchBoard.getEmptyCount() <= Math.min(depth, ENDGAME_EMPTIES)) {
+            move = endgameSolver.solve(searchBoard, color, false);
+            score = endgameSolver.getScore() * Evaluator.DISC_SCORE;
+            nodes = endgameSolver.getNodes();
+            if (!endgameSolver.isStopped()) {
+                out.printf("status solved %+.2f%n", score / (double) Evaluator.DISC_SCORE);
+            }
+        } else {
+            engine.setMaxDepth(depth);
+            engine.setListener((completedDepth, iterationScore, line, iterationNodes, elapsedNanos) ->
+                    out.printf("status depth %d %+.2f %s %d nodes%n", completedDepth,
+                            iterationScore / (double) Evaluator.DISC_SCORE, formatLine(line), iterationNodes));
+            move = engine.search(searchBoard, color);
+            engine.setListener(null);
+            score = engine.getScore();
+            nodes = engine.getNodes();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("=== %s/%.2f/%.3f%n", squareName(move), score / (double) Evaluator.DISC_SCORE, seconds);
+        out.printf("nodestats %d %.3f%n", nodes, seconds);
+        if (ponder && !Thread.currentThread().isInterrupted()) {
+            searchBoard.makeMove(color, move);
+            int opponent = color ^ 1;
+            if (searchBoard.getValidMoves(opponent) != 0
+                    && searchBoard.getEmptyCount() > Math.min(depth, ENDGAME_EMPTIES)) {
+                //the search runs until the next command stops it
+                engine.setMaxDepth(SearchEngine.MAX_DEPTH);
+                engine.search(searchBoard, opponent);
+            }
+        }
+    }
+
+    /**
+     * Searches the best move and sends the result of every iteration as a {@code search} line. Runs on the worker
+     * thread.
+     */
+    private void hint() {
+        Board searchBoard = new Board(board);
+        if (searchBoard.getValidMoves(color) != 0) {
+            if (searchBoard.getEmptyCount() <= Math.min(depth, ENDGAME_EMPTIES)) {
+                int move = endgameSolver.solve(searchBoard, color, false);
+                if (!endgameSolver.isStopped()) {
+                    out.printf("search %s %d 0 100%%%n", squareName(move), endgameSolver.getScore());
+                }
+            } else {
+                engine.setMaxDepth(depth);
+                engine.setListener((completedDepth, score, line, nodes, elapsedNanos) ->
+                        out.printf("search %s %.2f 0 %d%n", formatLine(line), score / (double) Evaluator.DISC_SCORE,
+                                completedDepth));
+                engine.search(searchBoard, color);
+                engine.setListener(null);
+            }
+        }
+        out.println("status");
+    }
+
+    /**
+     * Stops the running search or endgame solve and waits for its task to finish. The stop request is repeated until
+     * the task finishes, so a search that starts just after a request is stopped too.
+     */
+    private void stopSearch() {
+        if (task == null) {
+            return;
+        }
+        while (!task.isDone()) {
+            engine.stop();
+            endgameSolver.stop();
+            try {
+                task.get(10, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                //the search has not seen the request yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search failed", e.getCause());
+            }
+        }
+        task = null;
+    }
+}
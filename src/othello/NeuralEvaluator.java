@@ -0,0 +1,318 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Evaluation function based on a small neural network with quantized weights, updated efficiently like NNUE. The input
+ * features are the discs of the board seen from one color: one feature per square for the discs of that color and one
+ * for the discs of the other color. The first layer is kept as an accumulator per color, the sum of the first layer
+ * weights of all active features plus the bias, and a move only adds and subtracts the weight rows of the new disc and
+ * the reversed discs. The accumulators of the player to move and of the opponent go through a clipped ReLU and one
+ * output neuron, so an evaluation costs two passes over the hidden layer.
+ * <br>
+ * Accumulators are kept on a stack with one entry per applied move: a move copies the top entry to the next one and
+ * updates it, taking back a move only pops the stack. All weights are {@code short} values and all loops run over
+ * whole hidden layer rows, so they are vectorized by the JIT compiler.
+ * <br>
+ * The weights file starts with five {@code int} values: magic number, version, hidden layer size, output bias and
+ * output scale. Then {@code short} values follow: the first layer weights of the 128 features, feature {@code s} for a
+ * disc of the own color at square {@code s} and {@code 64 + s} for a disc of the other color, each a row of hidden
+ * layer size, then the hidden biases, then the output weights of the own accumulator and of the other accumulator.
+ */
+class NeuralEvaluator implements Evaluator {
+    /**
+     * Magic number at the beginning of weights files
+     */
+    static final int MAGIC = 0x4F4E4E55;
+    /**
+     * Version of the weights file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Number of input features of one color
+     */
+    static final int FEATURES = 128;
+    /**
+     * Upper limit of the clipped ReLU activation, the quantization unit of accumulator values is
+     * {@code 1 / ACTIVATION_LIMIT}
+     */
+    static final int ACTIVATION_LIMIT = 255;
+    /**
+     * Maximum hidden layer size, the {@code int} sum over one accumulator can not overflow up to this size
+     */
+    static final int MAX_HIDDEN = Integer.MAX_VALUE / (ACTIVATION_LIMIT * -Short.MIN_VALUE);
+    /**
+     * Limit of the absolute value of first layer weights and biases, the sum of a bias and the weights of 64 discs
+     * fits in a {@code short} accumulator
+     */
+    static final int FEATURE_LIMIT = Short.MAX_VALUE / 65;
+    /**
+     * Size of the weights file header in bytes
+     */
+    private static final int HEADER_BYTES = 20;
+    /**
+     * Maximum number of stack entries, one for the searched position and one for every applied move
+     */
+    private static final int STACK_SIZE = Board.MAX_MOVES + 1;
+    /**
+     * Hidden layer size
+     */
+    private final int hidden;
+    /**
+     * First layer weights, the row of feature {@code f} starts at {@code f * hidden}
+     */
+    private final short[] featureWeights;
+    /**
+     * First layer biases
+     */
+    private final short[] biases;
+    /**
+     * Output weights, the own accumulator first
+     */
+    private final short[] outputWeights;
+    /**
+     * Output bias in the units of the output sum
+     */
+    private final int outputBias;
+    /**
+     * Divisor that turns the output sum into a score in hundredths of a disc
+     */
+    private final int outputScale;
+    /**
+     * Accumulator stack of both colors, entry {@code e} of color {@code c} starts at {@code (e * 2 + c) * hidden}
+     */
+    private final short[] accumulators;
+    /**
+     * Index of the top stack entry
+     */
+    private int top;
+
+    /**
+     * Constructor of the evaluator.
+     *
+     * @param hidden         hidden layer size
+     * @param featureWeights first layer weights of all features
+     * @param biases         first layer biases
+     * @param outputWeights  output weights of the own accumulator and of the other accumulator
+     * @param outputBias     output bias
+     * @param outputScale    divisor of the output sum
+     */
+    NeuralEvaluator(int hidden, short[] featureWeights, short[] biases, short[] outputWeights, int outputBias,
+                    int outputScale) {
+        if (hidden <= 0 || hidden > MAX_HIDDEN || featureWeights.length != FEATURES * hidden
+                || biases.length != hidden || outputWeights.length != 2 * hidden || outputScale <= 0) {
+            throw new IllegalArgumentException("Inconsistent network dimensions");
+        }
+        if (!withinFeatureLimit(featureWeights) || !withinFeatureLimit(biases)) {
+            throw new IllegalArgumentException("First layer weights exceed " + FEATURE_LIMIT);
+        }
+        this.hidden = hidden;
+        this.featureWeights = featureWeights;
+        this.biases = biases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.outputScale = outputScale;
+        accumulators = new short[STACK_SIZE * 2 * hidden];
+    }
+
+    /**
+     * Loads the evaluator from a weights file.
+     *
+     * @param path path of the weights file
+     * @return the evaluator
+     * @throws IOException if the file can not be read or is not a valid weights file
+     */
+    static NeuralEvaluator load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = BinaryFiles.readFully(channel, HEADER_BYTES, "neural weights file");
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a neural weights file");
+            }
+            int hidden = header.getInt();
+            int outputBias = header.getInt();
+            int outputScale = header.getInt();
+            if (hidden <= 0 || hidden > MAX_HIDDEN || outputScale <= 0) {
+                throw new IOException("Corrupted neural weights file");
+            }
+            short[] featureWeights = new short[FEATURES * hidden];
+            short[] biases = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            ByteBuffer body = BinaryFiles.readFully(channel,
+                    (featureWeights.length + biases.length + outputWeights.length) * 2, "neural weights file");
+            body.asShortBuffer().get(featureWeights).get(biases).get(outputWeights);
+            try {
+                return new NeuralEvaluator(hidden, featureWeights, biases, outputWeights, outputBias, outputScale);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupted neural weights file: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks that no first layer weight can overflow an accumulator.
+     *
+     * @param weights weights to check
+     * @return {@code true} if the absolute value of every weight is at most {@link NeuralEvaluator#FEATURE_LIMIT}
+     */
+    private static boolean withinFeatureLimit(short[] weights) {
+        for (short weight : weights) {
+            if (weight < -FEATURE_LIMIT || weight > FEATURE_LIMIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Saves the weights of the evaluator to a weights file.
+     *
+     * @param path path of the weights file
+     * @throws IOException if the file can not be written
+     */
+    void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES
+                + (featureWeights.length + biases.length + outputWeights.length) * 2);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(outputBias).putInt(outputScale);
+        buffer.asShortBuffer().put(featureWeights).put(biases).put(outputWeights);
+        buffer.rewind();
+        BinaryFiles.write(path, buffer);
+    }
+
+
+    /**
+     * Computes the accumulators of both colors from scratch as the first stack entry.
+     *
+     * @param board board that is going to be searched
+     */
+    @Override
+    public void reset(Board board) {
+        top = 0;
+        for (int color = 0; color < 2; color++) {
+            int offset = color * hidden;
+            System.arraycopy(biases, 0, accumulators, offset, hidden);
+            for (long own = board.getDiscs(color); own != 0; own = Bitboard.removeFirst(own)) {
+                add(offset, Bitboard.firstSquare(own));
+            }
+            for (long other = board.getDiscs(color ^ 1); other != 0; other = Bitboard.removeFirst(other)) {
+                add(offset, 64 + Bitboard.firstSquare(other));
+            }
+        }
+    }
+
+    /**
+     * Pushes a stack entry with the new disc and the reversed discs added to the accumulators.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    @Override
+    public void makeMove(int color, int square, long flips) {
+        int from = top * 2 * hidden;
+        top++;
+        int to = top * 2 * hidden;
+        int moverOffset = to + color * hidden;
+        int otherOffset = to + (color ^ 1) * hidden;
+        //the new disc is an own disc of the mover and a disc of the other color for the opponent
+        addCopy(from + color * hidden, moverOffset, square);
+        addCopy(from + (color ^ 1) * hidden, otherOffset, 64 + square);
+        for (; flips != 0; flips = Bitboard.removeFirst(flips)) {
+            int flipped = Bitboard.firstSquare(flips);
+            move(moverOffset, 64 + flipped, flipped);
+            move(otherOffset, flipped, 64 + flipped);
+        }
+    }
+
+    /**
+     * Pops the stack entry of the move.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    @Override
+    public void unmakeMove(int color, int square, long flips) {
+        top--;
+    }
+
+    /**
+     * Adds the weight row of a feature to an accumulator.
+     *
+     * @param offset  start of the accumulator
+     * @param feature feature index
+     */
+    private void add(int offset, int feature) {
+        int row = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulators[offset + i] += featureWeights[row + i];
+        }
+    }
+
+    /**
+     * Copies an accumulator to another stack entry and adds the weight row of a feature.
+     *
+     * @param from    start of the source accumulator
+     * @param to      start of the target accumulator
+     * @param feature feature index
+     */
+    private void addCopy(int from, int to, int feature) {
+        int row = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulators[to + i] = (short) (accumulators[from + i] + featureWeights[row + i]);
+        }
+    }
+
+    /**
+     * Replaces a feature by another one in an accumulator.
+     *
+     * @param offset  start of the accumulator
+     * @param removed index of the removed feature
+     * @param added   index of the added feature
+     */
+    private void move(int offset, int removed, int added) {
+        int removedRow = removed * hidden;
+        int addedRow = added * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulators[offset + i] += featureWeights[addedRow + i] - featureWeights[removedRow + i];
+        }
+    }
+
+    /**
+     * Evaluates the current position from the accumulators of the top stack entry.
+     *
+     * @param board board to evaluate, must be in step with the accumulators
+     * @param color color index of the player to move
+     * @return estimated score of the player
+     */
+    @Override
+    public int evaluate(Board board, int color) {
+        int own = (top * 2 + color) * hidden;
+        int other = (top * 2 + (color ^ 1)) * hidden;
+        int ownSum = 0;
+        for (int i = 0; i < hidden; i++) {
+            int activation = Math.min(Math.max(accumulators[own + i], 0), ACTIVATION_LIMIT);
+            ownSum += activation * outputWeights[i];
+        }
+        int otherSum = 0;
+        for (int i = 0; i < hidden; i++) {
+            int activation = Math.min(Math.max(accumulators[other + i], 0), ACTIVATION_LIMIT);
+            otherSum += activation * outputWeights[hidden + i];
+        }
+        long sum = (long) outputBias + ownSum + otherSum;
+        return (int) (sum / outputScale);
+    }
+
+    /**
+     * Creates an evaluator with the same weights for another search thread.
+     *
+     * @return an evaluator with its own accumulator stack
+     */
+    @Override
+    public Evaluator copy() {
+        return new NeuralEvaluator(hidden, featureWeights, biases, outputWeights, outputBias, outputScale);
+    }
+}
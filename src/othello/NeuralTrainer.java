@@ -0,0 +1,309 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Fits the network of {@link NeuralEvaluator} to a training set by stochastic gradient descent on the squared error,
+ * then quantizes it to the {@code short} weights of the evaluator. The target of a position is a mix of its final disc
+ * difference and its searched score, like in {@link PatternTrainer}.
+ * <br>
+ * The network is trained in floating point with the same structure as the evaluator: an accumulator of the player to
+ * move and one of the opponent, each clipped to range 0 to 1, and one output neuron that gives the score in discs.
+ * Unlike the pattern weights, all weights of the network are used by every position, so the positions are fitted on
+ * one thread.
+ * <br>
+ * Usage: {@code NeuralTrainer <training set file> <weights file> [hidden] [epochs] [result weight]}, the weights file
+ * should end with {@code .nnue} to be recognized as neural weights by the tools. By default 32 hidden units, 10 epochs
+ * and result weight 0.5.
+ */
+public class NeuralTrainer {
+    /**
+     * Learning rate of the first epoch
+     */
+    private static final double LEARNING_RATE = 0.00005;
+    /**
+     * Factor of the learning rate after every epoch
+     */
+    private static final double LEARNING_RATE_DECAY = 0.8;
+    /**
+     * Range of the random initial first layer weights
+     */
+    private static final double INITIAL_WEIGHT = 0.1;
+    /**
+     * Quantization factor of the output weights, the output weight of one disc per full activation
+     */
+    private static final int OUTPUT_QUANTIZATION = 400;
+    /**
+     * Limit of first layer weights and biases during training, the limit of their quantized values
+     */
+    private static final float WEIGHT_LIMIT = (float) NeuralEvaluator.FEATURE_LIMIT / NeuralEvaluator.ACTIVATION_LIMIT;
+    /**
+     * Seed of the initial weights and of the position order of every epoch
+     */
+    private static final long SEED = 20200401;
+    /**
+     * Positions to fit
+     */
+    private TrainingSet trainingSet;
+    /**
+     * Hidden layer size
+     */
+    private int hidden;
+    /**
+     * Share of the final disc difference in the target
+     */
+    private double resultWeight;
+    /**
+     * First layer weights, the row of feature {@code f} starts at {@code f * hidden}
+     */
+    private float[] featureWeights;
+    /**
+     * First layer biases
+     */
+    private float[] biases;
+    /**
+     * Output weights, the accumulator of the player to move first
+     */
+    private float[] outputWeights;
+    /**
+     * Output bias in discs
+     */
+    private float outputBias;
+    /**
+     * Random generator of the initial weights and the position order
+     */
+    private SplittableRandom random = new SplittableRandom(SEED);
+
+    /**
+     * Constructor of the trainer, the first layer weights are initialized randomly.
+     *
+     * @param trainingSet  positions to fit
+     * @param hidden       hidden layer size
+     * @param resultWeight share of the final disc difference in the target
+     */
+    NeuralTrainer(TrainingSet trainingSet, int hidden, double resultWeight) {
+        if (hidden <= 0 || hidden > NeuralEvaluator.MAX_HIDDEN || resultWeight < 0 || resultWeight > 1) {
+            throw new IllegalArgumentException("Invalid hidden layer size or result weight");
+        }
+        this.trainingSet = trainingSet;
+        this.hidden = hidden;
+        this.resultWeight = resultWeight;
+        featureWeights = new float[NeuralEvaluator.FEATURES * hidden];
+        biases = new float[hidden];
+        outputWeights = new float[2 * hidden];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (float) ((random.nextDouble() * 2 - 1) * INITIAL_WEIGHT);
+        }
+        for (int i = 0; i < hidden; i++) {
+            biases[i] = 0.5f;
+            outputWeights[i] = (float) ((random.nextDouble() * 2 - 1) * INITIAL_WEIGHT);
+            outputWeights[hidden + i] = (float) ((random.nextDouble() * 2 - 1) * INITIAL_WEIGHT);
+        }
+    }
+
+    /**
+     * The main method of the neural trainer.
+     *
+     * @param args training set file, weights file, optional hidden layer size, number of epochs and result weight
+     * @throws IOException if the training set can not be read or the weights can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: NeuralTrainer <training set file> <weights file> [hidden] [epochs] "
+                    + "[result weight]");
+            return;
+        }
+        int hidden = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int epochs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        double resultWeight = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+
+        TrainingSet trainingSet = TrainingSet.load(Paths.get(args[0]));
+        System.out.printf("%d positions loaded%n", trainingSet.size());
+        NeuralTrainer trainer = new NeuralTrainer(trainingSet, hidden, resultWeight);
+        double learningRate = LEARNING_RATE;
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long start = System.nanoTime();
+            double error = trainer.fitEpoch(learningRate);
+            System.out.printf("Epoch %d: rms error %.2f discs, %.1f s%n", epoch, error,
+                    (System.nanoTime() - start) / 1e9);
+            learningRate *= LEARNING_RATE_DECAY;
+        }
+        trainer.quantize().save(Paths.get(args[1]));
+    }
+
+    /**
+     * Fits the network to all positions once, in a random order.
+     *
+     * @param learningRate learning rate of the epoch
+     * @return root mean square error of the epoch in discs
+     */
+    double fitEpoch(double learningRate) {
+        int size = trainingSet.size();
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = random.nextInt(i + 1);
+            positions[i] = positions[j];
+            positions[j] = i;
+        }
+        int[] ownFeatures = new int[64];
+        int[] otherFeatures = new int[64];
+        float[] ownAccumulator = new float[hidden];
+        float[] otherAccumulator = new float[hidden];
+        double squaredError = 0;
+        for (int position : positions) {
+            long player = trainingSet.getPlayer(position);
+            long opponent = trainingSet.getOpponent(position);
+            int count = features(player, opponent, ownFeatures);
+            features(opponent, player, otherFeatures);
+            accumulate(ownFeatures, count, ownAccumulator);
+            accumulate(otherFeatures, count, otherAccumulator);
+            double prediction = outputBias;
+            for (int i = 0; i < hidden; i++) {
+                prediction += activation(ownAccumulator[i]) * outputWeights[i]
+                        + activation(otherAccumulator[i]) * outputWeights[hidden + i];
+            }
+            double target = (resultWeight * trainingSet.getDiscDifference(position) * Evaluator.DISC_SCORE
+                    + (1 - resultWeight) * trainingSet.getScore(position)) / Evaluator.DISC_SCORE;
+            double error = prediction - target;
+            squaredError += error * error;
+            float step = (float) (learningRate * error);
+            outputBias -= step;
+            for (int i = 0; i < hidden; i++) {
+                //gradients of the accumulators pass the clipped activation only inside its linear range
+                float ownGradient = inRange(ownAccumulator[i]) ? step * outputWeights[i] : 0;
+                float otherGradient = inRange(otherAccumulator[i]) ? step * outputWeights[hidden + i] : 0;
+                outputWeights[i] -= step * activation(ownAccumulator[i]);
+                outputWeights[hidden + i] -= step * activation(otherAccumulator[i]);
+                ownAccumulator[i] = ownGradient;
+                otherAccumulator[i] = otherGradient;
+                biases[i] = clamp(biases[i] - ownGradient - otherGradient);
+            }
+            descend(ownFeatures, count, ownAccumulator);
+            descend(otherFeatures, count, otherAccumulator);
+        }
+        return Math.sqrt(squaredError / size);
+    }
+
+    /**
+     * Lists the active features of a position seen from one color.
+     *
+     * @param own      discs of the color
+     * @param other    discs of the other color
+     * @param features array to fill with feature indexes
+     * @return number of active features
+     */
+    private static int features(long own, long other, int[] features) {
+        int count = 0;
+        for (; own != 0; own = Bitboard.removeFirst(own)) {
+            features[count++] = Bitboard.firstSquare(own);
+        }
+        for (; other != 0; other = Bitboard.removeFirst(other)) {
+            features[count++] = 64 + Bitboard.firstSquare(other);
+        }
+        return count;
+    }
+
+    /**
+     * Computes an accumulator as the biases plus the first layer weights of the active features.
+     *
+     * @param features    active feature indexes
+     * @param count       number of active features
+     * @param accumulator array to fill with the accumulator
+     */
+    private void accumulate(int[] features, int count, float[] accumulator) {
+        System.arraycopy(biases, 0, accumulator, 0, hidden);
+        for (int f = 0; f < count; f++) {
+            int row = features[f] * hidden;
+            for (int i = 0; i < hidden; i++) {
+                accumulator[i] += featureWeights[row + i];
+            }
+        }
+    }
+
+    /**
+     * Subtracts the scaled gradient of an accumulator from the first layer weights of the active features.
+     *
+     * @param features active feature indexes
+     * @param count    number of active features
+     * @param gradient scaled gradient of the accumulator
+     */
+    private void descend(int[] features, int count, float[] gradient) {
+        for (int f = 0; f < count; f++) {
+            int row = features[f] * hidden;
+            for (int i = 0; i < hidden; i++) {
+                featureWeights[row + i] = clamp(featureWeights[row + i] - gradient[i]);
+            }
+        }
+    }
+
+    /**
+     * Computes the clipped ReLU activation.
+     *
+     * @param value accumulator value
+     * @return value clipped to range 0 to 1
+     */
+    private static float activation(float value) {
+        return Math.min(Math.max(value, 0), 1);
+    }
+
+    /**
+     * Clamps a first layer weight or bias to the range that can be quantized without overflow of the accumulators.
+     *
+     * @param value weight or bias
+     * @return value clamped to range {@code -WEIGHT_LIMIT} to {@code WEIGHT_LIMIT}
+     */
+    private static float clamp(float value) {
+        return Math.min(Math.max(value, -WEIGHT_LIMIT), WEIGHT_LIMIT);
+    }
+
+    /**
+     * Checks whether an accumulator value is in the linear range of the activation.
+     *
+     * @param value accumulator value
+     * @return {@code true} if the value is between 0 and 1
+     */
+    private static boolean inRange(float value) {
+        return value > 0 && value < 1;
+    }
+
+    /**
+     * Quantizes the network to an evaluator. An activation of 1 becomes {@link NeuralEvaluator#ACTIVATION_LIMIT} and
+     * the output weights are multiplied by {@link NeuralTrainer#OUTPUT_QUANTIZATION}, so the output scale turns the
+     * output sum into hundredths of a disc. First layer weights and biases are kept in a range during training, so no
+     * accumulator can overflow.
+     *
+     * @return the evaluator
+     */
+    NeuralEvaluator quantize() {
+        short[] quantizedFeatures = new short[featureWeights.length];
+        for (int i = 0; i < featureWeights.length; i++) {
+            quantizedFeatures[i] = toShort(featureWeights[i] * NeuralEvaluator.ACTIVATION_LIMIT,
+                    NeuralEvaluator.FEATURE_LIMIT);
+        }
+        short[] quantizedBiases = new short[hidden];
+        for (int i = 0; i < hidden; i++) {
+            quantizedBiases[i] = toShort(biases[i] * NeuralEvaluator.ACTIVATION_LIMIT,
+                    NeuralEvaluator.FEATURE_LIMIT);
+        }
+        short[] quantizedOutputs = new short[2 * hidden];
+        for (int i = 0; i < 2 * hidden; i++) {
+            quantizedOutputs[i] = toShort(outputWeights[i] * OUTPUT_QUANTIZATION, Short.MAX_VALUE);
+        }
+        int scale = NeuralEvaluator.ACTIVATION_LIMIT * OUTPUT_QUANTIZATION;
+        return new NeuralEvaluator(hidden, quantizedFeatures, quantizedBiases, quantizedOutputs,
+                (int) Math.round((double) outputBias * scale), scale / Evaluator.DISC_SCORE);
+    }
+
+    /**
+     * Rounds a value to the nearest {@code short} value within a limit.
+     *
+     * @param value value to round
+     * @param limit limit of the absolute value of the result
+     * @return rounded value, clamped to range {@code -limit} to {@code limit}
+     */
+    private static short toShort(double value, int limit) {
+        return (short) Math.max(-limit, Math.min(limit, Math.round(value)));
+    }
+}
@@ -0,0 +1,171 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary opening book that keeps the best move of known positions. The book file is memory-mapped, so opening a book
+ * does not load it into the heap and every lookup reads only the entries it probes.
+ * <br>
+ * The file starts with a header of four {@code int} values: magic number, version, capacity (a power of two) and
+ * number of entries. Then an open-addressing hash table of {@code capacity} slots follows, each slot is 16 bytes:
+ * canonical position hash ({@code long}, {@code 0} for empty slots), score ({@code short}, from the point of view of
+ * the player to move), best move ({@code byte}), search depth ({@code byte}) and four reserved bytes. A position is
+ * kept at slot {@code hash & (capacity - 1)} or the next empty slots after it.
+ * <br>
+ * Positions are stored in their canonical orientation (see {@link Symmetry}), so one entry serves all eight
+ * equivalent orientations of a position.
+ */
+class OpeningBook {
+    /**
+     * Magic number at the beginning of book files
+     */
+    static final int MAGIC = 0x4F424B31;
+    /**
+     * Version of the book file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the file header in bytes
+     */
+    static final int HEADER_BYTES = 16;
+    /**
+     * Size of every slot in bytes
+     */
+    static final int SLOT_BYTES = 16;
+    /**
+     * Memory-mapped content of the book file
+     */
+    private ByteBuffer buffer;
+    /**
+     * Mask of the hash bits that select the first slot
+     */
+    private int slotMask;
+    /**
+     * Number of positions in the book
+     */
+    private int size;
+
+    /**
+     * Constructor of the opening book on a mapped book file.
+     *
+     * @param buffer content of the book file
+     * @throws IOException if the content is not a valid book
+     */
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an opening book file");
+        }
+        int capacity = buffer.getInt(8);
+        int size = buffer.getInt(12);
+        //a lookup probes until it finds an empty slot, so a book needs at least one
+        if (Integer.bitCount(capacity) != 1 || HEADER_BYTES + (long) capacity * SLOT_BYTES > buffer.capacity()
+                || size < 0 || size >= capacity) {
+            throw new IOException("Corrupted opening book file");
+        }
+        this.buffer = buffer;
+        this.slotMask = capacity - 1;
+        this.size = size;
+    }
+
+    /**
+     * Opens a book file by memory-mapping it.
+     *
+     * @param path path of the book file
+     * @return the opening book
+     * @throws IOException if the file can not be read or is not a valid book
+     */
+    static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Computes the key of a position in book files.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return canonical hash of the position, never {@code 0}
+     */
+    static long key(long player, long opponent) {
+        return key(player, opponent, Symmetry.canonicalSymmetry(player, opponent));
+    }
+
+    /**
+     * Computes the key of a position in book files with its already known canonical symmetry.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param symmetry symmetry index of the canonical orientation, see {@link Symmetry#canonicalSymmetry(long, long)}
+     * @return canonical hash of the position, never {@code 0}
+     */
+    static long key(long player, long opponent, int symmetry) {
+        long hash = Board.computeHash(Symmetry.transform(player, symmetry), Symmetry.transform(opponent, symmetry));
+        //zero marks empty slots
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Finds the book move of the specified color in the current position of the board.
+     *
+     * @param board board of the position
+     * @param color color index of the player to move
+     * @return square index of the book move, {@code -1} if the position is not in the book
+     */
+    int findMove(Board board, int color) {
+        long player = board.getDiscs(color);
+        long opponent = board.getDiscs(color ^ 1);
+        int symmetry = Symmetry.canonicalSymmetry(player, opponent);
+        int slot = findSlot(key(player, opponent, symmetry));
+        if (slot < 0) {
+            return -1;
+        }
+        int move = Symmetry.inverseTransformSquare(buffer.get(slot + 10), symmetry);
+        //a book built for another board or a hash collision must not produce an invalid move
+        return ((board.getValidMoves(color) >>> move) & 1) != 0 ? move : -1;
+    }
+
+    /**
+     * Checks whether a position is in the book.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return {@code true} if the position is in the book in any orientation
+     */
+    boolean contains(long player, long opponent) {
+        return findSlot(key(player, opponent)) >= 0;
+    }
+
+    /**
+     * Finds the slot of a position. At most all slots are probed once, so a full table of a damaged book can not
+     * hang the lookup.
+     *
+     * @param key key of the position
+     * @return byte offset of the slot in the book file, {@code -1} if the position is not in the book
+     */
+    private int findSlot(long key) {
+        for (int i = (int) key & slotMask, probes = 0; probes <= slotMask; i = (i + 1) & slotMask, probes++) {
+            int offset = HEADER_BYTES + i * SLOT_BYTES;
+            long slotKey = buffer.getLong(offset);
+            if (slotKey == key) {
+                return offset;
+            } else if (slotKey == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of positions in the book.
+     *
+     * @return number of positions
+     */
+    int size() {
+        return size;
+    }
+}
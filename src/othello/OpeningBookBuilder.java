@@ -0,0 +1,141 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file. All positions reachable from the start position in the specified number of moves
+ * are collected in their canonical orientation, every position is searched to the specified depth and the best moves
+ * are written to the book file.
+ * <br>
+ * Usage: {@code OpeningBookBuilder <book file> [moves] [depth]}, by default 6 moves and depth 10.
+ */
+public class OpeningBookBuilder {
+    /**
+     * Transposition table size of the book search in megabytes
+     */
+    private static final int HASH_MEGABYTES = 256;
+    /**
+     * Canonical positions of the book, keyed by their book key, each value is the player and opponent bitboards
+     */
+    private Map<Long, long[]> positions = new LinkedHashMap<>();
+
+    /**
+     * The main method of the builder.
+     *
+     * @param args book file path, optional number of moves and search depth
+     * @throws IOException if the book file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: OpeningBookBuilder <book file> [moves] [depth]");
+            return;
+        }
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        build(Paths.get(args[0]), moves, depth);
+    }
+
+    /**
+     * Builds a book of all positions reachable from the start position in the specified number of moves.
+     *
+     * @param path  path of the book file
+     * @param moves number of moves from the start position
+     * @param depth search depth of every position
+     * @throws IOException if the book file can not be written
+     */
+    static void build(Path path, int moves, int depth) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        Board start = new Board();
+        builder.collect(start.getDiscs(Board.BLACK), start.getDiscs(Board.WHITE), moves);
+        System.out.println(builder.positions.size() + " positions");
+        builder.write(path, depth);
+    }
+
+    /**
+     * Collects the position and all positions reachable from it in the specified number of moves.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param moves    remaining number of moves
+     */
+    private void collect(long player, long opponent, int moves) {
+        long validMoves = Bitboard.validMoves(player, opponent);
+        if (validMoves == 0) {
+            if (Bitboard.validMoves(opponent, player) != 0) {
+                //pass
+                collect(opponent, player, moves);
+            }
+            return;
+        }
+        int symmetry = Symmetry.canonicalSymmetry(player, opponent);
+        long canonicalPlayer = Symmetry.transform(player, symmetry);
+        long canonicalOpponent = Symmetry.transform(opponent, symmetry);
+        Long key = OpeningBook.key(player, opponent, symmetry);
+        if (positions.containsKey(key)) {
+            //all positions after a known position are already collected
+            return;
+        }
+        positions.put(key, new long[]{canonicalPlayer, canonicalOpponent});
+        if (moves == 0) {
+            return;
+        }
+        for (; validMoves != 0; validMoves = Bitboard.removeFirst(validMoves)) {
+            int move = Bitboard.firstSquare(validMoves);
+            long flips = Bitboard.flips(player, opponent, move);
+            collect(opponent & ~flips, player | flips | (1L << move), moves - 1);
+        }
+    }
+
+    /**
+     * Searches all collected positions and writes the book file.
+     *
+     * @param path  path of the book file
+     * @param depth search depth of every position
+     * @throws IOException if the book file can not be written
+     */
+    private void write(Path path, int depth) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(1, positions.size() * 2 - 1)) << 1;
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + capacity * OpeningBook.SLOT_BYTES);
+        buffer.putInt(0, OpeningBook.MAGIC);
+        buffer.putInt(4, OpeningBook.VERSION);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, positions.size());
+
+        SearchEngine engine = new SearchEngine(new HeuristicEvaluator(), new TranspositionTable(HASH_MEGABYTES),
+                depth, 0);
+        int done = 0;
+        for (Map.Entry<Long, long[]> entry : positions.entrySet()) {
+            long key = entry.getKey();
+            //the canonical player is searched as black
+            Board board = new Board(entry.getValue()[0], entry.getValue()[1]);
+            int move = engine.search(board, Board.BLACK);
+            int score = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, engine.getScore()));
+            int slot = (int) key & (capacity - 1);
+            while (buffer.getLong(OpeningBook.HEADER_BYTES + slot * OpeningBook.SLOT_BYTES) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            int offset = OpeningBook.HEADER_BYTES + slot * OpeningBook.SLOT_BYTES;
+            buffer.putLong(offset, key);
+            buffer.putShort(offset + 8, (short) score);
+            buffer.put(offset + 10, (byte) move);
+            buffer.put(offset + 11, (byte) engine.getDepth());
+            if (++done % 1000 == 0) {
+                System.out.println(done + " positions searched");
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
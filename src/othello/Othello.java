@@ -1,11 +1,58 @@
 package othello;
 
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * The Othello game class that performs the othello game.
  */
 public class Othello {
+    /**
+     * Time limit of every move of the alpha-beta and Monte Carlo computer players in milliseconds
+     */
+    private static final long ENGINE_TIME_LIMIT_MILLIS = 2000;
+    /**
+     * Transposition table size of the alpha-beta computer player in megabytes
+     */
+    private static final int ENGINE_HASH_MEGABYTES = 64;
+    /**
+     * Number of search threads of the alpha-beta and Monte Carlo computer players
+     */
+    private static final int ENGINE_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * Search tree size of the Monte Carlo computer player in megabytes
+     */
+    private static final int MCTS_TREE_MEGABYTES = 128;
+    /**
+     * Number of empty cells where the alpha-beta computer player starts to solve the game to the end
+     */
+    private static final int ENGINE_ENDGAME_EMPTIES = 16;
+    /**
+     * Opening book file of the alpha-beta computer player, used if it exists in the working directory
+     */
+    private static final String OPENING_BOOK_FILE = "othello.book";
+    /**
+     * Pattern weights file of the alpha-beta computer player, used if it exists in the working directory
+     */
+    private static final String PATTERN_WEIGHTS_FILE = "othello.weights";
+    /**
+     * Neural weights file of the alpha-beta computer player, used instead of the pattern weights if it exists
+     */
+    private static final String NEURAL_WEIGHTS_FILE = "othello" + Evaluator.NEURAL_WEIGHTS_EXTENSION;
+    /**
+     * Game record file, every finished game is appended to it
+     */
+    private static final String GAME_RECORD_FILE = "othello.games";
     /**
      * A two member array that holds the game players, first member is player1 and second member is player2
      */
@@ -27,11 +74,19 @@ public class Othello {
     }
 
     /**
-     * The main method of the othello game.
+     * The main method of the othello game. With the {@code --nboard} argument the engine talks the NBoard protocol
+     * over standard input and output instead of showing the menu.
      *
      * @param args program arguments
+     * @throws IOException if the standard input can not be read in NBoard mode
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--nboard")) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+            PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "US-ASCII");
+            new NBoardProtocol(in, out, loadEvaluator(), ENGINE_THREADS).run();
+            return;
+        }
         Othello othello = new Othello();
         othello.play();
     }
@@ -52,6 +107,12 @@ public class Othello {
                 case "1":
                     playHumanToComputer();
                     break;
+                case "3":
+                    playHumanToAlphaBetaComputer();
+                    break;
+                case "4":
+                    playHumanToMctsComputer();
+                    break;
                 default:
                     System.out.println("Invalid game mode, try again");
             }
@@ -71,6 +132,8 @@ public class Othello {
         System.out.println("0. Exit");
         System.out.println("1. One player (play with computer)");
         System.out.println("2. Two player (play with opponent)");
+        System.out.println("3. One player (play with alpha-beta computer)");
+        System.out.println("4. One player (play with Monte Carlo computer)");
         return scanner.nextLine().trim();
     }
 
@@ -88,34 +151,39 @@ public class Othello {
      * The game cycle will be handled here.
      */
     private void doPlaying() {
+        long startMillis = System.currentTimeMillis();
+        byte[] moves = new byte[Board.MAX_MOVES];
+        int moveCount = 0;
         boolean end = false;
         while (!end) {
             printBoard();
             printTurn();
-            String nextMove = turn.getNextMove();
-            //gets next move from user until input string has valid syntax
-            while (isInvalidMoveString(nextMove)) {
-                System.out.println("Input format must be like \"I C\", I is a number in range [1-8] and C is a character in range [A-H].");
+            int nextMove = turn.getNextMove();
+            //gets next move from user until it is a valid move on board
+            while (nextMove == Player.PASS || !board.isValidMove(turn.getPiece(), Bitboard.row(nextMove),
+                    Bitboard.column(nextMove))) {
+                String moveStr = nextMove == Player.PASS ? "pass" : ComputerPlayer.convertToMoveStr(nextMove);
+                System.out.println(turn.toString() + " can't have \"" + moveStr + "\" move, please choose a valid move.");
                 nextMove = turn.getNextMove();
             }
-            int[] indexes = convertNextMoveToBoardIndex(nextMove);
-            //gets next move from user until input string is a valid move on board
-            while (!board.isValidMove(turn.getPiece(), indexes[0], indexes[1])) {
-                System.out.println(turn.toString() + " can't have \"" + nextMove + "\" move, please choose a valid move.");
-                nextMove = turn.getNextMove();
-                //gets next move from user until input string has valid syntax
-                while (isInvalidMoveString(nextMove)) {
-                    System.out.println("Input format must be like \"I C\", I is a number in range [1-8] and C is a character in range [A-H].");
-                    nextMove = turn.getNextMove();
+            if (!turn.isHuman()) {
+                String info = turn.getMoveInfo();
+                if (info != null) {
+                    System.out.println(info);
                 }
-                indexes = convertNextMoveToBoardIndex(nextMove);
+                System.out.println(ComputerPlayer.convertToMoveStr(nextMove));
             }
             //apply next move to the board
-            board.putPiece(turn.getPiece(), indexes[0], indexes[1]);
+            board.putPiece(turn.getPiece(), Bitboard.row(nextMove), Bitboard.column(nextMove));
+            moves[moveCount++] = (byte) nextMove;
             //checks that game is finished after applying the move
             if (board.isGameFinished()) {
                 printBoard();
                 win();
+                saveGame(startMillis, Arrays.copyOf(moves, moveCount));
+                for (Player player : players) {
+                    player.gameFinished();
+                }
                 end = true;
             } else {
                 changeTurn();
@@ -137,49 +205,6 @@ public class Othello {
         System.out.println(turn.toString() + ":");
     }
 
-    /**
-     * Validates syntax of the move string that entered be user. The input string format is "I C" that 'I' part is a
-     * number in range 1 to 8 and 'C' part is an upper case character in range A to H.
-     *
-     * @param moveString validating move string
-     * @return {@code true} if the move string is valid, {@code false} otherwise
-     */
-    private boolean isInvalidMoveString(String moveString) {
-        char row;
-        char column;
-        //input format should be 3 character in format "I C"
-        if (moveString.length() != 3) {
-            return true;
-        }
-        row = moveString.charAt(0);
-        column = moveString.charAt(2);
-        if (row != '1' && row != '2' && row != '3' && row != '4' && row != '5' && row != '6' && row != '7' && row != '8') {
-            return true;
-        }
-        if (moveString.charAt(1) != ' ') {
-            return true;
-        }
-        if (column != 'A' && column != 'B' && column != 'C' && column != 'D' && column != 'E' && column != 'F' && column != 'G' && column != 'H') {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Converts the move string to row and column indexes in the board. The input string format is "I C" that 'I' part
-     * is a number in range 1 to 8 and 'C' part is an upper case character in range A to H. Computed row and column
-     * indexes are both numbers in the range 0 to 7.
-     *
-     * @param nextMove move string
-     * @return an array with two members, 0 index indicates computed row and 1 index indicates computed column
-     */
-    private int[] convertNextMoveToBoardIndex(String nextMove) {
-        int[] result = new int[2];
-        result[0] = Character.getNumericValue(nextMove.charAt(0)) - 1;
-        result[1] = nextMove.charAt(2) - 65;
-        return result;
-    }
-
     /**
      * If there is no other valid moves, this method determines the winner and prints the game results.
      */
@@ -196,29 +221,38 @@ public class Othello {
         }
     }
 
+    /**
+     * Appends the finished game to the game record file.
+     *
+     * @param startMillis start time of the game in milliseconds since the epoch
+     * @param moves       square indexes of the moves in playing order
+     */
+    private void saveGame(long startMillis, byte[] moves) {
+        int discDifference = board.getColorCount(Board.BLACK_PIECE) - board.getColorCount(Board.WHITE_PIECE);
+        GameRecord record = new GameRecord(players[0].getName(), players[1].getName(), startMillis,
+                (int) (System.currentTimeMillis() - startMillis), discDifference, moves);
+        try (GameRecordWriter writer = GameRecordWriter.open(Paths.get(GAME_RECORD_FILE))) {
+            writer.write(record);
+        } catch (IOException e) {
+            System.out.println("Can't save the game: " + e.getMessage());
+        }
+    }
+
     /**
      * Determines next turn of the game and changes {@link Othello#turn} respectively. First, gives turn to the other
      * player. If there is no valid move to new player, it passes its turn and gives turn to current player,
      * and otherwise new player can choose a new move.
      */
     private void changeTurn() {
-        //give turn to other user
-        if (turn.equals(players[0])) {
-            turn = players[1];
-        } else {
-            turn = players[0];
-        }
-        //checks the other user has valid move or not
-        if (board.hasNoValidMoves(turn.getPiece())) {
+        int color = Board.colorOf(turn.getPiece());
+        Player other = turn.equals(players[0]) ? players[1] : players[0];
+        if (board.nextTurn(color) == color) {
+            //the other player has no valid move and passes
             printBoard();
-            //pass if there is no valid move for current user
-            printTurn();
+            System.out.println(other.toString() + ":");
             System.out.println("Pass");
-            if (turn.equals(players[0])) {
-                turn = players[1];
-            } else {
-                turn = players[0];
-            }
+        } else {
+            turn = other;
         }
     }
 
@@ -232,4 +266,66 @@ public class Othello {
         turn = players[0];
         doPlaying();
     }
+
+    /**
+     * Performs one player game mode that is playing human to the alpha-beta search computer. The player1 will be human
+     * player and the player2 will be computer player.
+     */
+    private void playHumanToAlphaBetaComputer() {
+        players[0] = new HumanPlayer("Player1", Board.BLACK_PIECE);
+        AlphaBetaPlayer computer = new AlphaBetaPlayer(board, Board.WHITE_PIECE, loadEvaluator(),
+                SearchEngine.MAX_DEPTH, ENGINE_TIME_LIMIT_MILLIS, ENGINE_HASH_MEGABYTES, ENGINE_THREADS,
+                ENGINE_ENDGAME_EMPTIES);
+        computer.setPondering(true);
+        Path bookPath = Paths.get(OPENING_BOOK_FILE);
+        if (Files.exists(bookPath)) {
+            try {
+                computer.setOpeningBook(OpeningBook.open(bookPath));
+            } catch (IOException e) {
+                System.out.println("Can't open opening book: " + e.getMessage());
+            }
+        }
+        players[1] = computer;
+        turn = players[0];
+        doPlaying();
+    }
+
+    /**
+     * Performs one player game mode that is playing human to the Monte Carlo tree search computer. The player1 will be
+     * human player and the player2 will be computer player.
+     */
+    private void playHumanToMctsComputer() {
+        players[0] = new HumanPlayer("Player1", Board.BLACK_PIECE);
+        players[1] = new MctsPlayer(board, Board.WHITE_PIECE, ENGINE_TIME_LIMIT_MILLIS, ENGINE_THREADS,
+                MCTS_TREE_MEGABYTES);
+        turn = players[0];
+        doPlaying();
+    }
+
+    /**
+     * Loads the evaluator of the alpha-beta computer player. The neural evaluator is used if its weights file exists
+     * in the working directory, then the pattern evaluator if its weights file exists, otherwise the heuristic
+     * evaluator.
+     *
+     * @return evaluator of the alpha-beta computer player
+     */
+    private static Evaluator loadEvaluator() {
+        Path neuralPath = Paths.get(NEURAL_WEIGHTS_FILE);
+        if (Files.exists(neuralPath)) {
+            try {
+                return NeuralEvaluator.load(neuralPath);
+            } catch (IOException e) {
+                System.err.println("Can't open neural weights: " + e.getMessage());
+            }
+        }
+        Path weightsPath = Paths.get(PATTERN_WEIGHTS_FILE);
+        if (Files.exists(weightsPath)) {
+            try {
+                return PatternEvaluator.load(weightsPath);
+            } catch (IOException e) {
+                System.err.println("Can't open pattern weights: " + e.getMessage());
+            }
+        }
+        return new HeuristicEvaluator();
+    }
 }
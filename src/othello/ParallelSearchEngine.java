@@ -0,0 +1,219 @@
+package othello;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded search with the Lazy SMP approach. Every thread runs its own {@link SearchEngine} on its own copy of
+ * the board and all engines share one {@link TranspositionTable}, so threads take over results of each other through
+ * the table. Every other helper thread starts iterative deepening one ply deeper, so threads are spread over
+ * different depths. The move of the main thread, which runs on the calling thread, is the result of the search.
+ */
+class ParallelSearchEngine {
+    /**
+     * Seconds an idle helper thread waits for the next search before it terminates
+     */
+    private static final long HELPER_KEEP_ALIVE_SECONDS = 60;
+    /**
+     * Transposition table shared by all threads
+     */
+    private TranspositionTable transpositionTable;
+    /**
+     * Engine of the main thread
+     */
+    private SearchEngine mainEngine;
+    /**
+     * Engines of the helper threads
+     */
+    private SearchEngine[] helperEngines;
+    /**
+     * Futures of running helper searches
+     */
+    private Future<?>[] helperFutures;
+    /**
+     * Thread pool of the helper threads
+     */
+    private ThreadPoolExecutor helperPool;
+    /**
+     * Total number of nodes visited by all threads in the last search
+     */
+    private long nodes;
+
+    /**
+     * Constructor of the parallel search engine.
+     *
+     * @param evaluator          evaluation function used at the leaves of the search, copied for every helper thread
+     * @param transpositionTable transposition table shared by all threads
+     * @param maxDepth           maximum search depth
+     * @param timeLimitMillis    time limit of every search in milliseconds, {@code 0} for no limit
+     * @param threads            number of search threads, including the calling thread, at least 1
+     */
+    ParallelSearchEngine(Evaluator evaluator, TranspositionTable transpositionTable, int maxDepth,
+                         long timeLimitMillis, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Expected at least 1 search thread, got " + threads);
+        }
+        this.transpositionTable = transpositionTable;
+        mainEngine = new SearchEngine(evaluator, transpositionTable, maxDepth, timeLimitMillis);
+        helperEngines = new SearchEngine[threads - 1];
+        helperFutures = new Future<?>[threads - 1];
+        for (int i = 0; i < helperEngines.length; i++) {
+            helperEngines[i] = new SearchEngine(evaluator.copy(), transpositionTable, maxDepth, timeLimitMillis);
+        }
+        if (helperEngines.length > 0) {
+            helperPool = new ThreadPoolExecutor(helperEngines.length, helperEngines.length,
+                    HELPER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "search-helper");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            helperPool.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Searches the best move of the specified color in the current position of the board with all threads.
+     *
+     * @param board board to search
+     * @param color color index of the player to move
+     * @return square index of the best move, {@code -1} if there is no valid move
+     */
+    int search(Board board, final int color) {
+        transpositionTable.newSearch();
+        mainEngine.clearStop();
+        for (int i = 0; i < helperEngines.length; i++) {
+            final SearchEngine helper = helperEngines[i];
+            final Board helperBoard = new Board(board);
+            final int firstDepth = 1 + (i + 1) % 2;
+            helper.clearStop();
+            helperFutures[i] = helperPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    helper.search(helperBoard, color, firstDepth);
+                }
+            });
+        }
+        int move = mainEngine.search(board, color, 1);
+        nodes = mainEngine.getNodes();
+        for (int i = 0; i < helperEngines.length; i++) {
+            helperEngines[i].stop();
+        }
+        for (int i = 0; i < helperEngines.length; i++) {
+            try {
+                helperFutures[i].get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+            nodes += helperEngines[i].getNodes();
+        }
+        return move;
+    }
+
+    /**
+     * Sets the receiver of the results of completed iterations of the main thread.
+     *
+     * @param listener search listener, {@code null} to remove the listener
+     */
+    void setListener(SearchListener listener) {
+        mainEngine.setListener(listener);
+    }
+
+    /**
+     * Sets the maximum depth of the next searches on all threads.
+     *
+     * @param maxDepth maximum search depth
+     */
+    void setMaxDepth(int maxDepth) {
+        mainEngine.setMaxDepth(maxDepth);
+        for (SearchEngine helper : helperEngines) {
+            helper.setMaxDepth(maxDepth);
+        }
+    }
+
+    /**
+     * Sets the time limit of the next searches on all threads.
+     *
+     * @param timeLimitMillis time limit of every search in milliseconds, {@code 0} for no limit
+     */
+    void setTimeLimit(long timeLimitMillis) {
+        mainEngine.setTimeLimit(timeLimitMillis);
+        for (SearchEngine helper : helperEngines) {
+            helper.setTimeLimit(timeLimitMillis);
+        }
+    }
+
+    /**
+     * Requests the running search to stop on all threads. This method can be called from any thread.
+     */
+    void stop() {
+        mainEngine.stop();
+        for (SearchEngine helper : helperEngines) {
+            helper.stop();
+        }
+    }
+
+    /**
+     * Gets the score of the last search.
+     *
+     * @return score of the best move from the point of view of the player to move
+     */
+    int getScore() {
+        return mainEngine.getScore();
+    }
+
+    /**
+     * Gets the depth of the last completed iteration of the main thread in the last search.
+     *
+     * @return completed search depth
+     */
+    int getDepth() {
+        return mainEngine.getDepth();
+    }
+
+    /**
+     * Gets the principal variation of the last search.
+     *
+     * @return square indexes of the expected line of play, passes are {@link SearchEngine#PASS}
+     */
+    int[] getPrincipalVariation() {
+        return mainEngine.getPrincipalVariation();
+    }
+
+    /**
+     * Gets the number of nodes visited by all threads in the last search.
+     *
+     * @return number of nodes
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the duration of the last search.
+     *
+     * @return duration in nanoseconds
+     */
+    long getElapsedNanos() {
+        return mainEngine.getElapsedNanos();
+    }
+
+    /**
+     * Gets the speed of all threads in the last search.
+     *
+     * @return visited nodes per second
+     */
+    long getNodesPerSecond() {
+        long elapsedNanos = getElapsedNanos();
+        return elapsedNanos == 0 ? 0 : nodes * 1000000000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,355 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Evaluation function based on patterns. A pattern is a fixed list of cells, and every state of those cells has its
+ * own weight. The evaluation is the sum of weights of the current states of all pattern instances: edges with the two
+ * X-squares, 3 by 3 corners, 2 by 5 corners and diagonals of length 4 to 8, in all orientations of the board.
+ * <br>
+ * The state of an instance is a base-3 code, the i-th cell of the instance adds {@code 3^i} if it has a disc of the
+ * player and {@code 2 * 3^i} if it has a disc of the opponent. Codes of both points of view are updated incrementally
+ * by every move, so an evaluation is only one table lookup per instance. Weights are kept per game stage (number of
+ * discs on the board) in one flat {@code short} array and are loaded from a binary weights file.
+ * <br>
+ * The weights file starts with three {@code int} values: magic number, version and number of stages. Then the weights
+ * of every stage follow as {@code short} values, pattern types in the order of {@link PatternEvaluator#PATTERNS} and
+ * codes in increasing order.
+ */
+class PatternEvaluator implements Evaluator {
+    /**
+     * Magic number at the beginning of weights files
+     */
+    static final int MAGIC = 0x4F504154;
+    /**
+     * Version of the weights file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the weights file header in bytes
+     */
+    private static final int HEADER_BYTES = 12;
+    /**
+     * Cells of every pattern type in one orientation, other instances are built by the board symmetries
+     */
+    private static final int[][] PATTERNS = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 9, 14},    //edge and two X-squares
+            {0, 1, 2, 8, 9, 10, 16, 17, 18},    //3 by 3 corner
+            {0, 1, 2, 3, 4, 8, 9, 10, 11, 12},  //2 by 5 corner
+            {0, 9, 18, 27, 36, 45, 54, 63},     //diagonal of length 8
+            {1, 10, 19, 28, 37, 46, 55},        //diagonal of length 7
+            {2, 11, 20, 29, 38, 47},            //diagonal of length 6
+            {3, 12, 21, 30, 39},                //diagonal of length 5
+            {4, 13, 22, 31}                     //diagonal of length 4
+    };
+    /**
+     * Offset of the weights of every pattern type in the weights of a stage
+     */
+    private static final int[] TYPE_OFFSETS = new int[PATTERNS.length];
+    /**
+     * Number of weights of every stage
+     */
+    static final int STAGE_WEIGHTS;
+    /**
+     * Cells of every pattern instance
+     */
+    private static final int[][] INSTANCE_SQUARES;
+    /**
+     * Offset of the weights of the pattern type of every instance, same as {@link PatternEvaluator#TYPE_OFFSETS}
+     */
+    private static final int[] INSTANCE_OFFSETS;
+    /**
+     * Number of pattern instances
+     */
+    static final int INSTANCES;
+    /**
+     * Instances that contain every square
+     */
+    private static final int[][] SQUARE_INSTANCES = new int[64][];
+    /**
+     * Code value of a player disc at every square in the instances of {@link PatternEvaluator#SQUARE_INSTANCES}
+     */
+    private static final int[][] SQUARE_POWERS = new int[64][];
+
+    static {
+        int offset = 0;
+        for (int type = 0; type < PATTERNS.length; type++) {
+            TYPE_OFFSETS[type] = offset;
+            offset += power3(PATTERNS[type].length);
+        }
+        STAGE_WEIGHTS = offset;
+
+        //builds all distinct instances of every pattern type
+        int[][] squares = new int[PATTERNS.length * Symmetry.COUNT][];
+        int[] offsets = new int[squares.length];
+        long[] cellSets = new long[squares.length];
+        int count = 0;
+        for (int type = 0; type < PATTERNS.length; type++) {
+            for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+                int[] instance = new int[PATTERNS[type].length];
+                long cells = 0;
+                for (int i = 0; i < instance.length; i++) {
+                    instance[i] = Symmetry.transformSquare(PATTERNS[type][i], symmetry);
+                    cells |= 1L << instance[i];
+                }
+                boolean duplicate = false;
+                for (int i = 0; i < count; i++) {
+                    duplicate |= cellSets[i] == cells && offsets[i] == TYPE_OFFSETS[type];
+                }
+                if (!duplicate) {
+                    squares[count] = instance;
+                    offsets[count] = TYPE_OFFSETS[type];
+                    cellSets[count] = cells;
+                    count++;
+                }
+            }
+        }
+        INSTANCES = count;
+        INSTANCE_SQUARES = new int[count][];
+        INSTANCE_OFFSETS = new int[count];
+        System.arraycopy(squares, 0, INSTANCE_SQUARES, 0, count);
+        System.arraycopy(offsets, 0, INSTANCE_OFFSETS, 0, count);
+
+        for (int square = 0; square < 64; square++) {
+            int found = 0;
+            int[] instances = new int[count];
+            int[] powers = new int[count];
+            for (int instance = 0; instance < count; instance++) {
+                for (int i = 0; i < INSTANCE_SQUARES[instance].length; i++) {
+                    if (INSTANCE_SQUARES[instance][i] == square) {
+                        instances[found] = instance;
+                        powers[found] = power3(i);
+                        found++;
+                    }
+                }
+            }
+            SQUARE_INSTANCES[square] = new int[found];
+            SQUARE_POWERS[square] = new int[found];
+            System.arraycopy(instances, 0, SQUARE_INSTANCES[square], 0, found);
+            System.arraycopy(powers, 0, SQUARE_POWERS[square], 0, found);
+        }
+    }
+
+    /**
+     * Weights of all stages, shared by all copies of the evaluator
+     */
+    private final short[] weights;
+    /**
+     * Number of game stages
+     */
+    private final int stages;
+    /**
+     * Codes of all instances from the point of view of every color
+     */
+    private int[][] codes = new int[2][INSTANCES];
+    /**
+     * Number of empty cells of the evaluated board
+     */
+    private int empties;
+
+    /**
+     * Constructor of the evaluator.
+     *
+     * @param weights weights of all stages
+     * @param stages  number of game stages
+     */
+    PatternEvaluator(short[] weights, int stages) {
+        if (weights.length != stages * STAGE_WEIGHTS) {
+            throw new IllegalArgumentException("Expected " + stages * STAGE_WEIGHTS + " weights");
+        }
+        this.weights = weights;
+        this.stages = stages;
+    }
+
+    /**
+     * Loads the evaluator from a weights file.
+     *
+     * @param path path of the weights file
+     * @return the evaluator
+     * @throws IOException if the file can not be read or is not a valid weights file
+     */
+    static PatternEvaluator load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = BinaryFiles.readFully(channel, HEADER_BYTES, "pattern weights file");
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a pattern weights file");
+            }
+            int stages = header.getInt();
+            if (stages <= 0 || stages > Board.MAX_MOVES + 1) {
+                throw new IOException("Corrupted pattern weights file");
+            }
+            short[] weights = new short[stages * STAGE_WEIGHTS];
+            BinaryFiles.readFully(channel, weights.length * 2, "pattern weights file").asShortBuffer().get(weights);
+            return new PatternEvaluator(weights, stages);
+        }
+    }
+
+    /**
+     * Saves weights to a weights file.
+     *
+     * @param path    path of the weights file
+     * @param weights weights of all stages
+     * @param stages  number of game stages
+     * @throws IOException if the file can not be written
+     */
+    static void save(Path path, short[] weights, int stages) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + weights.length * 2);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(stages);
+        buffer.asShortBuffer().put(weights);
+        buffer.rewind();
+        BinaryFiles.write(path, buffer);
+    }
+
+
+    /**
+     * Computes {@code 3^n}.
+     *
+     * @param n exponent
+     * @return power of three
+     */
+    private static int power3(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the game stage of a position.
+     *
+     * @param empties number of empty cells
+     * @param stages  number of game stages
+     * @return stage index in range 0 to {@code stages - 1}
+     */
+    static int stageOf(int empties, int stages) {
+        return (Board.MAX_MOVES - empties) * stages / (Board.MAX_MOVES + 1);
+    }
+
+    /**
+     * Computes the weight indexes of all instances of a position from scratch, relative to the first weight of the
+     * stage. Used to build training data of the weights.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param indexes  array to fill with {@link PatternEvaluator#INSTANCES} weight indexes
+     */
+    static void computeIndexes(long player, long opponent, int[] indexes) {
+        for (int instance = 0; instance < INSTANCES; instance++) {
+            int code = 0;
+            int[] squares = INSTANCE_SQUARES[instance];
+            for (int i = squares.length - 1; i >= 0; i--) {
+                code = code * 3 + (int) ((player >>> squares[i]) & 1) + 2 * (int) ((opponent >>> squares[i]) & 1);
+            }
+            indexes[instance] = INSTANCE_OFFSETS[instance] + code;
+        }
+    }
+
+    /**
+     * Initializes the codes of all instances from the current position of the board.
+     *
+     * @param board board that is going to be searched
+     */
+    @Override
+    public void reset(Board board) {
+        empties = board.getEmptyCount();
+        for (int color = 0; color < 2; color++) {
+            computeIndexes(board.getDiscs(color), board.getDiscs(color ^ 1), codes[color]);
+            for (int instance = 0; instance < INSTANCES; instance++) {
+                codes[color][instance] -= INSTANCE_OFFSETS[instance];
+            }
+        }
+    }
+
+    /**
+     * Updates the codes of instances that contain the new disc and the reversed discs.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    @Override
+    public void makeMove(int color, int square, long flips) {
+        int[] playerCodes = codes[color];
+        int[] opponentCodes = codes[color ^ 1];
+        int[] instances = SQUARE_INSTANCES[square];
+        int[] powers = SQUARE_POWERS[square];
+        for (int i = 0; i < instances.length; i++) {
+            //an empty cell becomes a player disc
+            playerCodes[instances[i]] += powers[i];
+            opponentCodes[instances[i]] += 2 * powers[i];
+        }
+        for (; flips != 0; flips = Bitboard.removeFirst(flips)) {
+            int flipped = Bitboard.firstSquare(flips);
+            instances = SQUARE_INSTANCES[flipped];
+            powers = SQUARE_POWERS[flipped];
+            for (int i = 0; i < instances.length; i++) {
+                //an opponent disc becomes a player disc
+                playerCodes[instances[i]] -= powers[i];
+                opponentCodes[instances[i]] += powers[i];
+            }
+        }
+        empties--;
+    }
+
+    /**
+     * Restores the codes of instances that contain the taken back disc and the reversed discs.
+     *
+     * @param color  color index of the player that moved
+     * @param square square index of the move
+     * @param flips  bitboard of reversed pieces
+     */
+    @Override
+    public void unmakeMove(int color, int square, long flips) {
+        int[] playerCodes = codes[color];
+        int[] opponentCodes = codes[color ^ 1];
+        int[] instances = SQUARE_INSTANCES[square];
+        int[] powers = SQUARE_POWERS[square];
+        for (int i = 0; i < instances.length; i++) {
+            playerCodes[instances[i]] -= powers[i];
+            opponentCodes[instances[i]] -= 2 * powers[i];
+        }
+        for (; flips != 0; flips = Bitboard.removeFirst(flips)) {
+            int flipped = Bitboard.firstSquare(flips);
+            instances = SQUARE_INSTANCES[flipped];
+            powers = SQUARE_POWERS[flipped];
+            for (int i = 0; i < instances.length; i++) {
+                playerCodes[instances[i]] += powers[i];
+                opponentCodes[instances[i]] -= powers[i];
+            }
+        }
+        empties++;
+    }
+
+    /**
+     * Evaluates the current position as the sum of weights of all instances in the current stage.
+     *
+     * @param board board to evaluate, must be in step with the codes
+     * @param color color index of the player to move
+     * @return estimated score of the player
+     */
+    @Override
+    public int evaluate(Board board, int color) {
+        int base = stageOf(empties, stages) * STAGE_WEIGHTS;
+        int[] colorCodes = codes[color];
+        int score = 0;
+        for (int instance = 0; instance < INSTANCES; instance++) {
+            score += weights[base + INSTANCE_OFFSETS[instance] + colorCodes[instance]];
+        }
+        return score;
+    }
+
+    /**
+     * Creates an evaluator with the same weights for another search thread.
+     *
+     * @return an evaluator with its own codes
+     */
+    @Override
+    public Evaluator copy() {
+        return new PatternEvaluator(weights, stages);
+    }
+}
@@ -0,0 +1,226 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits the weights of {@link PatternEvaluator} to a training set by stochastic gradient descent on the squared error.
+ * The target of a position is a mix of its final disc difference and its searched score. The weights of every game
+ * stage are only used by the positions of that stage, so every stage is fitted as an independent task on a thread
+ * pool, without any sharing of weights between threads.
+ * <br>
+ * Usage: {@code PatternTrainer <training set file> <weights file> [stages] [epochs] [threads] [result weight]}, the
+ * result weight in range 0 to 1 is the share of the final disc difference in the target. By default 12 stages, 20
+ * epochs, all available processors and result weight 0.5.
+ */
+public class PatternTrainer {
+    /**
+     * Learning rate of the prediction, the share of the error that is corrected by one step
+     */
+    private static final double LEARNING_RATE = 0.05;
+    /**
+     * Factor of the learning rate after every epoch
+     */
+    private static final double LEARNING_RATE_DECAY = 0.9;
+    /**
+     * Seed of the position order of every epoch
+     */
+    private static final long SEED = 20200401;
+    /**
+     * Positions to fit
+     */
+    private TrainingSet trainingSet;
+    /**
+     * Number of game stages
+     */
+    private int stages;
+    /**
+     * Number of passes over the positions of every stage
+     */
+    private int epochs;
+    /**
+     * Share of the final disc difference in the target
+     */
+    private double resultWeight;
+    /**
+     * Weights of all stages
+     */
+    private float[] weights;
+    /**
+     * Root mean square error of every stage in the last epoch, in hundredths of a disc
+     */
+    private double[] errors;
+    /**
+     * Indexes of the positions of every stage
+     */
+    private int[][] stagePositions;
+
+    /**
+     * Constructor of the trainer.
+     *
+     * @param trainingSet  positions to fit
+     * @param stages       number of game stages
+     * @param epochs       number of passes over the positions of every stage
+     * @param resultWeight share of the final disc difference in the target
+     */
+    PatternTrainer(TrainingSet trainingSet, int stages, int epochs, double resultWeight) {
+        if (stages <= 0 || stages > Board.MAX_MOVES + 1 || resultWeight < 0 || resultWeight > 1) {
+            throw new IllegalArgumentException("Invalid number of stages or result weight");
+        }
+        this.trainingSet = trainingSet;
+        this.stages = stages;
+        this.epochs = epochs;
+        this.resultWeight = resultWeight;
+        weights = new float[stages * PatternEvaluator.STAGE_WEIGHTS];
+        errors = new double[stages];
+        int[] counts = new int[stages];
+        for (int i = 0; i < trainingSet.size(); i++) {
+            counts[stageOf(i)]++;
+        }
+        stagePositions = new int[stages][];
+        for (int stage = 0; stage < stages; stage++) {
+            stagePositions[stage] = new int[counts[stage]];
+            counts[stage] = 0;
+        }
+        for (int i = 0; i < trainingSet.size(); i++) {
+            int stage = stageOf(i);
+            stagePositions[stage][counts[stage]++] = i;
+        }
+    }
+
+    /**
+     * The main method of the pattern trainer.
+     *
+     * @param args training set file, weights file, optional number of stages, epochs, threads and result weight
+     * @throws IOException          if the training set can not be read or the weights can not be written
+     * @throws InterruptedException if the main thread is interrupted while stages are fitted
+     * @throws ExecutionException   if fitting a stage fails
+     */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 2) {
+            System.out.println("Usage: PatternTrainer <training set file> <weights file> [stages] [epochs] [threads] "
+                    + "[result weight]");
+            return;
+        }
+        int stages = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int epochs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        double resultWeight = args.length > 5 ? Double.parseDouble(args[5]) : 0.5;
+
+        long start = System.nanoTime();
+        TrainingSet trainingSet = TrainingSet.load(Paths.get(args[0]));
+        System.out.printf("%d positions loaded in %.1f s%n", trainingSet.size(), (System.nanoTime() - start) / 1e9);
+        PatternTrainer trainer = new PatternTrainer(trainingSet, stages, epochs, resultWeight);
+        start = System.nanoTime();
+        trainer.fit(threads);
+        System.out.printf("Fitted in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        for (int stage = 0; stage < stages; stage++) {
+            System.out.printf("Stage %d: %d positions, rms error %.2f discs%n", stage,
+                    trainer.stagePositions[stage].length, trainer.errors[stage] / Evaluator.DISC_SCORE);
+        }
+        PatternEvaluator.save(Paths.get(args[1]), trainer.getWeights(), stages);
+    }
+
+    /**
+     * Computes the game stage of a position.
+     *
+     * @param index position index
+     * @return stage index
+     */
+    private int stageOf(int index) {
+        long occupied = trainingSet.getPlayer(index) | trainingSet.getOpponent(index);
+        return PatternEvaluator.stageOf(64 - Long.bitCount(occupied), stages);
+    }
+
+    /**
+     * Computes the target score of a position.
+     *
+     * @param index position index
+     * @return target in hundredths of a disc
+     */
+    private double targetOf(int index) {
+        return resultWeight * trainingSet.getDiscDifference(index) * Evaluator.DISC_SCORE
+                + (1 - resultWeight) * trainingSet.getScore(index);
+    }
+
+    /**
+     * Fits all stages on a thread pool and waits for them to finish.
+     *
+     * @param threads number of threads
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @throws ExecutionException   if fitting a stage fails
+     */
+    void fit(int threads) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int stage = stages - 1; stage >= 0; stage--) {
+                int fittedStage = stage;
+                futures.add(executor.submit(() -> fitStage(fittedStage)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Fits the weights of one stage, the positions are visited in a new random order in every epoch.
+     *
+     * @param stage stage index
+     */
+    private void fitStage(int stage) {
+        int[] positions = stagePositions[stage].clone();
+        int[] indexes = new int[PatternEvaluator.INSTANCES];
+        int base = stage * PatternEvaluator.STAGE_WEIGHTS;
+        SplittableRandom random = new SplittableRandom(SEED + stage);
+        double step = LEARNING_RATE / PatternEvaluator.INSTANCES;
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (int i = positions.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int position = positions[i];
+                positions[i] = positions[j];
+                positions[j] = position;
+            }
+            double squaredError = 0;
+            for (int position : positions) {
+                PatternEvaluator.computeIndexes(trainingSet.getPlayer(position), trainingSet.getOpponent(position),
+                        indexes);
+                double prediction = 0;
+                for (int index : indexes) {
+                    prediction += weights[base + index];
+                }
+                double error = targetOf(position) - prediction;
+                squaredError += error * error;
+                float correction = (float) (step * error);
+                for (int index : indexes) {
+                    weights[base + index] += correction;
+                }
+            }
+            errors[stage] = positions.length == 0 ? 0 : Math.sqrt(squaredError / positions.length);
+            step *= LEARNING_RATE_DECAY;
+        }
+    }
+
+    /**
+     * Gets the fitted weights rounded to the {@code short} weights of {@link PatternEvaluator}.
+     *
+     * @return weights of all stages
+     */
+    short[] getWeights() {
+        short[] rounded = new short[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            rounded[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(weights[i])));
+        }
+        return rounded;
+    }
+}
@@ -0,0 +1,215 @@
+package othello;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the game tree to a fixed depth from the start position with {@link Board#getValidMoves(int)},
+ * {@link Board#makeMove(int, int)} and {@link Board#unmakeMove()}. The counts are compared with the known perft
+ * numbers of othello, so the tool both verifies the move generation and measures its speed.
+ * <br>
+ * A pass is a move of its own and takes one ply, a finished game is a leaf even before the full depth. The first plies
+ * are split into fork/join tasks, each task on its own copy of the board. Optionally counts of subtrees are kept in a
+ * hash table shared by all tasks, which speeds up deep counts by reusing transpositions.
+ * <br>
+ * Usage: {@code Perft [depth] [threads] [hash megabytes]}, by default depth 9, all available processors and no hash.
+ */
+public class Perft {
+    /**
+     * Known leaf counts of every depth from the start position, index is the depth
+     */
+    static final long[] KNOWN_COUNTS = {1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288, 24571284, 212258800L,
+            1939886636L, 18429641748L, 184042084512L};
+    /**
+     * Number of plies that are split into parallel tasks
+     */
+    private static final int SPLIT_PLIES = 2;
+    /**
+     * Subtrees with fewer plies are not stored in the hash table
+     */
+    private static final int MIN_HASH_DEPTH = 3;
+    /**
+     * Hash table of subtree counts, {@code null} if hashing is disabled. Every slot is two longs, the key XORed with
+     * the count and the count, so a slot torn by concurrent writes is detected as a miss.
+     */
+    private final long[] table;
+    /**
+     * Mask of the hash bits that select a slot
+     */
+    private final int slotMask;
+
+    /**
+     * Constructor of the perft counter.
+     *
+     * @param hashMegabytes size of the hash table in megabytes, {@code 0} to disable hashing
+     */
+    Perft(int hashMegabytes) {
+        if (hashMegabytes > 0) {
+            int slots = Integer.highestOneBit((int) Math.min(1L << 28, hashMegabytes * (1L << 20) / 16));
+            table = new long[slots * 2];
+            slotMask = slots - 1;
+        } else {
+            table = null;
+            slotMask = 0;
+        }
+    }
+
+    /**
+     * The main method of perft.
+     *
+     * @param args optional depth, number of threads and hash table size in megabytes
+     */
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        Perft perft = new Perft(hashMegabytes);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        boolean failed = false;
+        System.out.println("depth          leaves    time(ms)       leaves/s  result");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long count = perft.countParallel(pool, new Board(), Board.BLACK, depth);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            String result = depth >= KNOWN_COUNTS.length ? "unknown"
+                    : count == KNOWN_COUNTS[depth] ? "ok" : "FAILED, expected " + KNOWN_COUNTS[depth];
+            failed |= depth < KNOWN_COUNTS.length && count != KNOWN_COUNTS[depth];
+            System.out.printf("%5d  %14d  %10d  %13d  %s%n", depth, count, nanos / 1000000,
+                    (long) (count * 1e9 / nanos), result);
+        }
+        pool.shutdown();
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of the game tree on a fork/join pool, the first plies are split into parallel tasks.
+     *
+     * @param pool  pool that runs the tasks
+     * @param board board of the position, it is not changed
+     * @param color color index of the player to move
+     * @param depth number of plies, at least 1
+     * @return number of leaf nodes
+     */
+    long countParallel(ForkJoinPool pool, Board board, int color, int depth) {
+        return pool.invoke(new Task(new Board(board), color, depth, false, 0));
+    }
+
+    /**
+     * Counts the leaf nodes of the game tree on the current thread.
+     *
+     * @param board  board of the position, restored before returning
+     * @param color  color index of the player to move
+     * @param depth  remaining number of plies
+     * @param passed {@code true} if the previous ply was a pass
+     * @return number of leaf nodes
+     */
+    long count(Board board, int color, int depth, boolean passed) {
+        long moves = board.getValidMoves(color);
+        if (moves == 0) {
+            if (passed) {
+                //both players have no move, the game is finished
+                return 1;
+            }
+            return depth == 1 ? 1 : count(board, color ^ 1, depth - 1, true);
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+        long key = 0;
+        if (table != null && depth >= MIN_HASH_DEPTH) {
+            key = board.getHash(color) + depth * 0x9E3779B97F4A7C15L;
+            int slot = ((int) key & slotMask) * 2;
+            long count = table[slot + 1];
+            if ((table[slot] ^ count) == key) {
+                return count;
+            }
+        }
+        long count = 0;
+        for (; moves != 0; moves = Bitboard.removeFirst(moves)) {
+            board.makeMove(color, Bitboard.firstSquare(moves));
+            count += count(board, color ^ 1, depth - 1, false);
+            board.unmakeMove();
+        }
+        if (key != 0) {
+            int slot = ((int) key & slotMask) * 2;
+            table[slot] = key ^ count;
+            table[slot + 1] = count;
+        }
+        return count;
+    }
+
+    /**
+     * Fork/join task that counts the leaf nodes of a subtree, the first plies are split into a task for every move.
+     */
+    private class Task extends RecursiveTask<Long> {
+        /**
+         * Version of the serialized form, tasks are never serialized
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Board of the subtree, owned by this task
+         */
+        private final Board board;
+        /**
+         * Color index of the player to move
+         */
+        private final int color;
+        /**
+         * Remaining number of plies
+         */
+        private final int depth;
+        /**
+         * {@code true} if the previous ply was a pass
+         */
+        private final boolean passed;
+        /**
+         * Number of plies from the start position
+         */
+        private final int ply;
+
+        /**
+         * Constructor of the task.
+         *
+         * @param board  board of the subtree, owned by this task
+         * @param color  color index of the player to move
+         * @param depth  remaining number of plies
+         * @param passed {@code true} if the previous ply was a pass
+         * @param ply    number of plies from the start position
+         */
+        Task(Board board, int color, int depth, boolean passed, int ply) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+            this.passed = passed;
+            this.ply = ply;
+        }
+
+        /**
+         * Counts the leaf nodes, splits the subtree if it is in the first plies.
+         *
+         * @return number of leaf nodes
+         */
+        @Override
+        protected Long compute() {
+            long moves = board.getValidMoves(color);
+            if (ply >= SPLIT_PLIES || depth <= 2 || moves == 0) {
+                return count(board, color, depth, passed);
+            }
+            Task[] tasks = new Task[Long.bitCount(moves)];
+            for (int i = 0; moves != 0; moves = Bitboard.removeFirst(moves), i++) {
+                Board child = new Board(board);
+                child.makeMove(color, Bitboard.firstSquare(moves));
+                tasks[i] = new Task(child, color ^ 1, depth - 1, false, ply + 1);
+            }
+            invokeAll(tasks);
+            long count = 0;
+            for (Task task : tasks) {
+                count += task.join();
+            }
+            return count;
+        }
+    }
+}
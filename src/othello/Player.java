@@ -4,6 +4,10 @@ package othello;
  * An othello player
  */
 abstract class Player {
+    /**
+     * Move code of passing the turn
+     */
+    static final int PASS = SearchEngine.PASS;
     /**
      * Player display name
      */
@@ -33,6 +37,15 @@ abstract class Player {
         return piece;
     }
 
+    /**
+     * Gets player's name.
+     *
+     * @return player's name
+     */
+    String getName() {
+        return name;
+    }
+
     /**
      * Gets display string of the player.
      *
@@ -43,10 +56,34 @@ abstract class Player {
         return name + " (" + getPiece().toString() + ")";
     }
 
+    /**
+     * Called when the game is finished, so the player can release resources it used during the game.
+     */
+    void gameFinished() {
+    }
+
+    /**
+     * Checks whether the player enters its moves on the console, the moves of other players are printed by the game.
+     *
+     * @return {@code true} if the player is a human
+     */
+    boolean isHuman() {
+        return false;
+    }
+
+    /**
+     * Gets a description of how the last move was chosen, printed by the game before the move.
+     *
+     * @return description of the last move, {@code null} if there is nothing to describe
+     */
+    String getMoveInfo() {
+        return null;
+    }
+
     /**
      * Gets next move that player chooses.
      *
-     * @return next move of player
+     * @return square index of the next move, {@link Player#PASS} if the player has no valid move
      */
-    public abstract String getNextMove();
+    public abstract int getNextMove();
 }
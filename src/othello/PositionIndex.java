@@ -0,0 +1,308 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Persistent index of played games by position. For every position in its canonical orientation (see
+ * {@link Symmetry}) the index keeps the numbers of wins, draws and losses of the player to move and the IDs of all
+ * games that reached the position.
+ * <br>
+ * The index is a directory of segment files, every {@link PositionIndexBuilder} run appends new segments, so games can
+ * be added without rewriting the index. A segment file starts with a header of six {@code int} values: magic number,
+ * version, number of keys, number of game IDs, first game ID and number of games of the segment, including the skipped
+ * IDs of invalid games. Then the keys follow in increasing order, each key is 24 bytes: canonical position hash
+ * ({@code long}), index of its first game ID, wins, draws and losses ({@code int} each). Then the sorted game IDs of
+ * all keys follow ({@code int} each).
+ * <br>
+ * Segments are memory-mapped, and every 64th key of a segment is kept in the heap as a sparse index, so a lookup is a
+ * binary search in the sparse index and a binary search in one block of 64 keys per segment.
+ */
+class PositionIndex {
+    /**
+     * Magic number at the beginning of segment files
+     */
+    static final int MAGIC = 0x4F504958;
+    /**
+     * Version of the segment file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the segment file header in bytes
+     */
+    static final int HEADER_BYTES = 24;
+    /**
+     * Size of every key in bytes
+     */
+    static final int KEY_BYTES = 24;
+    /**
+     * Number of keys of a block of the sparse index
+     */
+    static final int BLOCK_KEYS = 64;
+    /**
+     * Name suffix of segment files
+     */
+    static final String SEGMENT_SUFFIX = ".seg";
+    /**
+     * Segments of the index in the order of their game IDs
+     */
+    private List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Constructor of an index without segments.
+     */
+    private PositionIndex() {
+    }
+
+    /**
+     * Opens an index directory by memory-mapping all its segments. A missing directory is an empty index.
+     *
+     * @param directory path of the index directory
+     * @return the index
+     * @throws IOException if a segment can not be read or is not valid
+     */
+    static PositionIndex open(Path directory) throws IOException {
+        PositionIndex index = new PositionIndex();
+        if (!Files.isDirectory(directory)) {
+            return index;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        //segment names are zero-padded numbers, so they are sorted in the order they are written
+        paths.sort(null);
+        for (Path path : paths) {
+            index.segments.add(new Segment(path));
+        }
+        return index;
+    }
+
+    /**
+     * Looks up the position of the board.
+     *
+     * @param board board of the position
+     * @param color color index of the player to move
+     * @return games of the position, empty if no game reached it
+     */
+    Games lookup(Board board, int color) {
+        return lookup(board.getDiscs(color), board.getDiscs(color ^ 1));
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return games of the position, empty if no game reached it
+     */
+    Games lookup(long player, long opponent) {
+        long key = Symmetry.canonicalHash(player, opponent);
+        Games games = new Games();
+        for (Segment segment : segments) {
+            segment.lookup(key, games);
+        }
+        return games;
+    }
+
+    /**
+     * Gets the ID that is given to the next added game.
+     *
+     * @return one more than the last game ID of the index, {@code 0} for an empty index
+     */
+    int getNextGameId() {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).nextGameId;
+    }
+
+    /**
+     * Gets the number of segments.
+     *
+     * @return number of segments
+     */
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Games that reached a position and their results from the point of view of the player to move.
+     */
+    static class Games {
+        /**
+         * Number of won, drawn and lost games
+         */
+        private int wins, draws, losses;
+        /**
+         * IDs of the games in increasing order
+         */
+        private int[] gameIds = new int[0];
+
+        /**
+         * Gets the number of games won by the player to move.
+         *
+         * @return number of wins
+         */
+        int getWins() {
+            return wins;
+        }
+
+        /**
+         * Gets the number of drawn games.
+         *
+         * @return number of draws
+         */
+        int getDraws() {
+            return draws;
+        }
+
+        /**
+         * Gets the number of games lost by the player to move.
+         *
+         * @return number of losses
+         */
+        int getLosses() {
+            return losses;
+        }
+
+        /**
+         * Gets the IDs of the games.
+         *
+         * @return game IDs in increasing order
+         */
+        int[] getGameIds() {
+            return gameIds;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file with its sparse index.
+     */
+    private static class Segment {
+        /**
+         * Content of the segment file
+         */
+        private MappedByteBuffer buffer;
+        /**
+         * Number of keys
+         */
+        private int keyCount;
+        /**
+         * Number of game IDs
+         */
+        private int gameIdCount;
+        /**
+         * One more than the last game ID of the segment
+         */
+        private int nextGameId;
+        /**
+         * First key of every block of {@link PositionIndex#BLOCK_KEYS} keys
+         */
+        private long[] blockKeys;
+
+        /**
+         * Constructor of the segment that maps the file and loads its sparse index.
+         *
+         * @param path path of the segment file
+         * @throws IOException if the file can not be read or is not a valid segment
+         */
+        Segment(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a position index segment: " + path);
+            }
+            keyCount = buffer.getInt(8);
+            gameIdCount = buffer.getInt(12);
+            nextGameId = buffer.getInt(16) + buffer.getInt(20);
+            if (HEADER_BYTES + (long) keyCount * KEY_BYTES + gameIdCount * 4L != buffer.capacity()) {
+                throw new IOException("Corrupted position index segment: " + path);
+            }
+            blockKeys = new long[(keyCount + BLOCK_KEYS - 1) / BLOCK_KEYS];
+            for (int i = 0; i < blockKeys.length; i++) {
+                blockKeys[i] = key(i * BLOCK_KEYS);
+            }
+        }
+
+        /**
+         * Gets a key of the segment.
+         *
+         * @param index index of the key
+         * @return the key
+         */
+        private long key(int index) {
+            return buffer.getLong(HEADER_BYTES + index * KEY_BYTES);
+        }
+
+        /**
+         * Gets the index of the first game ID of a key.
+         *
+         * @param index index of the key, {@code keyCount} for the end of the game IDs
+         * @return index of the first game ID
+         */
+        private int firstGameId(int index) {
+            return index == keyCount ? gameIdCount : buffer.getInt(HEADER_BYTES + index * KEY_BYTES + 8);
+        }
+
+        /**
+         * Adds the games of a key in this segment to the result of a lookup.
+         *
+         * @param key   canonical position hash
+         * @param games result of the lookup
+         */
+        void lookup(long key, Games games) {
+            int block = Arrays.binarySearch(blockKeys, key);
+            if (block < 0) {
+                //the key can only be in the block before the insertion point
+                block = -block - 2;
+                if (block < 0) {
+                    return;
+                }
+            }
+            int low = block * BLOCK_KEYS;
+            int high = Math.min(low + BLOCK_KEYS, keyCount) - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleKey = key(middle);
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    addGames(middle, games);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Adds the results and game IDs of a key to the result of a lookup.
+         *
+         * @param index index of the key
+         * @param games result of the lookup
+         */
+        private void addGames(int index, Games games) {
+            int offset = HEADER_BYTES + index * KEY_BYTES;
+            games.wins += buffer.getInt(offset + 12);
+            games.draws += buffer.getInt(offset + 16);
+            games.losses += buffer.getInt(offset + 20);
+            int first = firstGameId(index);
+            int count = firstGameId(index + 1) - first;
+            int[] gameIds = Arrays.copyOf(games.gameIds, games.gameIds.length + count);
+            int gameIdsOffset = HEADER_BYTES + keyCount * KEY_BYTES + first * 4;
+            for (int i = 0; i < count; i++) {
+                gameIds[games.gameIds.length + i] = buffer.getInt(gameIdsOffset + i * 4);
+            }
+            games.gameIds = gameIds;
+        }
+    }
+}
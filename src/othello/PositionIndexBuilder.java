@@ -0,0 +1,289 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Adds games to a {@link PositionIndex}. Positions of the added games are collected in memory and sorted, and every
+ * time the collected positions reach the segment limit a new segment file is written to the index directory. Game
+ * IDs continue after the last game ID of the index, so a builder can append games to an existing index.
+ * <br>
+ * Usage: {@code PositionIndexBuilder <index directory> <record file>...}, games get their IDs in the order of the
+ * record files. An invalid game is not added but still uses up its ID, so the ID of a game is its position in the
+ * record files counted from the first ID.
+ */
+public class PositionIndexBuilder {
+    /**
+     * Default maximum number of positions of a segment
+     */
+    static final int DEFAULT_SEGMENT_POSITIONS = 1 << 24;
+    /**
+     * Size of the write buffer in bytes
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * Directory of the index
+     */
+    private Path directory;
+    /**
+     * Canonical position hash of every collected position
+     */
+    private long[] keys;
+    /**
+     * Game ID of every collected position
+     */
+    private int[] gameIds;
+    /**
+     * Result of every collected position from the point of view of the player to move, {@code 1} for a win,
+     * {@code 0} for a draw and {@code -1} for a loss
+     */
+    private byte[] results;
+    /**
+     * Number of collected positions
+     */
+    private int size;
+    /**
+     * ID of the next added game
+     */
+    private int nextGameId;
+    /**
+     * ID of the first game of the collected positions
+     */
+    private int firstGameId;
+    /**
+     * Number of segment files of the index
+     */
+    private int segmentCount;
+
+    /**
+     * Constructor of the builder that appends to an index, the directory is created if it does not exist.
+     *
+     * @param directory        directory of the index
+     * @param segmentPositions maximum number of positions of a segment
+     * @throws IOException if the index can not be read or the directory can not be created
+     */
+    PositionIndexBuilder(Path directory, int segmentPositions) throws IOException {
+        PositionIndex index = PositionIndex.open(directory);
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.nextGameId = index.getNextGameId();
+        this.firstGameId = nextGameId;
+        this.segmentCount = index.getSegmentCount();
+        keys = new long[segmentPositions];
+        gameIds = new int[segmentPositions];
+        results = new byte[segmentPositions];
+    }
+
+    /**
+     * The main method of the builder.
+     *
+     * @param args index directory path and record file paths
+     * @throws IOException if a file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PositionIndexBuilder <index directory> <record file>...");
+            return;
+        }
+        PositionIndexBuilder builder = new PositionIndexBuilder(Paths.get(args[0]), DEFAULT_SEGMENT_POSITIONS);
+        int firstGameId = builder.nextGameId;
+        int invalidCount = 0;
+        long start = System.nanoTime();
+        for (int i = 1; i < args.length; i++) {
+            try (GameRecordReader reader = GameRecordReader.open(Paths.get(args[i]))) {
+                for (GameRecord record = reader.read(); record != null; record = reader.read()) {
+                    if (builder.add(record) < 0) {
+                        invalidCount++;
+                    }
+                }
+            }
+        }
+        builder.finish();
+        System.out.printf("%d games added (IDs %d to %d), %d invalid games, %d ms%n",
+                builder.nextGameId - firstGameId - invalidCount, firstGameId, builder.nextGameId - 1, invalidCount,
+                (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Adds the positions of a game to the index.
+     *
+     * @param record record of the game
+     * @return ID of the game, {@code -1} if the game has an invalid move and is not added, its ID is skipped
+     * @throws IOException if a segment file can not be written
+     */
+    int add(GameRecord record) throws IOException {
+        if (size + Board.MAX_MOVES > keys.length) {
+            writeSegment();
+        }
+        int gameId = nextGameId++;
+        int gameStart = size;
+        try {
+            record.visitPositions((player, opponent, result) -> {
+                keys[size] = Symmetry.canonicalHash(player, opponent);
+                gameIds[size] = gameId;
+                results[size] = (byte) Integer.signum(result);
+                size++;
+            });
+        } catch (IllegalStateException e) {
+            //positions before the invalid move are dropped too
+            size = gameStart;
+            return -1;
+        }
+        return gameId;
+    }
+
+    /**
+     * Writes the collected positions as the last segment.
+     *
+     * @throws IOException if the segment file can not be written
+     */
+    void finish() throws IOException {
+        if (size > 0) {
+            writeSegment();
+        }
+    }
+
+    /**
+     * Sorts the collected positions, writes them to a new segment file and clears them.
+     *
+     * @throws IOException if the segment file can not be written
+     */
+    private void writeSegment() throws IOException {
+        sort(0, size - 1);
+        int keyCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keyCount++;
+            }
+        }
+        //the file is written to a temporary name first, so a failed write does not leave a broken segment
+        Path path = directory.resolve(String.format("%08d", segmentCount) + PositionIndex.SEGMENT_SUFFIX);
+        Path temporaryPath = directory.resolve(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.putInt(PositionIndex.MAGIC).putInt(PositionIndex.VERSION).putInt(keyCount).putInt(size)
+                    .putInt(firstGameId).putInt(nextGameId - firstGameId);
+            for (int first = 0, last; first < size; first = last) {
+                int wins = 0;
+                int draws = 0;
+                int losses = 0;
+                for (last = first; last < size && keys[last] == keys[first]; last++) {
+                    if (results[last] > 0) {
+                        wins++;
+                    } else if (results[last] == 0) {
+                        draws++;
+                    } else {
+                        losses++;
+                    }
+                }
+                if (buffer.remaining() < PositionIndex.KEY_BYTES) {
+                    writeBuffer(channel, buffer);
+                }
+                buffer.putLong(keys[first]).putInt(first).putInt(wins).putInt(draws).putInt(losses);
+            }
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < 4) {
+                    writeBuffer(channel, buffer);
+                }
+                buffer.putInt(gameIds[i]);
+            }
+            writeBuffer(channel, buffer);
+        }
+        Files.move(temporaryPath, path);
+        segmentCount++;
+        size = 0;
+        firstGameId = nextGameId;
+    }
+
+    /**
+     * Writes the content of a buffer to a channel and clears the buffer.
+     *
+     * @param channel channel to write
+     * @param buffer  buffer to write
+     * @throws IOException if the channel can not be written
+     */
+    private static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Sorts collected positions by key and game ID with quicksort.
+     *
+     * @param low  index of the first position
+     * @param high index of the last position
+     */
+    private void sort(int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            long pivotKey = keys[middle];
+            int pivotGameId = gameIds[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotKey, pivotGameId) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotKey, pivotGameId) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            //recursion on the smaller part keeps the stack depth logarithmic
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, keys[j - 1], gameIds[j - 1]) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Compares a collected position with a key and game ID.
+     *
+     * @param index  index of the position
+     * @param key    key to compare with
+     * @param gameId game ID to compare with
+     * @return negative, zero or positive if the position is less than, equal to or greater than the key and game ID
+     */
+    private int compare(int index, long key, int gameId) {
+        int result = Long.compare(keys[index], key);
+        return result != 0 ? result : Integer.compare(gameIds[index], gameId);
+    }
+
+    /**
+     * Swaps two collected positions.
+     *
+     * @param i index of the first position
+     * @param j index of the second position
+     */
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int gameId = gameIds[i];
+        gameIds[i] = gameIds[j];
+        gameIds[j] = gameId;
+        byte result = results[i];
+        results[i] = results[j];
+        results[j] = result;
+    }
+}
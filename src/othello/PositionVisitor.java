@@ -0,0 +1,15 @@
+package othello;
+
+/**
+ * Receives positions of replayed games together with the final result of the game.
+ */
+interface PositionVisitor {
+    /**
+     * Visits a position where the player to move has at least one valid move.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @param result   final disc difference of the game from the point of view of the player to move
+     */
+    void visit(long player, long opponent, int result);
+}
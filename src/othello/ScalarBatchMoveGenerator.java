@@ -0,0 +1,43 @@
+package othello;
+
+/**
+ * Batch move generation that processes one position at a time with the {@link Bitboard} methods.
+ */
+class ScalarBatchMoveGenerator implements BatchMoveGenerator {
+    /**
+     * Computes the valid moves of every position.
+     *
+     * @param players   discs of the player to move of every position
+     * @param opponents discs of the opponent of every position
+     * @param moves     receives the bitboard of valid moves of every position
+     * @param count     number of positions
+     */
+    @Override
+    public void validMoves(long[] players, long[] opponents, long[] moves, int count) {
+        for (int i = 0; i < count; i++) {
+            moves[i] = Bitboard.validMoves(players[i], opponents[i]);
+        }
+    }
+
+    /**
+     * Plays a move in every position.
+     *
+     * @param players       discs of the player to move of every position
+     * @param opponents     discs of the opponent of every position
+     * @param squares       square index of a valid move of every position
+     * @param nextPlayers   receives the discs of the opponent after the move of every position
+     * @param nextOpponents receives the discs of the player after the move of every position
+     * @param count         number of positions
+     */
+    @Override
+    public void play(long[] players, long[] opponents, int[] squares, long[] nextPlayers, long[] nextOpponents,
+                     int count) {
+        for (int i = 0; i < count; i++) {
+            long player = players[i];
+            long opponent = opponents[i];
+            long flips = Bitboard.flips(player, opponent, squares[i]);
+            nextPlayers[i] = opponent & ~flips;
+            nextOpponents[i] = player | flips | (1L << squares[i]);
+        }
+    }
+}
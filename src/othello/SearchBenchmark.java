@@ -0,0 +1,106 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * Benchmark of the parallel search. It searches a fixed set of mid-game positions to a fixed depth with 1 to N
+ * threads and prints the time to depth, the number of nodes and the search speed of every thread count, so the
+ * scaling of the search on a machine can be measured.
+ * <br>
+ * Usage: {@code SearchBenchmark [depth] [max threads]}, by default depth 12 and all available processors.
+ */
+public class SearchBenchmark {
+    /**
+     * Number of benchmark positions
+     */
+    private static final int POSITIONS = 8;
+    /**
+     * Number of random moves played from the start position to build every benchmark position
+     */
+    private static final int OPENING_MOVES = 20;
+    /**
+     * Seed of random benchmark positions, the same positions are used in every run
+     */
+    private static final long SEED = 20200401;
+    /**
+     * Transposition table size of every run in megabytes
+     */
+    private static final int HASH_MEGABYTES = 64;
+
+    /**
+     * The main method of the benchmark.
+     *
+     * @param args optional search depth and maximum number of threads
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Board[] boards = new Board[POSITIONS];
+        int[] colors = new int[POSITIONS];
+        createPositions(boards, colors);
+
+        //warm up, so the first measured run is not slowed down by just in time compilation
+        ParallelSearchEngine warmUp = new ParallelSearchEngine(new HeuristicEvaluator(),
+                new TranspositionTable(HASH_MEGABYTES), depth - 1, 0, 1);
+        for (int i = 0; i < POSITIONS; i++) {
+            warmUp.search(boards[i], colors[i]);
+        }
+
+        System.out.println("threads  time-to-depth(ms)        nodes     nodes/s  speedup");
+        long baseNanos = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ParallelSearchEngine engine = new ParallelSearchEngine(new HeuristicEvaluator(),
+                    new TranspositionTable(HASH_MEGABYTES), depth, 0, threads);
+            long nanos = 0;
+            long nodes = 0;
+            for (int i = 0; i < POSITIONS; i++) {
+                engine.search(boards[i], colors[i]);
+                nanos += engine.getElapsedNanos();
+                nodes += engine.getNodes();
+            }
+            if (threads == 1) {
+                baseNanos = nanos;
+            }
+            System.out.printf("%7d  %17d  %11d  %10d  %7.2f%n", threads, nanos / 1000000, nodes,
+                    nodes * 1000000000L / nanos, baseNanos / (double) nanos);
+        }
+    }
+
+    /**
+     * Creates benchmark positions by playing random moves from the start position.
+     *
+     * @param boards array to fill with benchmark boards
+     * @param colors array to fill with color index of the player to move in every board
+     */
+    private static void createPositions(Board[] boards, int[] colors) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < boards.length; i++) {
+            Board board;
+            int color;
+            do {
+                board = new Board();
+                color = Board.BLACK;
+                for (int move = 0; move < OPENING_MOVES && !board.isGameFinished(); move++) {
+                    long moves = board.getValidMoves(color);
+                    if (moves != 0) {
+                        board.makeMove(color, Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves))));
+                    }
+                    color ^= 1;
+                }
+            } while (board.getValidMoves(color) == 0);
+            boards[i] = board;
+            colors[i] = color;
+        }
+    }
+
+    /**
+     * Gets the next thread count to benchmark, thread counts are doubled until the maximum count.
+     *
+     * @param threads    current thread count
+     * @param maxThreads maximum thread count
+     * @return next thread count
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1;
+    }
+}
@@ -0,0 +1,507 @@
+package othello;
+
+/**
+ * Negamax alpha-beta search engine. The engine deepens the search one ply at a time (iterative deepening) until the
+ * depth limit or the time limit is reached, and searches every node with principal variation search (PVS): the first
+ * move is searched with the full window and the other moves with a null window that is widened only if they beat the
+ * first one.
+ * <br>
+ * The search applies and takes back moves on the given board, so the board is left unchanged after every search.
+ * Results of searched nodes are kept in a {@link TranspositionTable} to be reused by later iterations and searches.
+ */
+class SearchEngine {
+    /**
+     * Maximum search depth, the game can not last more than 60 moves
+     */
+    static final int MAX_DEPTH = Board.MAX_MOVES;
+    /**
+     * Move code of passing the turn in principal variations
+     */
+    static final int PASS = 64;
+    /**
+     * Score bound greater than every possible score
+     */
+    static final int INFINITY = 1000000;
+    /**
+     * Root move mask of searches over all valid moves
+     */
+    static final long ALL_MOVES = -1L;
+    /**
+     * Maximum number of plies of a search line, every move can be preceded by a pass
+     */
+    private static final int MAX_PLY = 2 * MAX_DEPTH + 2;
+    /**
+     * Maximum number of valid moves in a position
+     */
+    private static final int MAX_MOVES_PER_PLY = 64;
+    /**
+     * The time limit is checked once per this many nodes, must be a power of two minus one
+     */
+    private static final long TIME_CHECK_MASK = 4095;
+    /**
+     * Evaluation function used at the leaves of the search
+     */
+    private Evaluator evaluator;
+    /**
+     * Transposition table shared by all iterations and all searches of the engine
+     */
+    private TranspositionTable transpositionTable;
+    /**
+     * Maximum depth of iterative deepening
+     */
+    private int maxDepth;
+    /**
+     * Time limit of every search in nanoseconds, {@code 0} for no limit
+     */
+    private long timeLimitNanos;
+    /**
+     * The board that is searched
+     */
+    private Board board;
+    /**
+     * Preallocated move lists of every ply, moves are sorted in search order
+     */
+    private int[][] moveLists = new int[MAX_PLY][MAX_MOVES_PER_PLY];
+    /**
+     * Triangular principal variation table, row {@code p} keeps the best line found from ply {@code p}
+     */
+    private int[][] pv = new int[MAX_PLY][MAX_PLY];
+    /**
+     * Lengths of the lines in {@link SearchEngine#pv}
+     */
+    private int[] pvLength = new int[MAX_PLY];
+    /**
+     * Principal variation of the last completed iteration
+     */
+    private int[] previousPv = new int[MAX_PLY];
+    /**
+     * Length of {@link SearchEngine#previousPv}
+     */
+    private int previousPvLength;
+    /**
+     * Whether the current node is on the principal variation of the last completed iteration
+     */
+    private boolean followPv;
+    /**
+     * Number of nodes visited by the current search
+     */
+    private long nodes;
+    /**
+     * Start time of the current search
+     */
+    private long startTime;
+    /**
+     * Duration of the last search in nanoseconds
+     */
+    private long elapsedNanos;
+    /**
+     * Stop request from another thread, checked along with the time limit
+     */
+    private volatile boolean stopRequested;
+    /**
+     * Whether the current iteration is aborted because of time limit or stop request
+     */
+    private boolean aborted;
+    /**
+     * Best move of the last completed iteration
+     */
+    private int bestMove;
+    /**
+     * Score of the last completed iteration
+     */
+    private int bestScore;
+    /**
+     * Depth of the last completed iteration
+     */
+    private int completedDepth;
+    /**
+     * Receiver of the results of completed iterations, {@code null} if nobody listens
+     */
+    private SearchListener listener;
+    /**
+     * Bitboard of the moves searched at the root, {@link SearchEngine#ALL_MOVES} to search every valid move
+     */
+    private long rootMoves = ALL_MOVES;
+
+    /**
+     * Constructor of the search engine.
+     *
+     * @param evaluator          evaluation function used at the leaves of the search
+     * @param transpositionTable transposition table of the engine
+     * @param maxDepth           maximum search depth
+     * @param timeLimitMillis    time limit of every search in milliseconds, {@code 0} for no limit
+     */
+    SearchEngine(Evaluator evaluator, TranspositionTable transpositionTable, int maxDepth, long timeLimitMillis) {
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        this.timeLimitNanos = timeLimitMillis * 1000000L;
+    }
+
+    /**
+     * Searches the best move of the specified color in the current position of the board.
+     *
+     * @param board board to search
+     * @param color color index of the player to move
+     * @return square index of the best move, {@code -1} if there is no valid move
+     */
+    int search(Board board, int color) {
+        stopRequested = false;
+        transpositionTable.newSearch();
+        return search(board, color, 1);
+    }
+
+    /**
+     * Searches the best move of the specified color, starting iterative deepening from the specified depth. Unlike
+     * {@link SearchEngine#search(Board, int)}, this method does not clear stop requests and does not start a new
+     * search age of the transposition table, so several engines can take part in one search.
+     *
+     * @param board      board to search
+     * @param color      color index of the player to move
+     * @param firstDepth depth of the first iteration
+     * @return square index of the best move, {@code -1} if there is no valid move
+     */
+    int search(Board board, int color, int firstDepth) {
+        this.board = board;
+        evaluator.reset(board);
+        nodes = 0;
+        startTime = System.nanoTime();
+        aborted = false;
+        completedDepth = 0;
+        bestScore = 0;
+        previousPvLength = 0;
+        long moves = board.getValidMoves(color) & rootMoves;
+        if (moves == 0) {
+            bestMove = -1;
+        } else {
+            orderMoves(moves, -1, moveLists[0]);
+            bestMove = moveLists[0][0];
+            int depthLimit = Math.min(maxDepth, board.getEmptyCount());
+            for (int depth = Math.min(firstDepth, depthLimit); depth <= depthLimit; depth++) {
+                followPv = true;
+                int score = pvs(color, depth, -INFINITY, INFINITY, 0, false);
+                if (aborted) {
+                    break;
+                }
+                bestScore = score;
+                bestMove = pv[0][0];
+                completedDepth = depth;
+                previousPvLength = pvLength[0];
+                System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+                if (listener != null) {
+                    listener.iterationCompleted(depth, score, getPrincipalVariation(), nodes,
+                            System.nanoTime() - startTime);
+                }
+                //the next iteration takes a few times longer than this one, so it would not finish in time
+                if (timeLimitNanos > 0 && System.nanoTime() - startTime > timeLimitNanos / 2) {
+                    break;
+                }
+            }
+        }
+        elapsedNanos = System.nanoTime() - startTime;
+        return bestMove;
+    }
+
+    /**
+     * Searches a node with principal variation search.
+     *
+     * @param color  color index of the player to move
+     * @param depth  remaining depth
+     * @param alpha  lower bound of the score window
+     * @param beta   upper bound of the score window
+     * @param ply    distance from the root
+     * @param passed whether the previous ply was a pass
+     * @return score of the node from the point of view of the player to move
+     */
+    private int pvs(int color, int depth, int alpha, int beta, int ply, boolean passed) {
+        pvLength[ply] = ply;
+        if ((++nodes & TIME_CHECK_MASK) == 0) {
+            checkTime();
+        }
+        if (aborted) {
+            return 0;
+        }
+        long moves = board.getValidMoves(color);
+        if (ply == 0) {
+            moves &= rootMoves;
+        }
+        if (moves == 0) {
+            if (passed) {
+                //no player has a valid move, the game is finished
+                followPv = false;
+                return finalScore(color);
+            }
+            if (followPv && (ply >= previousPvLength || previousPv[ply] != PASS)) {
+                followPv = false;
+            }
+            int score = -pvs(color ^ 1, depth, -beta, -alpha, ply + 1, true);
+            updatePv(ply, PASS);
+            return score;
+        }
+        if (depth == 0) {
+            followPv = false;
+            return evaluator.evaluate(board, color);
+        }
+        //stable discs bound the final score, null windows beyond the bound are decided without search
+        if (beta - alpha == 1) {
+            int stabilityWindow = (2 * board.getEmptyCount() - 2) * Evaluator.DISC_SCORE;
+            if (alpha >= stabilityWindow) {
+                long player = board.getDiscs(color);
+                long opponent = board.getDiscs(color ^ 1);
+                int bound = Stability.scoreUpperBound(player, opponent) * Evaluator.DISC_SCORE;
+                if (bound <= alpha) {
+                    return bound;
+                }
+            } else if (beta <= -stabilityWindow) {
+                long player = board.getDiscs(color);
+                long opponent = board.getDiscs(color ^ 1);
+                int bound = Stability.scoreLowerBound(player, opponent) * Evaluator.DISC_SCORE;
+                if (bound >= beta) {
+                    return bound;
+                }
+            }
+        }
+
+        long key = board.getHash(color);
+        long entry = transpositionTable.probe(key);
+        int hashMove = -1;
+        if (entry != 0) {
+            //cutoffs only in null window nodes, so the principal variation is not cut
+            if (TranspositionTable.depth(entry) >= depth && beta - alpha == 1) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    followPv = false;
+                    return score;
+                }
+            }
+            int move = TranspositionTable.move(entry);
+            if (move != TranspositionTable.NO_MOVE && ((moves >>> move) & 1) != 0) {
+                hashMove = move;
+            }
+        }
+        int firstMove = hashMove;
+        if (followPv) {
+            if (ply < previousPvLength && previousPv[ply] != PASS) {
+                firstMove = previousPv[ply];
+            } else {
+                followPv = false;
+            }
+        }
+        int[] moveList = moveLists[ply];
+        int count = orderMoves(moves, firstMove, moveList);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            long flips = board.makeMove(color, move);
+            evaluator.makeMove(color, move, flips);
+            int score;
+            if (i == 0) {
+                score = -pvs(color ^ 1, depth - 1, -beta, -alpha, ply + 1, false);
+                followPv = false;
+            } else {
+                score = -pvs(color ^ 1, depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                if (score > alpha && score < beta) {
+                    score = -pvs(color ^ 1, depth - 1, -beta, -alpha, ply + 1, false);
+                }
+            }
+            evaluator.unmakeMove(color, move, flips);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        int bound;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.UPPER;
+            bestMove = TranspositionTable.NO_MOVE;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        //a root searched over some of the moves only does not have the score of the position
+        if (ply > 0 || rootMoves == ALL_MOVES) {
+            transpositionTable.store(key, depth, bound, bestScore, bestMove);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Fills the move list in search order, the move of the principal variation or the transposition table first and
+     * the other moves sorted by the square priority groups of {@link ComputerPlayer#PRIORITY_GROUPS}.
+     *
+     * @param moves     bitboard of valid moves
+     * @param firstMove square index of the move to search first, {@code -1} if there is not any
+     * @param moveList  move list to fill
+     * @return number of moves
+     */
+    private int orderMoves(long moves, int firstMove, int[] moveList) {
+        int count = 0;
+        if (firstMove >= 0) {
+            moveList[count++] = firstMove;
+            moves &= ~(1L << firstMove);
+        }
+        for (long group : ComputerPlayer.PRIORITY_GROUPS) {
+            for (long groupMoves = moves & group; groupMoves != 0; groupMoves = Bitboard.removeFirst(groupMoves)) {
+                moveList[count++] = Bitboard.firstSquare(groupMoves);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets the principal variation of the ply to the specified move followed by the principal variation of the next
+     * ply.
+     *
+     * @param ply  distance from the root
+     * @param move square index of the move or {@link SearchEngine#PASS}
+     */
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    /**
+     * Computes the exact score of a finished game.
+     *
+     * @param color color index of the player to move
+     * @return final disc difference of the player multiplied by {@link Evaluator#DISC_SCORE}
+     */
+    private int finalScore(int color) {
+        return (Long.bitCount(board.getDiscs(color)) - Long.bitCount(board.getDiscs(color ^ 1))) * Evaluator.DISC_SCORE;
+    }
+
+    /**
+     * Aborts the current iteration if the time limit is reached or a stop is requested.
+     */
+    private void checkTime() {
+        if (stopRequested || (timeLimitNanos > 0 && System.nanoTime() - startTime > timeLimitNanos)) {
+            aborted = true;
+        }
+    }
+
+    /**
+     * Sets the receiver of the results of completed iterations.
+     *
+     * @param listener search listener, {@code null} to remove the listener
+     */
+    void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Restricts the moves searched at the root of the next searches, for example to score a single move.
+     *
+     * @param rootMoves bitboard of the moves to search, {@link SearchEngine#ALL_MOVES} to search every valid move
+     */
+    void setRootMoves(long rootMoves) {
+        this.rootMoves = rootMoves;
+    }
+
+    /**
+     * Sets the maximum depth of the next searches.
+     *
+     * @param maxDepth maximum search depth
+     */
+    void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+    }
+
+    /**
+     * Sets the time limit of the next searches.
+     *
+     * @param timeLimitMillis time limit of every search in milliseconds, {@code 0} for no limit
+     */
+    void setTimeLimit(long timeLimitMillis) {
+        timeLimitNanos = timeLimitMillis * 1000000L;
+    }
+
+    /**
+     * Requests the running search to stop, the search returns the best move of the last completed iteration. This
+     * method can be called from any thread.
+     */
+    void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Clears the stop request, must be called before {@link SearchEngine#search(Board, int, int)}.
+     */
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Gets the score of the last search.
+     *
+     * @return score of the best move from the point of view of the player to move
+     */
+    int getScore() {
+        return bestScore;
+    }
+
+    /**
+     * Gets the depth of the last completed iteration of the last search.
+     *
+     * @return completed search depth
+     */
+    int getDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Gets the principal variation of the last search.
+     *
+     * @return square indexes of the expected line of play, passes are {@link SearchEngine#PASS}
+     */
+    int[] getPrincipalVariation() {
+        int[] line = new int[previousPvLength];
+        System.arraycopy(previousPv, 0, line, 0, previousPvLength);
+        return line;
+    }
+
+    /**
+     * Gets the number of nodes visited by the last search.
+     *
+     * @return number of nodes
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the duration of the last search.
+     *
+     * @return duration in nanoseconds
+     */
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the speed of the last search.
+     *
+     * @return visited nodes per second
+     */
+    long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1000000000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,17 @@
+package othello;
+
+/**
+ * Receives the progress of a search, for example to show it while the search is running.
+ */
+interface SearchListener {
+    /**
+     * Called on the searching thread after every completed iteration of iterative deepening.
+     *
+     * @param depth              completed depth
+     * @param score              score of the best move from the point of view of the player to move
+     * @param principalVariation square indexes of the expected line of play, passes are {@link SearchEngine#PASS}
+     * @param nodes              number of nodes visited by the search so far
+     * @param elapsedNanos       time since the start of the search in nanoseconds
+     */
+    void iterationCompleted(int depth, int score, int[] principalVariation, long nodes, long elapsedNanos);
+}
@@ -0,0 +1,108 @@
+package othello;
+
+/**
+ * Stable disc detection. A disc is stable if it can never be flipped again until the end of the game. A disc can only
+ * be flipped along a line where it lies between two other cells, so it is stable if in each of the four line
+ * directions the line is full, the disc is at the board edge, or its neighbor on one side is a stable disc of the same
+ * color. Stable discs are found by applying these rules to all discs at once with bitboard fills, repeated until no
+ * disc becomes stable anymore.
+ * <br>
+ * The stable discs of the opponent bound the final score of the player to move, which lets the search return at once
+ * from nodes whose score window is beyond that bound.
+ */
+final class Stability {
+    /**
+     * Cells that do not wrap to the next row when shifted to the left by 1 or 9 and to the right by 7
+     */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+    /**
+     * Cells that do not wrap to the next row when shifted to the right by 1 or 9 and to the left by 7
+     */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+    /**
+     * Cells at the left or right edge, they can not be flipped horizontally
+     */
+    private static final long VERTICAL_EDGES = 0x8181818181818181L;
+    /**
+     * Cells at the top or bottom edge, they can not be flipped vertically
+     */
+    private static final long HORIZONTAL_EDGES = 0xFF000000000000FFL;
+    /**
+     * Cells at any edge, they can not be flipped diagonally
+     */
+    private static final long EDGES = VERTICAL_EDGES | HORIZONTAL_EDGES;
+
+    /**
+     * Utility class, no instance is needed.
+     */
+    private Stability() {
+    }
+
+    /**
+     * Finds the stable discs of the player.
+     *
+     * @param player   discs of the player
+     * @param opponent discs of the opponent
+     * @return bitboard of stable discs of the player
+     */
+    static long stableDiscs(long player, long opponent) {
+        long occupied = player | opponent;
+        long horizontal = fullLines(occupied, 1, NOT_FIRST_COLUMN, NOT_LAST_COLUMN) | VERTICAL_EDGES;
+        long vertical = fullLines(occupied, 8, -1L, -1L) | HORIZONTAL_EDGES;
+        long antiDiagonal = fullLines(occupied, 7, NOT_LAST_COLUMN, NOT_FIRST_COLUMN) | EDGES;
+        long diagonal = fullLines(occupied, 9, NOT_FIRST_COLUMN, NOT_LAST_COLUMN) | EDGES;
+        long stable = player & horizontal & vertical & antiDiagonal & diagonal;
+        //discs next to stable discs of the same color become stable, until nothing changes
+        for (long previous = 0; stable != previous; ) {
+            previous = stable;
+            long horizontalSafe = horizontal | ((stable << 1) & NOT_FIRST_COLUMN) | ((stable >>> 1) & NOT_LAST_COLUMN);
+            long verticalSafe = vertical | (stable << 8) | (stable >>> 8);
+            long antiDiagonalSafe = antiDiagonal | ((stable << 7) & NOT_LAST_COLUMN)
+                    | ((stable >>> 7) & NOT_FIRST_COLUMN);
+            long diagonalSafe = diagonal | ((stable << 9) & NOT_FIRST_COLUMN) | ((stable >>> 9) & NOT_LAST_COLUMN);
+            stable |= player & horizontalSafe & verticalSafe & antiDiagonalSafe & diagonalSafe;
+        }
+        return stable;
+    }
+
+    /**
+     * Finds the cells whose line in one direction is full, by spreading every empty cell over its whole line.
+     *
+     * @param occupied  bitboard of occupied cells
+     * @param shift     shift amount of the line direction
+     * @param leftMask  cells that can be reached by a left shift without wrapping around the board edges
+     * @param rightMask cells that can be reached by a right shift without wrapping around the board edges
+     * @return bitboard of cells on full lines
+     */
+    private static long fullLines(long occupied, int shift, long leftMask, long rightMask) {
+        long spread = ~occupied;
+        for (int i = 0; i < 7; i++) {
+            spread |= ((spread << shift) & leftMask) | ((spread >>> shift) & rightMask);
+        }
+        return ~spread;
+    }
+
+    /**
+     * Computes an upper bound of the final disc difference of the player to move, every stable disc of the opponent
+     * stays with the opponent until the end of the game.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return upper bound of the final disc difference
+     */
+    static int scoreUpperBound(long player, long opponent) {
+        return 64 - 2 * Long.bitCount(stableDiscs(opponent, player));
+    }
+
+    /**
+     * Computes a lower bound of the final disc difference of the player to move, every stable disc of the player stays
+     * with the player until the end of the game.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return lower bound of the final disc difference
+     */
+    static int scoreLowerBound(long player, long opponent) {
+        return 2 * Long.bitCount(stableDiscs(player, opponent)) - 64;
+    }
+}
@@ -0,0 +1,152 @@
+package othello;
+
+/**
+ * The eight symmetries of the othello board (rotations and reflections) on bitboards. A symmetry index in range 0 to 7
+ * is a combination of three operations applied in order: transposing on the A1-H8 diagonal (bit 2), reversing the
+ * rows (bit 1) and reversing the columns (bit 0).
+ * <br>
+ * Equivalent positions are identified by their canonical hash, the lowest hash among all eight orientations.
+ */
+final class Symmetry {
+    /**
+     * Number of board symmetries
+     */
+    static final int COUNT = 8;
+
+    /**
+     * Utility class, no instance is needed.
+     */
+    private Symmetry() {
+    }
+
+    /**
+     * Applies a symmetry to a bitboard.
+     *
+     * @param bitboard bitboard to transform
+     * @param symmetry symmetry index
+     * @return transformed bitboard
+     */
+    static long transform(long bitboard, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            bitboard = transpose(bitboard);
+        }
+        if ((symmetry & 2) != 0) {
+            bitboard = flipVertical(bitboard);
+        }
+        if ((symmetry & 1) != 0) {
+            bitboard = mirrorHorizontal(bitboard);
+        }
+        return bitboard;
+    }
+
+    /**
+     * Takes back a symmetry applied by {@link Symmetry#transform(long, int)}.
+     *
+     * @param bitboard transformed bitboard
+     * @param symmetry symmetry index
+     * @return original bitboard
+     */
+    static long inverseTransform(long bitboard, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            bitboard = mirrorHorizontal(bitboard);
+        }
+        if ((symmetry & 2) != 0) {
+            bitboard = flipVertical(bitboard);
+        }
+        if ((symmetry & 4) != 0) {
+            bitboard = transpose(bitboard);
+        }
+        return bitboard;
+    }
+
+    /**
+     * Applies a symmetry to a square index.
+     *
+     * @param square   square index
+     * @param symmetry symmetry index
+     * @return transformed square index
+     */
+    static int transformSquare(int square, int symmetry) {
+        return Bitboard.firstSquare(transform(1L << square, symmetry));
+    }
+
+    /**
+     * Takes back a symmetry applied by {@link Symmetry#transformSquare(int, int)}.
+     *
+     * @param square   transformed square index
+     * @param symmetry symmetry index
+     * @return original square index
+     */
+    static int inverseTransformSquare(int square, int symmetry) {
+        return Bitboard.firstSquare(inverseTransform(1L << square, symmetry));
+    }
+
+    /**
+     * Finds the symmetry that transforms the position to its canonical orientation, the one with the lowest hash.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return symmetry index of the canonical orientation
+     */
+    static int canonicalSymmetry(long player, long opponent) {
+        int result = 0;
+        long lowestHash = Board.computeHash(player, opponent);
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            long hash = Board.computeHash(transform(player, symmetry), transform(opponent, symmetry));
+            if (Long.compareUnsigned(hash, lowestHash) < 0) {
+                lowestHash = hash;
+                result = symmetry;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the canonical hash of a position, which is the same for all eight orientations of the position.
+     *
+     * @param player   discs of the player to move
+     * @param opponent discs of the opponent
+     * @return hash of the canonical orientation
+     */
+    static long canonicalHash(long player, long opponent) {
+        int symmetry = canonicalSymmetry(player, opponent);
+        return Board.computeHash(transform(player, symmetry), transform(opponent, symmetry));
+    }
+
+    /**
+     * Reverses the rows of a bitboard, the first row becomes the last one.
+     *
+     * @param bitboard bitboard to transform
+     * @return transformed bitboard
+     */
+    static long flipVertical(long bitboard) {
+        return Long.reverseBytes(bitboard);
+    }
+
+    /**
+     * Reverses the columns of a bitboard, the first column becomes the last one.
+     *
+     * @param bitboard bitboard to transform
+     * @return transformed bitboard
+     */
+    static long mirrorHorizontal(long bitboard) {
+        bitboard = ((bitboard >>> 1) & 0x5555555555555555L) | ((bitboard & 0x5555555555555555L) << 1);
+        bitboard = ((bitboard >>> 2) & 0x3333333333333333L) | ((bitboard & 0x3333333333333333L) << 2);
+        return ((bitboard >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((bitboard & 0x0F0F0F0F0F0F0F0FL) << 4);
+    }
+
+    /**
+     * Transposes a bitboard on the A1-H8 diagonal, the cell at row r and column c moves to row c and column r.
+     *
+     * @param bitboard bitboard to transform
+     * @return transformed bitboard
+     */
+    static long transpose(long bitboard) {
+        long t = 0x0F0F0F0F00000000L & (bitboard ^ (bitboard << 28));
+        bitboard ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (bitboard ^ (bitboard << 14));
+        bitboard ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (bitboard ^ (bitboard << 7));
+        return bitboard ^ t ^ (t >>> 7);
+    }
+}
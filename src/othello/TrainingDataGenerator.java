@@ -0,0 +1,232 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates labelled positions for evaluator training by self-play. Games are played in parallel, every worker thread
+ * has its own {@link SplittableRandom} split from the seed, its own board and search engine. Every game starts with
+ * random moves so games differ, then the engine plays both colors at a fixed depth and positions with few empty cells
+ * are solved exactly.
+ * <br>
+ * Every position after the random moves where the player to move has a valid move is labelled with the score of the
+ * search that chose the move, so labelling costs no extra search, and with the final disc difference of the game.
+ * The positions of a finished game are appended to a training set file in the format of {@link TrainingSetWriter}.
+ * <br>
+ * Usage: {@code TrainingDataGenerator <training set file> [games] [depth] [random moves] [threads] [evaluator]
+ * [seed]}, an evaluator is {@code heuristic}, a neural weights file ending with {@code .nnue} or a pattern weights
+ * file. By default 10000 games at depth 4 with the heuristic evaluator, 10 random moves, all available processors and
+ * a seed from the clock.
+ */
+public class TrainingDataGenerator {
+    /**
+     * Transposition table size of every search engine in megabytes
+     */
+    private static final int HASH_MEGABYTES = 8;
+    /**
+     * Number of empty cells where positions are solved to the end
+     */
+    private static final int ENDGAME_EMPTIES = 14;
+    /**
+     * Number of games between progress reports
+     */
+    private static final int REPORT_INTERVAL = 1000;
+    /**
+     * Number of games to play
+     */
+    private int games;
+    /**
+     * Search depth of the engine
+     */
+    private int depth;
+    /**
+     * Evaluator of the engine, copied for every worker thread
+     */
+    private Evaluator evaluator;
+    /**
+     * Number of random moves at the start of every game
+     */
+    private int randomMoves;
+    /**
+     * Writer of labelled positions
+     */
+    private TrainingSetWriter writer;
+    /**
+     * Index of the next game to play
+     */
+    private AtomicInteger nextGame = new AtomicInteger();
+    /**
+     * Number of finished games
+     */
+    private AtomicInteger finishedGames = new AtomicInteger();
+    /**
+     * Number of written positions
+     */
+    private AtomicLong positions = new AtomicLong();
+    /**
+     * Start time of the generation in nanoseconds
+     */
+    private long startNanos;
+    /**
+     * First error of the writer, no position is written after an error
+     */
+    private volatile IOException writeError;
+
+    /**
+     * Constructor of the generator.
+     *
+     * @param games       number of games to play
+     * @param depth       search depth of the engine
+     * @param evaluator   evaluator of the engine
+     * @param randomMoves number of random moves at the start of every game
+     * @param writer      writer of labelled positions
+     */
+    TrainingDataGenerator(int games, int depth, Evaluator evaluator, int randomMoves, TrainingSetWriter writer) {
+        this.games = games;
+        this.depth = depth;
+        this.evaluator = evaluator;
+        this.randomMoves = randomMoves;
+        this.writer = writer;
+    }
+
+    /**
+     * The main method of the training data generator.
+     *
+     * @param args training set file, optional number of games, depth, number of random moves, number of threads,
+     *             evaluator and seed
+     * @throws IOException          if the evaluator can not be loaded or positions can not be written
+     * @throws InterruptedException if the main thread is interrupted while games are played
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: TrainingDataGenerator <training set file> [games] [depth] [random moves] "
+                    + "[threads] [evaluator] [seed]");
+            return;
+        }
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int randomMoves = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        Evaluator evaluator = Evaluator.load(args.length > 5 ? args[5] : "heuristic");
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+
+        System.out.println("Seed " + seed);
+        try (TrainingSetWriter writer = TrainingSetWriter.open(Paths.get(args[0]))) {
+            TrainingDataGenerator generator = new TrainingDataGenerator(games, depth, evaluator, randomMoves, writer);
+            generator.run(threads, new SplittableRandom(seed));
+            generator.printProgress();
+        }
+    }
+
+    /**
+     * Plays all games and waits for them to finish.
+     *
+     * @param threads number of worker threads
+     * @param random  random generator that is split for every worker thread
+     * @throws IOException          if positions can not be written
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    void run(int threads, SplittableRandom random) throws IOException, InterruptedException {
+        startNanos = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom workerRandom = random.split();
+            workers[i] = new Thread(() -> playGames(workerRandom), "training-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Plays games until no game is left, runs on every worker thread.
+     *
+     * @param random random generator of the thread
+     */
+    private void playGames(SplittableRandom random) {
+        SearchEngine engine = new SearchEngine(evaluator.copy(), new TranspositionTable(HASH_MEGABYTES), depth, 0);
+        EndgameSolver endgameSolver = new EndgameSolver();
+        long[] players = new long[Board.MAX_MOVES];
+        long[] opponents = new long[Board.MAX_MOVES];
+        int[] scores = new int[Board.MAX_MOVES];
+        int[] colors = new int[Board.MAX_MOVES];
+        while (nextGame.getAndIncrement() < games && writeError == null) {
+            Board board = new Board();
+            int color = Board.BLACK;
+            int count = 0;
+            while (!board.isGameFinished()) {
+                int move;
+                if (board.getMoveCount() < randomMoves) {
+                    long moves = board.getValidMoves(color);
+                    move = Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves)));
+                } else {
+                    players[count] = board.getDiscs(color);
+                    opponents[count] = board.getDiscs(color ^ 1);
+                    colors[count] = color;
+                    if (board.getEmptyCount() <= ENDGAME_EMPTIES) {
+                        move = endgameSolver.solve(board, color, false);
+                        scores[count] = endgameSolver.getScore() * Evaluator.DISC_SCORE;
+                    } else {
+                        move = engine.search(board, color);
+                        scores[count] = engine.getScore();
+                    }
+                    count++;
+                }
+                board.makeMove(color, move);
+                color = board.nextTurn(color);
+            }
+            int blackDifference = Long.bitCount(board.getDiscs(Board.BLACK))
+                    - Long.bitCount(board.getDiscs(Board.WHITE));
+            writeGame(players, opponents, scores, colors, count, blackDifference);
+            int finished = finishedGames.incrementAndGet();
+            if (finished % REPORT_INTERVAL == 0 && finished < games) {
+                printProgress();
+            }
+        }
+    }
+
+    /**
+     * Writes the labelled positions of a finished game.
+     *
+     * @param players         discs of the player to move of every position
+     * @param opponents       discs of the opponent of every position
+     * @param scores          searched score of every position
+     * @param colors          color index of the player to move of every position
+     * @param count           number of positions
+     * @param blackDifference final disc difference of black
+     */
+    private void writeGame(long[] players, long[] opponents, int[] scores, int[] colors, int count,
+                           int blackDifference) {
+        synchronized (writer) {
+            if (writeError != null) {
+                return;
+            }
+            try {
+                for (int i = 0; i < count; i++) {
+                    writer.write(players[i], opponents[i], scores[i],
+                            colors[i] == Board.BLACK ? blackDifference : -blackDifference);
+                }
+            } catch (IOException e) {
+                writeError = e;
+            }
+        }
+        positions.addAndGet(count);
+    }
+
+    /**
+     * Prints the number of finished games and written positions and the number of positions per hour.
+     */
+    void printProgress() {
+        long written = positions.get();
+        double hours = (System.nanoTime() - startNanos) / 3.6e12;
+        System.out.printf("%d games, %d positions, %.0f positions/h%n", finishedGames.get(), written,
+                written / hours);
+    }
+}
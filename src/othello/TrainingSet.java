@@ -0,0 +1,135 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Labelled positions of a training set file, loaded into memory as one array per field. The file format is described
+ * in {@link TrainingSetWriter}.
+ */
+class TrainingSet {
+    /**
+     * Size of the read buffer in bytes, a whole number of positions
+     */
+    private static final int BUFFER_BYTES = TrainingSetWriter.POSITION_BYTES * 4096;
+    /**
+     * Discs of the player to move of every position
+     */
+    private final long[] players;
+    /**
+     * Discs of the opponent of every position
+     */
+    private final long[] opponents;
+    /**
+     * Searched score of every position in hundredths of a disc
+     */
+    private final short[] scores;
+    /**
+     * Final disc difference of the game of every position
+     */
+    private final byte[] discDifferences;
+
+    /**
+     * Constructor of an empty training set of the specified size, filled by {@link TrainingSet#load(Path)}.
+     *
+     * @param size number of positions
+     */
+    private TrainingSet(int size) {
+        players = new long[size];
+        opponents = new long[size];
+        scores = new short[size];
+        discDifferences = new byte[size];
+    }
+
+    /**
+     * Loads all positions of a training set file.
+     *
+     * @param path path of the training set file
+     * @return the training set
+     * @throws IOException if the file can not be read or is not a training set file
+     */
+    static TrainingSet load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bodyBytes = channel.size() - TrainingSetWriter.HEADER_BYTES;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.limit(TrainingSetWriter.HEADER_BYTES);
+            if (bodyBytes < 0 || bodyBytes % TrainingSetWriter.POSITION_BYTES != 0
+                    || bodyBytes / TrainingSetWriter.POSITION_BYTES > Integer.MAX_VALUE - 8
+                    || !BinaryFiles.fill(channel, buffer) || buffer.getInt() != TrainingSetWriter.MAGIC
+                    || buffer.getInt() != TrainingSetWriter.VERSION) {
+                throw new IOException("Not a training set file");
+            }
+            TrainingSet set = new TrainingSet((int) (bodyBytes / TrainingSetWriter.POSITION_BYTES));
+            int index = 0;
+            while (index < set.size()) {
+                buffer.clear();
+                int count = Math.min(BUFFER_BYTES / TrainingSetWriter.POSITION_BYTES, set.size() - index);
+                buffer.limit(count * TrainingSetWriter.POSITION_BYTES);
+                if (!BinaryFiles.fill(channel, buffer)) {
+                    throw new IOException("Unexpected end of training set file");
+                }
+                while (buffer.hasRemaining()) {
+                    set.players[index] = buffer.getLong();
+                    set.opponents[index] = buffer.getLong();
+                    set.scores[index] = buffer.getShort();
+                    set.discDifferences[index] = buffer.get();
+                    index++;
+                }
+            }
+            return set;
+        }
+    }
+
+
+    /**
+     * Gets the number of positions.
+     *
+     * @return number of positions
+     */
+    int size() {
+        return players.length;
+    }
+
+    /**
+     * Gets the discs of the player to move of a position.
+     *
+     * @param index position index
+     * @return bitboard of the player discs
+     */
+    long getPlayer(int index) {
+        return players[index];
+    }
+
+    /**
+     * Gets the discs of the opponent of a position.
+     *
+     * @param index position index
+     * @return bitboard of the opponent discs
+     */
+    long getOpponent(int index) {
+        return opponents[index];
+    }
+
+    /**
+     * Gets the searched score of a position.
+     *
+     * @param index position index
+     * @return score in hundredths of a disc from the point of view of the player to move
+     */
+    int getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Gets the final disc difference of the game of a position.
+     *
+     * @param index position index
+     * @return final disc difference from the point of view of the player to move
+     */
+    int getDiscDifference(int index) {
+        return discDifferences[index];
+    }
+}
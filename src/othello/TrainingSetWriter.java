@@ -0,0 +1,139 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes labelled positions to a training set file through a buffered channel.
+ * <br>
+ * The file starts with two {@code int} values: magic number and version. Then the positions follow with a fixed size
+ * of 19 bytes each: discs of the player to move ({@code long}), discs of the opponent ({@code long}), searched score in
+ * hundredths of a disc ({@code short}) and final disc difference of the game ({@code byte}), both scores from the point
+ * of view of the player to move.
+ */
+class TrainingSetWriter implements Closeable {
+    /**
+     * Magic number at the beginning of training set files
+     */
+    static final int MAGIC = 0x4F545331;
+    /**
+     * Version of the training set file format
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the file header in bytes
+     */
+    static final int HEADER_BYTES = 8;
+    /**
+     * Size of a position in bytes
+     */
+    static final int POSITION_BYTES = 19;
+    /**
+     * Size of the write buffer in bytes
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * Channel of the training set file
+     */
+    private WritableByteChannel channel;
+    /**
+     * Buffer of positions that are not written to the channel yet
+     */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    /**
+     * Constructor of the writer on a channel that is positioned after the file header.
+     *
+     * @param channel channel of the training set file
+     */
+    TrainingSetWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a training set file for appending, the file is created with its header if it does not exist.
+     *
+     * @param path path of the training set file
+     * @return the writer
+     * @throws IOException if the file can not be opened or is not a training set file
+     */
+    static TrainingSetWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() == 0) {
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                int read = 0;
+                while (header.hasRemaining() && read >= 0) {
+                    read = channel.read(header, header.position());
+                }
+                header.flip();
+                if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION
+                        || (channel.size() - HEADER_BYTES) % POSITION_BYTES != 0) {
+                    throw new IOException("Not a training set file");
+                }
+            }
+            channel.position(channel.size());
+            return new TrainingSetWriter(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a position, the position may stay in the buffer until the writer is flushed or closed.
+     *
+     * @param player         discs of the player to move
+     * @param opponent       discs of the opponent
+     * @param score          searched score in hundredths of a disc
+     * @param discDifference final disc difference of the game
+     * @throws IOException if the buffer can not be written to the channel
+     */
+    void write(long player, long opponent, int score, int discDifference) throws IOException {
+        if (buffer.remaining() < POSITION_BYTES) {
+            flush();
+        }
+        buffer.putLong(player)
+                .putLong(opponent)
+                .putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score)))
+                .put((byte) discDifference);
+    }
+
+    /**
+     * Writes all buffered positions to the channel.
+     *
+     * @throws IOException if the channel can not be written
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all buffered positions and closes the channel.
+     *
+     * @throws IOException if the channel can not be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
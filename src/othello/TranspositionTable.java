@@ -0,0 +1,212 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table that keeps search results of positions by their Zobrist hash, so the search can reuse them when
+ * the same position is reached again by another move order, in a later iteration or in a later move of the game.
+ * <br>
+ * The table is one preallocated {@code long} array. Every entry takes two members, the hash key and the packed data,
+ * and entries are grouped in buckets of four entries (64 bytes). A position can be stored in any entry of the bucket
+ * selected by its hash, the entry to replace is the one with the lowest depth, preferring entries of older searches.
+ * <br>
+ * The table can be shared by several search threads without locking. The key member of every entry keeps the hash
+ * key xor the data, so an entry whose members are written by two threads at the same time does not match any key and
+ * is ignored by probes.
+ */
+class TranspositionTable {
+    /**
+     * Bound type of scores that are a lower bound of the exact score (fail high)
+     */
+    static final int LOWER = 1;
+    /**
+     * Bound type of scores that are an upper bound of the exact score (fail low)
+     */
+    static final int UPPER = 2;
+    /**
+     * Bound type of exact scores
+     */
+    static final int EXACT = 3;
+    /**
+     * Move value of entries without a best move
+     */
+    static final int NO_MOVE = 127;
+    /**
+     * Number of entries in every bucket
+     */
+    private static final int BUCKET_ENTRIES = 4;
+    /**
+     * Number of {@code long} members of every entry
+     */
+    private static final int ENTRY_LONGS = 2;
+    /**
+     * Bit offset of the depth in entry data, the score is kept at the lowest 32 bits
+     */
+    private static final int DEPTH_SHIFT = 32;
+    /**
+     * Bit offset of the bound type in entry data
+     */
+    private static final int BOUND_SHIFT = 40;
+    /**
+     * Bit offset of the best move in entry data
+     */
+    private static final int MOVE_SHIFT = 42;
+    /**
+     * Bit offset of the search age in entry data
+     */
+    private static final int AGE_SHIFT = 49;
+    /**
+     * Entries of the table, each entry is the hash key xor the data followed by the data
+     */
+    private long[] table;
+    /**
+     * Mask of the hash bits that select the bucket
+     */
+    private int bucketMask;
+    /**
+     * Age of the current search, entries of older searches are replaced first
+     */
+    private int age;
+
+    /**
+     * Constructor of the transposition table.
+     *
+     * @param megabytes memory budget of the table in megabytes, rounded down to a power of two number of buckets
+     */
+    TranspositionTable(int megabytes) {
+        long bucketBytes = BUCKET_ENTRIES * ENTRY_LONGS * 8;
+        long buckets = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / bucketBytes));
+        //the array length must fit in an int
+        buckets = Math.min(buckets, 1L << 27);
+        table = new long[(int) buckets * BUCKET_ENTRIES * ENTRY_LONGS];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Starts a new search, entries stored by previous searches become older.
+     */
+    void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Removes all entries of the table.
+     */
+    void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * Finds the entry of the specified position.
+     *
+     * @param key hash of the position
+     * @return packed data of the entry, {@code 0} if the position is not found
+     */
+    long probe(long key) {
+        int index = bucketIndex(key);
+        for (int i = 0; i < BUCKET_ENTRIES; i++, index += ENTRY_LONGS) {
+            long data = table[index + 1];
+            if (data != 0 && (table[index] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the search result of a position. An entry of the same position is updated, otherwise the entry of the
+     * bucket with the lowest depth is replaced, while every search of age difference counts as eight plies.
+     *
+     * @param key   hash of the position
+     * @param depth searched depth
+     * @param bound bound type of the score, one of {@link TranspositionTable#LOWER}, {@link TranspositionTable#UPPER}
+     *              and {@link TranspositionTable#EXACT}
+     * @param score score of the position
+     * @param move  square index of the best move, {@link TranspositionTable#NO_MOVE} if there is not any
+     */
+    void store(long key, int depth, int bound, int score, int move) {
+        int bucket = bucketIndex(key);
+        int replace = bucket;
+        int replaceValue = Integer.MAX_VALUE;
+        for (int i = 0, index = bucket; i < BUCKET_ENTRIES; i++, index += ENTRY_LONGS) {
+            long data = table[index + 1];
+            if (data == 0 || (table[index] ^ data) == key) {
+                if (data != 0 && move == NO_MOVE) {
+                    //keeps the known best move of the position
+                    move = move(data);
+                }
+                replace = index;
+                break;
+            }
+            int value = depth(data) - 8 * ((age - age(data)) & 0xFF);
+            if (value < replaceValue) {
+                replaceValue = value;
+                replace = index;
+            }
+        }
+        long data = (score & 0xFFFFFFFFL) | ((long) depth << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT)
+                | ((long) move << MOVE_SHIFT) | ((long) age << AGE_SHIFT);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    /**
+     * Gets the index of the first entry of the bucket of a hash key.
+     *
+     * @param key hash of the position
+     * @return index of the first entry in the table
+     */
+    private int bucketIndex(long key) {
+        return ((int) key & bucketMask) * BUCKET_ENTRIES * ENTRY_LONGS;
+    }
+
+    /**
+     * Gets the score of entry data.
+     *
+     * @param data packed entry data
+     * @return score of the entry
+     */
+    static int score(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Gets the searched depth of entry data.
+     *
+     * @param data packed entry data
+     * @return depth of the entry
+     */
+    static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Gets the bound type of entry data.
+     *
+     * @param data packed entry data
+     * @return bound type of the entry
+     */
+    static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Gets the best move of entry data.
+     *
+     * @param data packed entry data
+     * @return square index of the best move, {@link TranspositionTable#NO_MOVE} if there is not any
+     */
+    static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & 0x7F;
+    }
+
+    /**
+     * Gets the search age of entry data.
+     *
+     * @param data packed entry data
+     * @return age of the entry
+     */
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+}
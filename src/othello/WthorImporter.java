@@ -0,0 +1,189 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Imports games of WTHOR databases. Every game is replayed with {@link Board#makeMove(int, int)} to validate it, games
+ * with an invalid move are skipped. The positions of valid games are passed to a {@link PositionVisitor} with the
+ * result of the game, and the games can be written to a game record file.
+ * <br>
+ * Usage: {@code WthorImporter <record file> <wtb file>...}, record file {@code -} only validates the games.
+ */
+public class WthorImporter {
+    /**
+     * Board of the replayed game, reused by all games
+     */
+    private Board board = new Board();
+    /**
+     * Discs of the player to move in every position of the replayed game
+     */
+    private long[] players = new long[Board.MAX_MOVES];
+    /**
+     * Discs of the opponent in every position of the replayed game
+     */
+    private long[] opponents = new long[Board.MAX_MOVES];
+    /**
+     * Color index of the player to move in every position of the replayed game
+     */
+    private int[] colors = new int[Board.MAX_MOVES];
+    /**
+     * Number of imported games
+     */
+    private long gameCount;
+    /**
+     * Number of skipped games with an invalid move
+     */
+    private long invalidCount;
+    /**
+     * Number of visited positions
+     */
+    private long positionCount;
+
+    /**
+     * The main method of the importer.
+     *
+     * @param args record file path and database file paths
+     * @throws IOException if a file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: WthorImporter <record file> <wtb file>...");
+            return;
+        }
+        WthorImporter importer = new WthorImporter();
+        PositionVisitor visitor = (player, opponent, result) -> {
+        };
+        long start = System.nanoTime();
+        GameRecordWriter writer = args[0].equals("-") ? null : GameRecordWriter.open(Paths.get(args[0]));
+        try {
+            for (int i = 1; i < args.length; i++) {
+                importer.importFile(Paths.get(args[i]), visitor, writer);
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.printf("%d games, %d invalid games, %d positions, %.0f positions/s%n", importer.gameCount,
+                importer.invalidCount, importer.positionCount, importer.positionCount * 1e9 / nanos);
+    }
+
+    /**
+     * Imports all games of a database file.
+     *
+     * @param path    path of the database file
+     * @param visitor visitor of the positions of valid games
+     * @param writer  writer of valid games, {@code null} if games are not written
+     * @throws IOException if the database file can not be read or the record file can not be written
+     */
+    void importFile(Path path, PositionVisitor visitor, GameRecordWriter writer) throws IOException {
+        try (WthorReader reader = WthorReader.open(path)) {
+            while (reader.next()) {
+                if (!replay(reader)) {
+                    invalidCount++;
+                    continue;
+                }
+                gameCount++;
+                int blackResult = gameResult(reader);
+                for (int i = 0; i < board.getMoveCount(); i++) {
+                    visitor.visit(players[i], opponents[i], colors[i] == Board.BLACK ? blackResult : -blackResult);
+                }
+                positionCount += board.getMoveCount();
+                if (writer != null) {
+                    writer.write(toRecord(reader, blackResult));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the current game of the reader from the start position and keeps the position before every move. The
+     * player to move passes whenever it has no valid move.
+     *
+     * @param reader reader of the game
+     * @return {@code true} if all moves are valid
+     */
+    private boolean replay(WthorReader reader) {
+        while (board.getMoveCount() > 0) {
+            board.unmakeMove();
+        }
+        int color = Board.BLACK;
+        for (int i = 0; i < reader.getMoveCount(); i++) {
+            if (board.getValidMoves(color) == 0) {
+                color ^= 1;
+            }
+            players[i] = board.getDiscs(color);
+            opponents[i] = board.getDiscs(color ^ 1);
+            colors[i] = color;
+            if (board.makeMove(color, reader.getMove(i)) == 0) {
+                return false;
+            }
+            color ^= 1;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the result of the replayed game. Finished games are counted on the board, the result of unfinished games
+     * (for example after a resignation or a time loss) is taken from the database.
+     *
+     * @param reader reader of the game
+     * @return final number of black discs minus number of white discs
+     */
+    private int gameResult(WthorReader reader) {
+        if (board.isGameFinished()) {
+            return Long.bitCount(board.getDiscs(Board.BLACK)) - Long.bitCount(board.getDiscs(Board.WHITE));
+        }
+        return 2 * reader.getBlackDiscs() - 64;
+    }
+
+    /**
+     * Converts the current game of the reader to a game record. Players are named by their number in the database,
+     * the start time is the first day of the year of the database.
+     *
+     * @param reader      reader of the game
+     * @param blackResult final number of black discs minus number of white discs
+     * @return the game record
+     */
+    private GameRecord toRecord(WthorReader reader, int blackResult) {
+        byte[] moves = new byte[reader.getMoveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (byte) reader.getMove(i);
+        }
+        long startMillis = LocalDate.of(reader.getYear(), 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return new GameRecord("WTHOR " + reader.getBlackPlayer(), "WTHOR " + reader.getWhitePlayer(), startMillis, 0,
+                blackResult, moves);
+    }
+
+    /**
+     * Gets the number of imported games.
+     *
+     * @return number of games
+     */
+    long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the number of skipped games with an invalid move.
+     *
+     * @return number of invalid games
+     */
+    long getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * Gets the number of visited positions.
+     *
+     * @return number of positions
+     */
+    long getPositionCount() {
+        return positionCount;
+    }
+}
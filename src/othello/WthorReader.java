@@ -0,0 +1,257 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads games of a WTHOR database file ({@code .wtb}) through a buffered channel, one game at a time, so files of any
+ * size are read with constant memory. The fields of the current game are kept in the reader and are overwritten by
+ * the next game, no object is created per game.
+ * <br>
+ * The file starts with a header of 16 bytes: creation date (4 bytes), number of games ({@code int}), number of
+ * records of other file types ({@code short}), year of the games ({@code short}), board size, game type, search depth
+ * of the theoretical scores and a reserved byte. Then a record of 68 bytes follows for every game: tournament, black
+ * player and white player numbers ({@code short} each), number of black discs at the end of the game, theoretical
+ * score and 60 move bytes. A move byte is {@code 10 * row + column} with rows and columns numbered from 1, and
+ * {@code 0} after the last move. All numbers are little-endian.
+ */
+class WthorReader implements Closeable {
+    /**
+     * Size of the file header in bytes
+     */
+    static final int HEADER_BYTES = 16;
+    /**
+     * Size of every game record in bytes
+     */
+    static final int GAME_BYTES = 68;
+    /**
+     * Number of games read from the channel at once
+     */
+    private static final int BUFFER_GAMES = 4096;
+    /**
+     * Channel of the database file
+     */
+    private FileChannel channel;
+    /**
+     * Buffer of game records read from the channel and not parsed yet
+     */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(GAME_BYTES * BUFFER_GAMES).order(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Number of games in the file
+     */
+    private int gameCount;
+    /**
+     * Year of the games in the file
+     */
+    private int year;
+    /**
+     * Number of games read
+     */
+    private int readCount;
+    /**
+     * Tournament number of the current game
+     */
+    private int tournament;
+    /**
+     * Black player number of the current game
+     */
+    private int blackPlayer;
+    /**
+     * White player number of the current game
+     */
+    private int whitePlayer;
+    /**
+     * Number of black discs at the end of the current game
+     */
+    private int blackDiscs;
+    /**
+     * Theoretical score of the current game, the number of black discs with perfect play
+     */
+    private int theoreticalScore;
+    /**
+     * Square indexes of the moves of the current game
+     */
+    private byte[] moves = new byte[Board.MAX_MOVES];
+    /**
+     * Number of moves of the current game
+     */
+    private int moveCount;
+
+    /**
+     * Constructor of the reader on an opened database file.
+     *
+     * @param channel channel of the database file
+     * @throws IOException if the file can not be read or is not a WTHOR game database
+     */
+    private WthorReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header);
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES) {
+            throw new IOException("Not a WTHOR game database");
+        }
+        gameCount = header.getInt(4);
+        year = header.getShort(10);
+        int boardSize = header.get(12);
+        if (gameCount < 0 || (boardSize != 0 && boardSize != 8)
+                || HEADER_BYTES + (long) gameCount * GAME_BYTES > channel.size()) {
+            throw new IOException("Not a WTHOR game database of 8 by 8 boards");
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Opens a database file for reading.
+     *
+     * @param path path of the database file
+     * @return the reader
+     * @throws IOException if the file can not be opened or is not a WTHOR game database
+     */
+    static WthorReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new WthorReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next game, its fields are available by the getters until the next call.
+     *
+     * @return {@code true} if a game is read, {@code false} at the end of the file
+     * @throws IOException if the channel can not be read or the file ends inside a game
+     */
+    boolean next() throws IOException {
+        if (readCount == gameCount) {
+            return false;
+        }
+        if (buffer.remaining() < GAME_BYTES) {
+            buffer.compact();
+            while (buffer.position() < GAME_BYTES) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of WTHOR game database");
+                }
+            }
+            buffer.flip();
+        }
+        tournament = buffer.getShort() & 0xFFFF;
+        blackPlayer = buffer.getShort() & 0xFFFF;
+        whitePlayer = buffer.getShort() & 0xFFFF;
+        blackDiscs = buffer.get();
+        theoreticalScore = buffer.get();
+        moveCount = 0;
+        for (int i = 0; i < Board.MAX_MOVES; i++) {
+            int move = buffer.get();
+            int row = move / 10 - 1;
+            int column = move % 10 - 1;
+            if (move != 0 && moveCount == i && row >= 0 && row < 8 && column >= 0 && column < 8) {
+                moves[moveCount++] = (byte) Bitboard.square(row, column);
+            }
+        }
+        readCount++;
+        return true;
+    }
+
+    /**
+     * Gets the number of games in the file.
+     *
+     * @return number of games
+     */
+    int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the year of the games in the file.
+     *
+     * @return year of the games
+     */
+    int getYear() {
+        return year;
+    }
+
+    /**
+     * Gets the tournament number of the current game.
+     *
+     * @return tournament number
+     */
+    int getTournament() {
+        return tournament;
+    }
+
+    /**
+     * Gets the black player number of the current game.
+     *
+     * @return black player number
+     */
+    int getBlackPlayer() {
+        return blackPlayer;
+    }
+
+    /**
+     * Gets the white player number of the current game.
+     *
+     * @return white player number
+     */
+    int getWhitePlayer() {
+        return whitePlayer;
+    }
+
+    /**
+     * Gets the number of black discs at the end of the current game, empty cells are counted for the winner.
+     *
+     * @return number of black discs
+     */
+    int getBlackDiscs() {
+        return blackDiscs;
+    }
+
+    /**
+     * Gets the theoretical score of the current game.
+     *
+     * @return number of black discs with perfect play
+     */
+    int getTheoreticalScore() {
+        return theoreticalScore;
+    }
+
+    /**
+     * Gets the number of moves of the current game. Moves after the first invalid move byte are ignored.
+     *
+     * @return number of moves
+     */
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets a move of the current game.
+     *
+     * @param index index of the move in playing order
+     * @return square index of the move
+     */
+    int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Closes the channel.
+     *
+     * @throws IOException if the channel can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
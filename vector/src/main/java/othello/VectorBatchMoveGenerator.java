@@ -0,0 +1,122 @@
+package othello;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch move generation with the Java Vector API. The shift and mask passes of {@link Bitboard} run on as many
+ * positions at once as the preferred vector shape has {@code long} lanes, and the positions left after the last full
+ * vector are processed one at a time. Loaded by {@link BatchMoveGenerator#create()} through reflection, it needs the
+ * {@code jdk.incubator.vector} module at run time.
+ */
+class VectorBatchMoveGenerator implements BatchMoveGenerator {
+    /**
+     * Species of the bitboard vectors
+     */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    /**
+     * Species of the square index vectors, with as many lanes as {@link VectorBatchMoveGenerator#SPECIES}
+     */
+    private static final VectorSpecies<Integer> SQUARE_SPECIES = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+
+    /**
+     * Constructor of the generator.
+     *
+     * @throws UnsupportedOperationException if vectors have a single lane, the scalar generator is faster then
+     */
+    VectorBatchMoveGenerator() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("No vector lanes for long");
+        }
+    }
+
+    /**
+     * Computes the valid moves of every position.
+     *
+     * @param players   discs of the player to move of every position
+     * @param opponents discs of the opponent of every position
+     * @param moves     receives the bitboard of valid moves of every position
+     * @param count     number of positions
+     */
+    @Override
+    public void validMoves(long[] players, long[] opponents, long[] moves, int count) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            LongVector player = LongVector.fromArray(SPECIES, players, i);
+            LongVector opponent = LongVector.fromArray(SPECIES, opponents, i);
+            LongVector result = LongVector.zero(SPECIES);
+            for (int d = 0; d < 4; d++) {
+                int shift = Bitboard.DIRECTION_SHIFTS[d];
+                LongVector mask = opponent.and(Bitboard.DIRECTION_MASKS[d]);
+                LongVector left = mask.and(player.lanewise(VectorOperators.LSHL, shift));
+                LongVector right = mask.and(player.lanewise(VectorOperators.LSHR, shift));
+                for (int j = 0; j < 5; j++) {
+                    left = left.or(mask.and(left.lanewise(VectorOperators.LSHL, shift)));
+                    right = right.or(mask.and(right.lanewise(VectorOperators.LSHR, shift)));
+                }
+                result = result.or(left.lanewise(VectorOperators.LSHL, shift))
+                        .or(right.lanewise(VectorOperators.LSHR, shift));
+            }
+            result.and(player.or(opponent).not()).intoArray(moves, i);
+        }
+        for (; i < count; i++) {
+            moves[i] = Bitboard.validMoves(players[i], opponents[i]);
+        }
+    }
+
+    /**
+     * Plays a move in every position.
+     *
+     * @param players       discs of the player to move of every position
+     * @param opponents     discs of the opponent of every position
+     * @param squares       square index of a valid move of every position
+     * @param nextPlayers   receives the discs of the opponent after the move of every position
+     * @param nextOpponents receives the discs of the player after the move of every position
+     * @param count         number of positions
+     */
+    @Override
+    public void play(long[] players, long[] opponents, int[] squares, long[] nextPlayers, long[] nextOpponents,
+                     int count) {
+        LongVector one = LongVector.broadcast(SPECIES, 1L);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            LongVector player = LongVector.fromArray(SPECIES, players, i);
+            LongVector opponent = LongVector.fromArray(SPECIES, opponents, i);
+            LongVector square = (LongVector) IntVector.fromArray(SQUARE_SPECIES, squares, i)
+                    .convertShape(VectorOperators.I2L, SPECIES, 0);
+            LongVector move = one.lanewise(VectorOperators.LSHL, square);
+            LongVector flips = LongVector.zero(SPECIES);
+            for (int d = 0; d < 4; d++) {
+                int shift = Bitboard.DIRECTION_SHIFTS[d];
+                LongVector mask = opponent.and(Bitboard.DIRECTION_MASKS[d]);
+                LongVector left = mask.and(move.lanewise(VectorOperators.LSHL, shift));
+                LongVector right = mask.and(move.lanewise(VectorOperators.LSHR, shift));
+                for (int j = 0; j < 5; j++) {
+                    left = left.or(mask.and(left.lanewise(VectorOperators.LSHL, shift)));
+                    right = right.or(mask.and(right.lanewise(VectorOperators.LSHR, shift)));
+                }
+                //all ones where the line is closed by a player disc, zero otherwise
+                LongVector leftOutflank = left.lanewise(VectorOperators.LSHL, shift).and(player);
+                LongVector rightOutflank = right.lanewise(VectorOperators.LSHR, shift).and(player);
+                flips = flips.or(left.and(leftOutflank.or(leftOutflank.neg()).lanewise(VectorOperators.ASHR, 63)));
+                flips = flips.or(right.and(rightOutflank.or(rightOutflank.neg()).lanewise(VectorOperators.ASHR, 63)));
+            }
+            //both results are computed before storing, so the result arrays may be the position arrays
+            LongVector nextPlayer = opponent.and(flips.not());
+            LongVector nextOpponent = player.or(flips).or(move);
+            nextPlayer.intoArray(nextPlayers, i);
+            nextOpponent.intoArray(nextOpponents, i);
+        }
+        for (; i < count; i++) {
+            long player = players[i];
+            long opponent = opponents[i];
+            long flips = Bitboard.flips(player, opponent, squares[i]);
+            nextPlayers[i] = opponent & ~flips;
+            nextOpponents[i] = player | flips | (1L << squares[i]);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package othello;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the SIMD batch move generator against the scalar generator on positions of random games.
+ */
+class VectorBatchMoveGeneratorTest {
+    /**
+     * Number of positions, not a multiple of the vector length so the scalar tail loop is checked as well
+     */
+    private static final int COUNT = 10007;
+
+    /**
+     * Valid moves and played moves of every position match the scalar generator, also when the results are written
+     * to the position arrays.
+     */
+    @Test
+    void resultsMatchScalarGenerator() {
+        SplittableRandom random = new SplittableRandom(23);
+        long[] players = new long[COUNT];
+        long[] opponents = new long[COUNT];
+        int[] squares = new int[COUNT];
+        Board board = new Board();
+        int color = Board.BLACK;
+        for (int i = 0; i < COUNT; i++) {
+            if (board.isGameFinished()) {
+                board = new Board();
+                color = Board.BLACK;
+            }
+            long moves = board.getValidMoves(color);
+            players[i] = board.getDiscs(color);
+            opponents[i] = board.getDiscs(color ^ 1);
+            squares[i] = Bitboard.nthSquare(moves, random.nextInt(Long.bitCount(moves)));
+            board.makeMove(color, squares[i]);
+            color = board.nextTurn(color);
+        }
+
+        BatchMoveGenerator scalar = new ScalarBatchMoveGenerator();
+        BatchMoveGenerator vector = new VectorBatchMoveGenerator();
+        long[] expectedMoves = new long[COUNT];
+        long[] actualMoves = new long[COUNT];
+        scalar.validMoves(players, opponents, expectedMoves, COUNT);
+        vector.validMoves(players, opponents, actualMoves, COUNT);
+        assertArrayEquals(expectedMoves, actualMoves);
+
+        long[] expectedPlayers = new long[COUNT];
+        long[] expectedOpponents = new long[COUNT];
+        scalar.play(players, opponents, squares, expectedPlayers, expectedOpponents, COUNT);
+        long[] actualPlayers = new long[COUNT];
+        long[] actualOpponents = new long[COUNT];
+        vector.play(players, opponents, squares, actualPlayers, actualOpponents, COUNT);
+        assertArrayEquals(expectedPlayers, actualPlayers);
+        assertArrayEquals(expectedOpponents, actualOpponents);
+
+        vector.play(players, opponents, squares, players, opponents, COUNT);
+        assertArrayEquals(expectedPlayers, players);
+        assertArrayEquals(expectedOpponents, opponents);
+    }
+}